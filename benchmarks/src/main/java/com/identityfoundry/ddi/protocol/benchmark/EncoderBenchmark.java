@@ -0,0 +1,90 @@
+package com.identityfoundry.ddi.protocol.benchmark;
+
+import com.identityfoundry.ddi.protocol.multicodec.AmbiguousCodecEncodingException;
+import com.identityfoundry.ddi.protocol.multicodec.CodecSet;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedData;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedView;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import com.identityfoundry.ddi.protocol.multicodec.MulticodecEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a payload with {@link MulticodecEncoder}, for single and multibyte codes and a range of payload
+ * sizes, and decodes restricted to a {@link CodecSet} of three codecs.
+ * Scores are nanoseconds per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark {
+
+    /**
+     * A 1 byte code, a 1 byte code with a 2 byte varint, and a 2 byte code with a 3 byte varint.
+     */
+    @Param({"SHA2_256", "ED25519_PUB", "BLAKE2B_256"})
+    public Multicodec codec;
+
+    @Param({"32", "1024", "65536"})
+    public int payloadSize;
+
+    private byte[] payload;
+    private byte[] encoded;
+    private byte[] dest;
+    private CodecSet expected;
+    private final DecodedData target = new DecodedData();
+
+    @Setup
+    public void setup() {
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        encoded = MulticodecEncoder.encode(codec, payload);
+        dest = new byte[MulticodecEncoder.encodedLength(codec, payloadSize)];
+        expected = CodecSet.of(codec, Multicodec.RAW, Multicodec.DAG_PB);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return MulticodecEncoder.encode(codec, payload);
+    }
+
+    @Benchmark
+    public int encodeInto() {
+        return MulticodecEncoder.encodeInto(codec, payload, 0, payload.length, dest, 0);
+    }
+
+    @Benchmark
+    public DecodedData decode() throws AmbiguousCodecEncodingException {
+        return MulticodecEncoder.decode(encoded);
+    }
+
+    @Benchmark
+    public DecodedView decodeView() throws AmbiguousCodecEncodingException {
+        return MulticodecEncoder.decodeView(encoded);
+    }
+
+    @Benchmark
+    public DecodedData decodeInto() throws AmbiguousCodecEncodingException {
+        return MulticodecEncoder.decodeInto(encoded, 0, encoded.length, target);
+    }
+
+    @Benchmark
+    public DecodedView decodeViewExpected() throws AmbiguousCodecEncodingException {
+        return MulticodecEncoder.decodeView(encoded, 0, encoded.length, expected);
+    }
+}
@@ -0,0 +1,65 @@
+package com.identityfoundry.ddi.protocol.benchmark;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts bytes to hex and back with {@link HexUtils}, allocating and into a reused array.
+ * Scores are nanoseconds per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexBenchmark {
+
+    @Param({"32", "1024"})
+    public int size;
+
+    private byte[] bytes;
+    private String hex;
+    private char[] chars;
+
+    @Setup
+    public void setup() {
+        bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        hex = HexUtils.bytesToHex(bytes);
+        chars = new char[2 * size];
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return HexUtils.bytesToHex(bytes);
+    }
+
+    @Benchmark
+    public int encodeInto() {
+        return HexUtils.encode(bytes, 0, size, chars, 0, true);
+    }
+
+    @Benchmark
+    public byte[] hexToBytes() {
+        return HexUtils.hexToBytes(hex);
+    }
+
+    @Benchmark
+    public int decodeInto() {
+        return HexUtils.decode(hex, 0, hex.length(), bytes, 0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.identityfoundry.ddi.protocol.benchmark;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.multicodec.CodecRegistry;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves codes to codecs: by the code string, by the numeric code, by leniently parsed text, by a varint prefix in
+ * place, and through a {@link CodecRegistry}. The codes are a shuffled mix of every codec in the table.
+ * Scores are nanoseconds per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(LookupBenchmark.LOOKUPS)
+public class LookupBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    private final String[] codes = new String[LOOKUPS];
+    private final String[] lenientCodes = new String[LOOKUPS];
+    private final long[] codeValues = new long[LOOKUPS];
+    private final byte[] prefixes = new byte[LOOKUPS * 5];
+    private final int[] prefixOffsets = new int[LOOKUPS];
+    private final CodecRegistry registry = new CodecRegistry();
+
+    @Setup
+    public void setup() {
+        Multicodec[] all = Multicodec.values();
+        Random random = new Random(42);
+        for (int i = 0, pos = 0; i < LOOKUPS; i++) {
+            Multicodec codec = all[random.nextInt(all.length)];
+            codes[i] = codec.code;
+            lenientCodes[i] = codec.code.toLowerCase();
+            codeValues[i] = codec.codeValue;
+            prefixOffsets[i] = pos;
+            pos = VarInt.writeUnsignedVarLong(codec.codeValue, prefixes, pos);
+        }
+        registry.register("private-use", 0x300000);
+    }
+
+    @Benchmark
+    public int byCodeString() {
+        int sum = 0;
+        for (String code : codes) {
+            sum += Multicodec.lookupByCode(code).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int byCodeValue() {
+        int sum = 0;
+        for (long code : codeValues) {
+            sum += Multicodec.lookupByCode(code).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int byLenientText() {
+        int sum = 0;
+        for (String code : lenientCodes) {
+            sum += Multicodec.findByCode(code).get().ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int byVarintPrefix() {
+        int sum = 0;
+        for (int offset : prefixOffsets) {
+            sum += Multicodec.byVarintPrefix(prefixes, offset).ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long byRegistry() {
+        long sum = 0;
+        for (long code : codeValues) {
+            sum += registry.lookup(code).getCode();
+        }
+        return sum;
+    }
+}
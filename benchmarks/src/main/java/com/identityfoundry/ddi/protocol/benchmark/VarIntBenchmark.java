@@ -0,0 +1,80 @@
+package com.identityfoundry.ddi.protocol.benchmark;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.common.VarIntArrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a column of packed varints one value at a time with {@link VarInt}, and in bulk with {@link VarIntArrays}
+ * with and without the vector API, which needs the library's multi-release jar on Java 17 or later.
+ * Scores are values decoded per microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@OperationsPerInvocation(VarIntBenchmark.VALUES)
+public class VarIntBenchmark {
+
+    static final int VALUES = 1 << 20;
+
+    /**
+     * The percentage of values that need two bytes, the rest needing one.
+     */
+    @Param({"0", "5", "50"})
+    public int multiBytePercent;
+
+    private byte[] packed;
+    private final long[] values = new long[VALUES];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (random.nextInt(100) < multiBytePercent) ? 128 + random.nextInt(16384 - 128) : random.nextInt(128);
+        }
+        packed = VarIntArrays.encode(values, VarIntArrays.Transform.NONE);
+    }
+
+    @Benchmark
+    public long[] perValue() {
+        for (int i = 0, pos = 0; i < VALUES; i++) {
+            long value = VarInt.readUnsignedVarLong(packed, pos);
+            pos += VarInt.varIntSize(value);
+            values[i] = value;
+        }
+        return values;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dmulticodec.varint.vector=false"})
+    public long[] bulkScalar() {
+        return bulk();
+    }
+
+    @Benchmark
+    public long[] bulkVector() {
+        return bulk();
+    }
+
+    private long[] bulk() {
+        VarIntArrays.decode(packed, 0, packed.length, values, 0, VALUES, VarIntArrays.Transform.NONE);
+        return values;
+    }
+}
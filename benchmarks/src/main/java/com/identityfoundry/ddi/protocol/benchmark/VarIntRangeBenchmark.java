@@ -0,0 +1,83 @@
+package com.identityfoundry.ddi.protocol.benchmark;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads single varints with {@link VarInt}, for values of a given encoded length, and the allocating
+ * {@link VarInt#writeUnsignedVarInt(int)} the legacy prefixes were built with. Scores are nanoseconds per value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(VarIntRangeBenchmark.VALUES)
+public class VarIntRangeBenchmark {
+
+    static final int VALUES = 1024;
+
+    /**
+     * The encoded length of every value, in bytes.
+     */
+    @Param({"1", "2", "3", "5", "9"})
+    public int bytes;
+
+    private final long[] values = new long[VALUES];
+    private final byte[] buffer = new byte[VALUES * 9];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        long min = (bytes == 1) ? 0 : 1L << (7 * (bytes - 1));
+        long range = (bytes == 9) ? Long.MAX_VALUE - min : (1L << (7 * bytes)) - min;
+        for (int i = 0, pos = 0; i < VALUES; i++) {
+            values[i] = min + (random.nextLong() & Long.MAX_VALUE) % range;
+            pos = VarInt.writeUnsignedVarLong(values[i], buffer, pos);
+        }
+    }
+
+    @Benchmark
+    public int write() {
+        int pos = 0;
+        for (int i = 0; i < VALUES; i++) {
+            pos = VarInt.writeUnsignedVarLong(values[i], buffer, pos);
+        }
+        return pos;
+    }
+
+    @Benchmark
+    public long read() {
+        long sum = 0;
+        for (int i = 0, pos = 0; i < VALUES; i++) {
+            long value = VarInt.readUnsignedVarLong(buffer, pos);
+            pos += VarInt.varIntSize(value);
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int writeAllocating() {
+        int length = 0;
+        for (int i = 0; i < VALUES; i++) {
+            length += VarInt.writeUnsignedVarInt((int) values[i]).length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,401 @@
+package com.identityfoundry.ddi.protocol.codegen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * <p>Generates the <code>Multicodec</code> enum and its <code>CodecTable</code> from the multicodec table.</p>
+ * <p>Each row of <code>table.csv</code> (<code>name, tag, code, status, description</code>) becomes an enum constant
+ * named after the codec, upper cased with '-' replaced by '_', carrying its tag, status, description, numeric code, the
+ * prefix bytes (the code as a single unsigned varint) and the legacy prefix bytes as literals, so nothing is parsed when
+ * the enum is initialised.</p>
+ * <p>The codes beyond the dense range of <code>CodecTable</code> are placed in a perfect hash table: the codes are
+ * grouped in buckets by hash, then, largest bucket first, each bucket is given the first displacement that sends all
+ * its codes to free slots. The table and the displacements are written out as array literals.</p>
+ * <p>Run by the build in the generate-sources phase with the arguments
+ * <code>&lt;table.csv&gt; &lt;templates directory&gt; &lt;output directory&gt;</code>. A file is only rewritten when
+ * its content changes, so an unchanged table does not force a recompile.</p>
+ */
+public final class MulticodecGenerator {
+
+    private static final String PACKAGE_PATH = "com/identityfoundry/ddi/protocol/multicodec";
+
+    /**
+     * Must match <code>CodecTable.DENSE_LIMIT</code>.
+     */
+    private static final int DENSE_LIMIT = 0x400;
+
+    /**
+     * The largest displacement tried for a bucket before the table is grown.
+     */
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private MulticodecGenerator() {}
+
+    /**
+     * A row of the multicodec table.
+     */
+    static final class Row {
+        final String name;
+        final String constant;
+        final String tag;
+        final String code;
+        final int codeValue;
+        final String status;
+        final String description;
+        final byte[] prefix;
+        final byte[] legacyPrefix;
+
+        Row(String name, String tag, String code, String status, String description) {
+            this.name = name;
+            this.constant = name.toUpperCase(Locale.ROOT).replace('-', '_');
+            if (!constant.matches("[A-Z][A-Z0-9_]*")) {
+                throw new IllegalArgumentException("Codec name is not a Java identifier: " + name);
+            }
+            if (!code.matches("0x[0-9a-fA-F]{1,8}")) {
+                throw new IllegalArgumentException("Invalid code for " + name + ": " + code);
+            }
+            String digits = code.substring(2).toUpperCase(Locale.ROOT);
+            this.code = "0x" + digits;
+            long value = Long.parseLong(digits, 16);
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Code out of range for " + name + ": " + code);
+            }
+            this.codeValue = (int) value;
+            this.tag = tag;
+            this.status = status;
+            this.description = description;
+            this.prefix = varint(codeValue);
+            this.legacyPrefix = legacyPrefix(digits);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: MulticodecGenerator <table.csv> <templates directory> <output directory>");
+        }
+        List<Row> rows = readTable(Paths.get(args[0]));
+        Path templates = Paths.get(args[1]);
+        Path output = Paths.get(args[2]).resolve(PACKAGE_PATH);
+        Files.createDirectories(output);
+
+        String multicodec = read(templates.resolve("Multicodec.java.template"))
+                .replace("/*@CONSTANTS@*/", constants(rows))
+                .replace("/*@TAGS@*/", labels(rows, true))
+                .replace("/*@STATUSES@*/", labels(rows, false));
+        String codecTable = read(templates.resolve("CodecTable.java.template"))
+                .replace("/*@TABLES@*/", perfectHash(rows));
+        writeIfChanged(output.resolve("Multicodec.java"), multicodec);
+        writeIfChanged(output.resolve("CodecTable.java"), codecTable);
+    }
+
+    /**
+     * Reads the rows of the table, skipping its header.
+     */
+    static List<Row> readTable(Path table) throws IOException {
+        List<String> lines = Files.readAllLines(table, StandardCharsets.UTF_8);
+        List<Row> rows = new ArrayList<>(lines.size());
+        Set<String> constants = new LinkedHashSet<>();
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = splitCsv(lines.get(i));
+            if (fields.size() < 4 || fields.size() > 5) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " of " + table + " does not have 5 fields");
+            }
+            Row row = new Row(fields.get(0), fields.get(1), fields.get(2), fields.get(3),
+                    (fields.size() == 5) ? fields.get(4) : "");
+            if (!constants.add(row.constant)) {
+                throw new IllegalArgumentException("Duplicate codec name on line " + (i + 1) + ": " + row.name);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Splits a line of the table into its trimmed fields. A field may be quoted, with "" for a quote within it.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote: " + line);
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * The prefix written by <code>MulticodecEncoder.encode</code>: the code as a single unsigned varint.
+     */
+    static byte[] varint(int code) {
+        byte[] prefix = new byte[5];
+        int length = 0;
+        while ((code & ~0x7F) != 0) {
+            prefix[length++] = (byte) ((code & 0x7F) | 0x80);
+            code >>>= 7;
+        }
+        prefix[length++] = (byte) code;
+        return Arrays.copyOf(prefix, length);
+    }
+
+    /**
+     * The legacy prefix, as written by <code>LegacyTranscoder.encodeLegacy</code>: each byte of the code varint
+     * encoded in turn.
+     */
+    static byte[] legacyPrefix(String digits) {
+        String even = (digits.length() % 2 == 0) ? digits : "0" + digits;
+        byte[] prefix = new byte[even.length()];
+        int length = 0;
+        for (int i = 0; i < even.length(); i += 2) {
+            int codeByte = Integer.parseInt(even.substring(i, i + 2), 16);
+            if (codeByte >= 0x80) {
+                prefix[length++] = (byte) (codeByte | 0x80);
+                prefix[length++] = (byte) (codeByte >>> 7);
+            } else {
+                prefix[length++] = (byte) codeByte;
+            }
+        }
+        return Arrays.copyOf(prefix, length);
+    }
+
+    private static String constants(List<Row> rows) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (!row.description.isEmpty()) {
+                out.append("    /**\n     * ").append(javadoc(row.description)).append("\n     */\n");
+            }
+            StringBuilder prefixHex = new StringBuilder();
+            for (byte b : row.prefix) {
+                prefixHex.append(String.format("%02X", b & 0xFF));
+            }
+            out.append("    ").append(row.constant).append("(\"").append(javaString(row.name)).append("\", Tag.")
+                    .append(label(row.tag)).append(", \"").append(row.code).append("\", ").append(row.code)
+                    .append(", Status.").append(label(row.status)).append(", \"").append(javaString(row.description))
+                    .append("\", \"").append(prefixHex).append("\", ").append(byteArray(row.prefix)).append(", ")
+                    .append(byteArray(row.legacyPrefix)).append(")")
+                    .append((i == rows.size() - 1) ? ";" : ",").append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String byteArray(byte[] bytes) {
+        StringBuilder out = new StringBuilder("new byte[]{");
+        for (int i = 0; i < bytes.length; i++) {
+            out.append((i == 0) ? "" : ", ").append(String.format((bytes[i] < 0) ? "(byte) 0x%02X" : "0x%02X", bytes[i] & 0xFF));
+        }
+        return out.append('}').toString();
+    }
+
+    private static String labels(List<Row> rows, boolean tags) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Row row : rows) {
+            names.add(tags ? row.tag : row.status);
+        }
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        for (String name : names) {
+            out.append("        ").append(label(name)).append("(\"").append(javaString(name)).append("\")")
+                    .append((++i == names.size()) ? ";" : ",").append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String label(String name) {
+        String label = name.toUpperCase(Locale.ROOT).replace('-', '_');
+        if (!label.matches("[A-Z][A-Z0-9_]*")) {
+            throw new IllegalArgumentException("Not a Java identifier: " + name);
+        }
+        return label;
+    }
+
+    /**
+     * Builds the perfect hash table over the sparse codes, the first declared constant winning a shared code.
+     */
+    private static String perfectHash(List<Row> rows) {
+        List<int[]> entries = new ArrayList<>();
+        Set<Integer> seen = new LinkedHashSet<>();
+        for (int ordinal = 0; ordinal < rows.size(); ordinal++) {
+            int code = rows.get(ordinal).codeValue;
+            if (code >= DENSE_LIMIT && seen.add(code)) {
+                entries.add(new int[]{code, ordinal});
+            }
+        }
+        //A power of two table of at least the entry count, and a bucket per 4 entries or so.
+        int slotBits = 32 - Integer.numberOfLeadingZeros(Math.max(entries.size(), 2) - 1);
+        while (true) {
+            int bucketBits = Math.max(1, slotBits - 2);
+            int[] displacements = displace(entries, slotBits, bucketBits);
+            if (displacements != null) {
+                return tables(entries, slotBits, bucketBits, displacements);
+            }
+            slotBits++;
+        }
+    }
+
+    /**
+     * Finds a displacement for every bucket, or null if a bucket cannot be placed in a table of this size.
+     */
+    private static int[] displace(List<int[]> entries, int slotBits, int bucketBits) {
+        int slotMask = (1 << slotBits) - 1;
+        List<List<int[]>> buckets = new ArrayList<>();
+        for (int i = 0; i < (1 << bucketBits); i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int[] entry : entries) {
+            buckets.get(mix(entry[0]) >>> (32 - bucketBits)).add(entry);
+        }
+        Integer[] order = new Integer[buckets.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        boolean[] used = new boolean[slotMask + 1];
+        int[] displacements = new int[buckets.size()];
+        int[] slots = new int[entries.size()];
+        for (int bucket : order) {
+            List<int[]> members = buckets.get(bucket);
+            if (members.isEmpty()) {
+                break;
+            }
+            int displacement = 0;
+            search:
+            for (; displacement < MAX_DISPLACEMENT; displacement++) {
+                for (int i = 0; i < members.size(); i++) {
+                    int slot = mix(members.get(i)[0] + ((long) displacement << 32)) & slotMask;
+                    for (int j = 0; j < i; j++) {
+                        if (slots[j] == slot) {
+                            continue search;
+                        }
+                    }
+                    if (used[slot]) {
+                        continue search;
+                    }
+                    slots[i] = slot;
+                }
+                break;
+            }
+            if (displacement == MAX_DISPLACEMENT) {
+                return null;
+            }
+            for (int i = 0; i < members.size(); i++) {
+                used[slots[i]] = true;
+            }
+            displacements[bucket] = displacement;
+        }
+        return displacements;
+    }
+
+    private static String tables(List<int[]> entries, int slotBits, int bucketBits, int[] displacements) {
+        int slotMask = (1 << slotBits) - 1;
+        int[] slotCodes = new int[slotMask + 1];
+        int[] slotOrdinals = new int[slotMask + 1];
+        Arrays.fill(slotCodes, -1);
+        for (int[] entry : entries) {
+            int displacement = displacements[mix(entry[0]) >>> (32 - bucketBits)];
+            int slot = mix(entry[0] + ((long) displacement << 32)) & slotMask;
+            slotCodes[slot] = entry[0];
+            slotOrdinals[slot] = entry[1];
+        }
+        StringBuilder out = new StringBuilder();
+        out.append("    //Perfect hash table over the ").append(entries.size()).append(" codes from DENSE_LIMIT up, in ")
+                .append(slotMask + 1).append(" slots and ").append(displacements.length).append(" buckets.\n");
+        out.append("    private static final int BUCKET_SHIFT = ").append(32 - bucketBits).append(";\n\n");
+        out.append("    private static final int SLOT_MASK = 0x").append(Integer.toHexString(slotMask).toUpperCase(Locale.ROOT))
+                .append(";\n\n");
+        appendArray(out, "int", "DISPLACEMENTS", displacements, false);
+        out.append('\n');
+        appendArray(out, "int", "SLOT_CODES", slotCodes, true);
+        out.append('\n');
+        appendArray(out, "short", "SLOT_ORDINALS", slotOrdinals, false);
+        return out.toString();
+    }
+
+    private static void appendArray(StringBuilder out, String type, String name, int[] values, boolean hex) {
+        out.append("    private static final ").append(type).append("[] ").append(name).append(" = {");
+        for (int i = 0; i < values.length; i++) {
+            out.append((i % 12 == 0) ? "\n            " : " ");
+            if (hex && values[i] >= 0) {
+                out.append("0x").append(Integer.toHexString(values[i]).toUpperCase(Locale.ROOT));
+            } else {
+                out.append(values[i]);
+            }
+            out.append(',');
+        }
+        out.setLength(out.length() - 1);
+        out.append("\n    };\n");
+    }
+
+    /**
+     * The hash of the perfect hash table, which must match <code>CodecTable.mix</code>.
+     */
+    static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static String javaString(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String javadoc(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("*/", "*&#47;").replace("@", "&#64;");
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    private static void writeIfChanged(Path path, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (!Files.exists(path) || !Arrays.equals(Files.readAllBytes(path), bytes)) {
+            Files.write(path, bytes);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.identityfoundry.ddi.protocol.cid;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.multibase.Multibase;
+import com.identityfoundry.ddi.protocol.multicodec.AmbiguousCodecEncodingException;
+import com.identityfoundry.ddi.protocol.multicodec.CodecSet;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedView;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import com.identityfoundry.ddi.protocol.multicodec.MulticodecEncoder;
+import com.identityfoundry.ddi.protocol.multihash.Multihash;
+
+import java.util.Arrays;
+
+/**
+ * <p>An immutable content identifier (CID): the codec of some content and the multihash of it.</p>
+ * <p>A CIDv1 is <code>&lt;0x01&gt;&lt;codec varint&gt;&lt;multihash&gt;</code>, usually written as a base32 multibase
+ * string starting 'b'. A CIDv0 is a bare sha2-256 multihash of {@link Multicodec#DAG_PB} content, written in base58btc
+ * without a multibase prefix, so always starting "Qm".</p>
+ * <p>A CID holds its binary form in a single array, with the codec and the offset of the multihash read from it
+ * when it is parsed, and its hash code computed once. Equal CIDs have equal binary forms, and CIDs are ordered by
+ * their binary forms as unsigned bytes, so they are compact and cheap keys for hash and sorted maps.
+ * Malformed CIDs are rejected with an {@link IllegalArgumentException}.</p>
+ * <p>See: <a href="https://github.com/multiformats/cid">https://github.com/multiformats/cid</a></p>
+ */
+public final class Cid implements Comparable<Cid> {
+
+    private static final int V0_LENGTH = 34;
+    private static final int V0_STRING_LENGTH = 46;
+
+    private final byte[] bytes;
+    private final Multicodec codec;
+    private final int multihashOffset;
+    private final int hash;
+
+    private Cid(byte[] bytes, Multicodec codec, int multihashOffset) {
+        this.bytes = bytes;
+        this.codec = codec;
+        this.multihashOffset = multihashOffset;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Creates a CIDv1.
+     * @param codec The codec of the content, e.g. {@link Multicodec#RAW}.
+     * @param multihash The multihash of the content.
+     * @return The CID.
+     * @throws IllegalArgumentException if the multihash is malformed.
+     */
+    public static Cid of(Multicodec codec, byte[] multihash) {
+        long code = codec.codeValue;
+        byte[] bytes = new byte[1 + VarInt.varIntSize(code) + multihash.length];
+        bytes[0] = 1;
+        int pos = VarInt.writeUnsignedVarLong(code, bytes, 1);
+        System.arraycopy(multihash, 0, bytes, pos, multihash.length);
+        return parseOwned(bytes);
+    }
+
+    /**
+     * Parses the binary form of a CID.
+     * @param bytes The binary CID.
+     * @return The CID.
+     * @throws IllegalArgumentException if the bytes are not a valid CID.
+     */
+    public static Cid fromBytes(byte[] bytes) {
+        return parseOwned(bytes.clone());
+    }
+
+    /**
+     * Parses the binary form of a CID from a range of an array.
+     * @param source The array holding the binary CID.
+     * @param offset The offset of the CID.
+     * @param length The length of the CID.
+     * @return The CID.
+     * @throws IllegalArgumentException if the bytes are not a valid CID.
+     */
+    public static Cid fromBytes(byte[] source, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > source.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + source.length);
+        }
+        return parseOwned(Arrays.copyOfRange(source, offset, offset + length));
+    }
+
+    /**
+     * Parses the string form of a CID: a multibase string for a CIDv1, or base58btc starting "Qm" for a CIDv0.
+     * @param text The CID string.
+     * @return The CID.
+     * @throws IllegalArgumentException if the text is not a valid CID.
+     */
+    public static Cid parse(CharSequence text) {
+        if (text.length() == V0_STRING_LENGTH && text.charAt(0) == 'Q' && text.charAt(1) == 'm') {
+            return parseOwned(Multibase.BASE58_BTC.decodeUnprefixed(text, 0, text.length()));
+        }
+        Cid cid = parseOwned(Multibase.decode(text));
+        if (cid.getVersion() == 0) {
+            throw new IllegalArgumentException("A CIDv0 must not have a multibase prefix: " + text);
+        }
+        return cid;
+    }
+
+    /**
+     * Validates a binary CID and wraps it without copying. The caller gives up the array.
+     */
+    private static Cid parseOwned(byte[] bytes) {
+        if (bytes.length == V0_LENGTH && bytes[0] == 0x12 && bytes[1] == 0x20) {
+            return new Cid(bytes, Multicodec.DAG_PB, 0);
+        }
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty CID");
+        }
+        if (bytes[0] != 1) {
+            throw new IllegalArgumentException("Unsupported CID version: 0x" + Integer.toHexString(bytes[0] & 0xFF));
+        }
+        try {
+            //CIDs only ever hold the specification varint, so are not checked for legacy prefixes.
+            DecodedView content = MulticodecEncoder.decodeView(bytes, 1, bytes.length - 1, CodecSet.all());
+            checkMultihash(bytes, content.getOffset());
+            return new Cid(bytes, content.getCodec(), content.getOffset());
+        } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+            throw new IllegalArgumentException("Unknown content codec in CID", exAmbiguousCodecEncoding);
+        }
+    }
+
+    private static void checkMultihash(byte[] bytes, int offset) {
+        try {
+            DecodedView digest = MulticodecEncoder.decodeView(bytes, offset, bytes.length - offset, CodecSet.all());
+            int length = VarInt.readUnsignedVarInt(bytes, digest.getOffset());
+            int remaining = bytes.length - digest.getOffset() - VarInt.varIntSize(length);
+            if (length != remaining) {
+                throw new IllegalArgumentException("CID multihash digest length " + (length & 0xFFFFFFFFL)
+                        + " does not match the " + remaining + " bytes that follow");
+            }
+        } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+            throw new IllegalArgumentException("Unknown hash function in CID multihash", exAmbiguousCodecEncoding);
+        }
+    }
+
+    /**
+     * Gets the version of the CID.
+     * @return 0 or 1.
+     */
+    public int getVersion() {
+        return (multihashOffset == 0) ? 0 : 1;
+    }
+
+    /**
+     * Gets the codec of the content, which is {@link Multicodec#DAG_PB} for a CIDv0.
+     * @return the codec of the content.
+     */
+    public Multicodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the hash function of the multihash.
+     * @return the hash function, e.g. {@link Multicodec#SHA2_256}.
+     */
+    public Multicodec getHashFunction() {
+        try {
+            return MulticodecEncoder.decodeView(bytes, multihashOffset, bytes.length - multihashOffset, CodecSet.all()).getCodec();
+        } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+            //Checked when the CID was parsed.
+            throw new IllegalStateException(exAmbiguousCodecEncoding);
+        }
+    }
+
+    /**
+     * Gets a copy of the multihash.
+     * @return the multihash.
+     */
+    public byte[] getMultihash() {
+        return Arrays.copyOfRange(bytes, multihashOffset, bytes.length);
+    }
+
+    /**
+     * Gets a copy of the binary form of the CID.
+     * @return the binary CID.
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Gets the length of the binary form of the CID.
+     * @return the length in bytes.
+     */
+    public int getLength() {
+        return bytes.length;
+    }
+
+    /**
+     * Verifies content against the multihash of the CID.
+     * @param content The content.
+     * @return true if the content has the CID's multihash.
+     * @throws IllegalArgumentException if the hash function is not supported by {@link Multihash}.
+     */
+    public boolean verify(byte[] content) {
+        return Multihash.verify(getMultihash(), content);
+    }
+
+    /**
+     * Converts a CIDv0 to the equivalent CIDv1. A CIDv1 is returned as is.
+     * @return the CIDv1.
+     */
+    public Cid toV1() {
+        return (getVersion() == 1) ? this : of(Multicodec.DAG_PB, bytes);
+    }
+
+    /**
+     * Gets the string form of the CID in a base. A CIDv0 has only the base58btc form.
+     * @param base The base.
+     * @return the multibase string.
+     * @throws IllegalArgumentException if the CID is a CIDv0 and the base is not base58btc.
+     */
+    public String toString(Multibase base) {
+        if (getVersion() == 0) {
+            if (base != Multibase.BASE58_BTC) {
+                throw new IllegalArgumentException("A CIDv0 is only written in base58btc");
+            }
+            return base.encode(bytes).substring(1);
+        }
+        return base.encode(bytes);
+    }
+
+    /**
+     * Gets the usual string form of the CID: base32 for a CIDv1 and base58btc for a CIDv0.
+     * @return the CID string.
+     */
+    @Override
+    public String toString() {
+        return toString((getVersion() == 0) ? Multibase.BASE58_BTC : Multibase.BASE32);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Cid)) {
+            return false;
+        }
+        Cid other = (Cid) o;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Compares the binary forms of the CIDs as unsigned bytes, and a CID before any it is a prefix of.
+     */
+    @Override
+    public int compareTo(Cid other) {
+        byte[] a = bytes;
+        byte[] b = other.bytes;
+        int length = Math.min(a.length, b.length);
+        int i = 0;
+        //CIDs share their leading bytes, so compare a word at a time.
+        for (; i + 8 <= length; i += 8) {
+            long x = bigEndian(a, i);
+            long y = bigEndian(b, i);
+            if (x != y) {
+                return Long.compareUnsigned(x, y);
+            }
+        }
+        for (; i < length; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] & 0xFF) - (b[i] & 0xFF);
+            }
+        }
+        return a.length - b.length;
+    }
+
+    private static long bigEndian(byte[] b, int i) {
+        return (b[i] & 0xFFL) << 56
+                | (b[i + 1] & 0xFFL) << 48
+                | (b[i + 2] & 0xFFL) << 40
+                | (b[i + 3] & 0xFFL) << 32
+                | (b[i + 4] & 0xFFL) << 24
+                | (b[i + 5] & 0xFFL) << 16
+                | (b[i + 6] & 0xFFL) << 8
+                | (b[i + 7] & 0xFFL);
+    }
+}
@@ -1,36 +1,174 @@
 package com.identityfoundry.ddi.protocol.common;
 
-import org.apache.commons.lang3.StringUtils;
+import java.util.Arrays;
 
 /**
  * Utility to convert between an array of bytes and a string of hexadecimal representations of bytes.
+ * <p/>
+ * The conversions are table driven. The range and array overloads write into caller supplied arrays, so bulk
+ * conversions need not allocate. {@link #decode(CharSequence)} and its overloads are strict, rejecting any character
+ * that is not a hex digit and an odd number of digits, whereas {@link #hexToBytes(String)} keeps its lenient behaviour.
  */
 public class HexUtils {
 
     private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+    private static final char[] HEX_ARRAY_LOWER = "0123456789abcdef".toCharArray();
 
+    //The value of each ASCII hex digit, in either case, and -1 for every other ASCII character.
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DIGITS[HEX_ARRAY[i]] = (byte) i;
+            DIGITS[HEX_ARRAY_LOWER[i]] = (byte) i;
+        }
+    }
+
+    /**
+     * Converts hex to bytes leniently.
+     * <p/>
+     * A leading '0x' is skipped. A character that is not a hex digit is taken as the value -1, as per
+     * {@link Character#digit(char, int)}, rather than rejected. For strict conversion use {@link #decode(CharSequence)}.
+     * @param s The hex string.
+     * @return The bytes.
+     */
     public static byte[] hexToBytes(String s) {
 
-        //Strip the '0x' characters at the front of the string if they exist.
-        s = StringUtils.remove(s, "0x");
-        s = s.toUpperCase();
+        //Skip the '0x' characters at the front of the string if they exist.
+        int start = hasHexPrefix(s) ? 2 : 0;
 
         int len = s.length();
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
-                    + Character.digit(s.charAt(i + 1), 16));
+        byte[] data = new byte[(len - start) / 2];
+        for (int i = start; i < len; i += 2) {
+            data[(i - start) / 2] = (byte) ((lenientDigit(s.charAt(i)) << 4) + lenientDigit(s.charAt(i + 1)));
         }
         return data;
     }
 
     public static String bytesToHex(byte[] bytes) {
-        char[] hexChars = new char[bytes.length * 2];
-        for (int j = 0; j < bytes.length; j++) {
-            int v = bytes[j] & 0xFF;
-            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
-            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
-        }
+        return encode(bytes, 0, bytes.length, true);
+    }
+
+    /**
+     * Converts a range of bytes to hex.
+     * @param bytes The array holding the bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param upperCase true, for the digits 'A' to 'F', false for 'a' to 'f'.
+     * @return The hex string of 2 digits per byte.
+     */
+    public static String encode(byte[] bytes, int offset, int length, boolean upperCase) {
+        char[] hexChars = new char[length * 2];
+        encode(bytes, offset, length, hexChars, 0, upperCase);
         return new String(hexChars);
     }
+
+    /**
+     * Converts a range of bytes to hex into an existing array.
+     * @param bytes The array holding the bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param dest The array to write 2 digits per byte to.
+     * @param destOffset The offset in dest to write at.
+     * @param upperCase true, for the digits 'A' to 'F', false for 'a' to 'f'.
+     * @return The offset in dest just past the digits.
+     * @throws IndexOutOfBoundsException if either range is out of bounds, in which case nothing is written.
+     */
+    public static int encode(byte[] bytes, int offset, int length, char[] dest, int destOffset, boolean upperCase) {
+        checkRange(bytes.length, offset, length);
+        checkRange(dest.length, destOffset, length * 2);
+        char[] digits = upperCase ? HEX_ARRAY : HEX_ARRAY_LOWER;
+        int j = destOffset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int v = bytes[i] & 0xFF;
+            dest[j++] = digits[v >>> 4];
+            dest[j++] = digits[v & 0x0F];
+        }
+        return j;
+    }
+
+    /**
+     * Converts hex to bytes strictly. A leading '0x' or '0X' is skipped.
+     * @param hex The hex digits, in either case.
+     * @return The bytes.
+     * @throws IllegalArgumentException if there is an odd number of digits or a character is not a hex digit.
+     */
+    public static byte[] decode(CharSequence hex) {
+        int start = hasHexPrefix(hex) ? 2 : 0;
+        byte[] data = new byte[decodedLength(hex.length() - start)];
+        decode(hex, start, hex.length(), data, 0);
+        return data;
+    }
+
+    /**
+     * Converts a range of hex to bytes strictly into an existing array. The range must not include a '0x' prefix.
+     * @param hex The characters holding the hex digits, in either case.
+     * @param start The index of the first digit.
+     * @param end The index just past the last digit.
+     * @param dest The array to write the bytes to.
+     * @param destOffset The offset in dest to write at.
+     * @return The offset in dest just past the bytes.
+     * @throws IllegalArgumentException if there is an odd number of digits or a character is not a hex digit.
+     * @throws IndexOutOfBoundsException if either range is out of bounds, in which case nothing is written.
+     */
+    public static int decode(CharSequence hex, int start, int end, byte[] dest, int destOffset) {
+        checkRange(hex.length(), start, end - start);
+        int length = decodedLength(end - start);
+        checkRange(dest.length, destOffset, length);
+        //Validate before writing, so a bad digit leaves dest untouched.
+        for (int i = start; i < end; i++) {
+            if (digit(hex.charAt(i)) < 0) {
+                throw new IllegalArgumentException("Invalid hex character '" + hex.charAt(i) + "' at index " + i);
+            }
+        }
+        int j = destOffset;
+        for (int i = start; i < end; i += 2) {
+            dest[j++] = (byte) ((DIGITS[hex.charAt(i)] << 4) | DIGITS[hex.charAt(i + 1)]);
+        }
+        return j;
+    }
+
+    /**
+     * Checks a string is a whole number of bytes of hex digits, with an optional leading '0x' or '0X'.
+     * @param hex The string to check.
+     * @return true, if {@link #decode(CharSequence)} would accept the string.
+     */
+    public static boolean isHex(CharSequence hex) {
+        int start = hasHexPrefix(hex) ? 2 : 0;
+        if (((hex.length() - start) & 1) != 0) {
+            return false;
+        }
+        for (int i = start; i < hex.length(); i++) {
+            if (digit(hex.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasHexPrefix(CharSequence s) {
+        return s.length() >= 2 && s.charAt(0) == '0' && (s.charAt(1) == 'x' || s.charAt(1) == 'X');
+    }
+
+    private static int decodedLength(int digits) {
+        if ((digits & 1) != 0) {
+            throw new IllegalArgumentException("Odd number of hex digits: " + digits);
+        }
+        return digits / 2;
+    }
+
+    private static int digit(char c) {
+        return (c < DIGITS.length) ? DIGITS[c] : -1;
+    }
+
+    private static int lenientDigit(char c) {
+        return (c < DIGITS.length) ? DIGITS[c] : Character.digit(c, 16);
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength);
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.identityfoundry.ddi.protocol.common;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -35,6 +36,47 @@ public final class VarInt {
 
     private VarInt() {}
 
+    /**
+     * Maps a signed value to an unsigned one so that values of small magnitude, positive or negative,
+     * have short encodings: 0, -1, 1, -2 map to 0, 1, 2, 3 and so on.
+     *
+     * @param value signed value
+     * @return zig-zag encoded value
+     */
+    public static long zigZagEncode(long value) {
+        // Great trick from http://code.google.com/apis/protocolbuffers/docs/encoding.html#types
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * @see #zigZagEncode(long)
+     */
+    public static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Undoes {@link #zigZagEncode(long)}.
+     *
+     * @param raw zig-zag encoded value
+     * @return signed value
+     */
+    public static long zigZagDecode(long raw) {
+        long temp = (((raw << 63) >> 63) ^ raw) >> 1;
+        // This extra step lets us deal with the largest signed values by treating
+        // negative results from read unsigned methods as like unsigned values
+        // Must re-flip the top bit if the original read value had it set.
+        return temp ^ (raw & (1L << 63));
+    }
+
+    /**
+     * @see #zigZagDecode(long)
+     */
+    public static int zigZagDecode(int raw) {
+        int temp = (((raw << 31) >> 31) ^ raw) >> 1;
+        return temp ^ (raw & (1 << 31));
+    }
+
     /**
      * Encodes a value using the variable-length encoding from
      * <a href="http://code.google.com/apis/protocolbuffers/docs/encoding.html">
@@ -47,8 +89,7 @@ public final class VarInt {
      * @throws IOException if {@link DataOutput} throws {@link IOException}
      */
     public static void writeSignedVarLong(long value, DataOutput out) throws IOException {
-        // Great trick from http://code.google.com/apis/protocolbuffers/docs/encoding.html#types
-        writeUnsignedVarLong((value << 1) ^ (value >> 63), out);
+        writeUnsignedVarLong(zigZagEncode(value), out);
     }
 
     /**
@@ -74,8 +115,7 @@ public final class VarInt {
      * @see #writeSignedVarLong(long, DataOutput)
      */
     public static void writeSignedVarInt(int value, DataOutput out) throws IOException {
-        // Great trick from http://code.google.com/apis/protocolbuffers/docs/encoding.html#types
-        writeUnsignedVarInt((value << 1) ^ (value >> 31), out);
+        writeUnsignedVarInt(zigZagEncode(value), out);
     }
 
     /**
@@ -90,8 +130,7 @@ public final class VarInt {
     }
 
     public static byte[] writeSignedVarInt(int value) {
-        // Great trick from http://code.google.com/apis/protocolbuffers/docs/encoding.html#types
-        return writeUnsignedVarInt((value << 1) ^ (value >> 31));
+        return writeUnsignedVarInt(zigZagEncode(value));
     }
 
     /**
@@ -125,12 +164,7 @@ public final class VarInt {
      */
     public static long readSignedVarLong(DataInput in) throws IOException {
         long raw = readUnsignedVarLong(in);
-        // This undoes the trick in writeSignedVarLong()
-        long temp = (((raw << 63) >> 63) ^ raw) >> 1;
-        // This extra step lets us deal with the largest signed values by treating
-        // negative results from read unsigned methods as like unsigned values
-        // Must re-flip the top bit if the original read value had it set.
-        return temp ^ (raw & (1L << 63));
+        return zigZagDecode(raw);
     }
 
     /**
@@ -163,12 +197,7 @@ public final class VarInt {
      */
     public static int readSignedVarInt(DataInput in) throws IOException {
         int raw = readUnsignedVarInt(in);
-        // This undoes the trick in writeSignedVarInt()
-        int temp = (((raw << 31) >> 31) ^ raw) >> 1;
-        // This extra step lets us deal with the largest signed values by treating
-        // negative results from read unsigned methods as like unsigned values.
-        // Must re-flip the top bit if the original read value had it set.
-        return temp ^ (raw & (1 << 31));
+        return zigZagDecode(raw);
     }
 
     /**
@@ -197,12 +226,7 @@ public final class VarInt {
 
     public static int readSignedVarInt(byte[] bytes) {
         int raw = readUnsignedVarInt(bytes);
-        // This undoes the trick in writeSignedVarInt()
-        int temp = (((raw << 31) >> 31) ^ raw) >> 1;
-        // This extra step lets us deal with the largest signed values by treating
-        // negative results from read unsigned methods as like unsigned values.
-        // Must re-flip the top bit if the original read value had it set.
-        return temp ^ (raw & (1 << 31));
+        return zigZagDecode(raw);
     }
 
     public static int readUnsignedVarInt(byte b) {
@@ -227,4 +251,293 @@ public final class VarInt {
         return value | (rb << i);
     }
 
-}
\ No newline at end of file
+    /**
+     * Encodes a value at the position of a buffer, which may be a direct buffer.
+     *
+     * @param value value to encode
+     * @param out   to write bytes to, its position is advanced past the value
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     * @see #writeSignedVarLong(long, DataOutput)
+     */
+    public static void writeSignedVarLong(long value, ByteBuffer out) {
+        writeUnsignedVarLong(zigZagEncode(value), out);
+    }
+
+    /**
+     * Encodes a value at the position of a buffer, which may be a direct buffer.
+     *
+     * @param value value to encode
+     * @param out   to write bytes to, its position is advanced past the value
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     * @see #writeUnsignedVarLong(long, DataOutput)
+     */
+    public static void writeUnsignedVarLong(long value, ByteBuffer out) {
+        while ((value & 0xFFFFFFFFFFFFFF80L) != 0L) {
+            out.put((byte) (((int) value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) ((int) value & 0x7F));
+    }
+
+    /**
+     * @see #writeSignedVarLong(long, ByteBuffer)
+     */
+    public static void writeSignedVarInt(int value, ByteBuffer out) {
+        writeUnsignedVarInt(zigZagEncode(value), out);
+    }
+
+    /**
+     * @see #writeUnsignedVarLong(long, ByteBuffer)
+     */
+    public static void writeUnsignedVarInt(int value, ByteBuffer out) {
+        while ((value & 0xFFFFFF80) != 0L) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) (value & 0x7F));
+    }
+
+    /**
+     * @param in to read bytes from, its position is advanced past the value
+     * @return decode value
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the value does
+     * @throws IllegalArgumentException          if variable-length value does not terminate
+     *                                           after 9 bytes have been read
+     * @see #readSignedVarLong(DataInput)
+     */
+    public static long readSignedVarLong(ByteBuffer in) {
+        long raw = readUnsignedVarLong(in);
+        return zigZagDecode(raw);
+    }
+
+    /**
+     * Only the minimal (canonical) encoding of a value is accepted, as by {@link #readUnsignedVarLong(byte[], int, int)}.
+     *
+     * @param in to read bytes from, its position is advanced past the value
+     * @return decode value
+     * @throws java.nio.BufferUnderflowException if the buffer ends before the value does
+     * @throws IllegalArgumentException          if variable-length value does not terminate
+     *                                           after 9 bytes have been read or is not minimally encoded
+     * @see #readUnsignedVarLong(DataInput)
+     */
+    public static long readUnsignedVarLong(ByteBuffer in) {
+        long value = 0L;
+        int i = 0;
+        long b;
+        while (((b = in.get()) & 0x80L) != 0) {
+            value |= (b & 0x7F) << i;
+            i += 7;
+            if (i > 63) {
+                throw new IllegalArgumentException("Variable length quantity is too long");
+            }
+        }
+        if (b == 0 && i > 0) {
+            throw new IllegalArgumentException("Variable length quantity is not minimally encoded");
+        }
+        return value | (b << i);
+    }
+
+    /**
+     * @see #readSignedVarLong(ByteBuffer)
+     */
+    public static int readSignedVarInt(ByteBuffer in) {
+        int raw = readUnsignedVarInt(in);
+        return zigZagDecode(raw);
+    }
+
+    /**
+     * @see #readUnsignedVarLong(ByteBuffer)
+     */
+    public static int readUnsignedVarInt(ByteBuffer in) {
+        int value = 0;
+        int i = 0;
+        int b;
+        while (((b = in.get()) & 0x80) != 0) {
+            value |= (b & 0x7F) << i;
+            i += 7;
+            if (i > 35) {
+                throw new IllegalArgumentException("Variable length quantity is too long");
+            }
+        }
+        if (b == 0 && i > 0) {
+            throw new IllegalArgumentException("Variable length quantity is not minimally encoded");
+        }
+        return value | (b << i);
+    }
+
+    /**
+     * Calculates the number of bytes in the encoding of an unsigned value.
+     *
+     * @param value value to encode, treated as unsigned
+     * @return the number of bytes, from 1 to 10
+     */
+    public static int varIntSize(long value) {
+        // One byte per started group of 7 bits, with a zero value still taking one byte
+        return ((63 - Long.numberOfLeadingZeros(value | 1)) / 7) + 1;
+    }
+
+    /**
+     * Calculates the number of bytes in the encoding of an unsigned value.
+     *
+     * @param value value to encode, treated as unsigned
+     * @return the number of bytes, from 1 to 5
+     */
+    public static int varIntSize(int value) {
+        return ((31 - Integer.numberOfLeadingZeros(value | 1)) / 7) + 1;
+    }
+
+    /**
+     * Encodes a value into an array without allocating.
+     *
+     * @param value value to encode, treated as unsigned
+     * @param buf   to write bytes to
+     * @param off   the offset in buf to write at
+     * @return the offset in buf just past the value
+     * @throws IndexOutOfBoundsException if the value does not fit in buf at off, in which case nothing is written
+     * @see #writeUnsignedVarLong(long, DataOutput)
+     */
+    public static int writeUnsignedVarLong(long value, byte[] buf, int off) {
+        int size = varIntSize(value);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException("Variable length quantity of " + size + " bytes does not fit at offset " + off + " of " + buf.length);
+        }
+        while ((value & 0xFFFFFFFFFFFFFF80L) != 0L) {
+            buf[off++] = (byte) (((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[off++] = (byte) ((int) value & 0x7F);
+        return off;
+    }
+
+    /**
+     * @see #writeUnsignedVarLong(long, byte[], int)
+     */
+    public static int writeUnsignedVarInt(int value, byte[] buf, int off) {
+        int size = varIntSize(value);
+        if (off < 0 || off > buf.length - size) {
+            throw new IndexOutOfBoundsException("Variable length quantity of " + size + " bytes does not fit at offset " + off + " of " + buf.length);
+        }
+        while ((value & 0xFFFFFF80) != 0L) {
+            buf[off++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[off++] = (byte) (value & 0x7F);
+        return off;
+    }
+
+    /**
+     * Decodes a value from an array without allocating.
+     * <p/>
+     * Only the minimal (canonical) encoding of a value is accepted, so the number of bytes consumed is always
+     * {@link #varIntSize(long)} of the result.
+     *
+     * @param buf to read bytes from
+     * @param off the offset in buf of the value
+     * @return decode value
+     * @throws IndexOutOfBoundsException if off is not within buf
+     * @throws IllegalArgumentException  if the value is truncated by the end of buf, is longer than 10 bytes,
+     *                                   overflows 64 bits or is not minimally encoded
+     * @see #readUnsignedVarLong(DataInput)
+     */
+    public static long readUnsignedVarLong(byte[] buf, int off) {
+        return readUnsignedVarLong(buf, off, buf.length);
+    }
+
+    /**
+     * Decodes a value from a range of an array without allocating.
+     *
+     * @param buf   to read bytes from
+     * @param off   the offset in buf of the value
+     * @param limit the offset in buf the value must end before
+     * @return decode value
+     * @throws IndexOutOfBoundsException if off is not within buf
+     * @throws IllegalArgumentException  if the value is truncated by limit, is longer than 10 bytes,
+     *                                   overflows 64 bits or is not minimally encoded
+     * @see #readUnsignedVarLong(byte[], int)
+     */
+    public static long readUnsignedVarLong(byte[] buf, int off, int limit) {
+        if (off < 0 || off >= limit || limit > buf.length) {
+            throw new IndexOutOfBoundsException("Offset " + off + " out of bounds for limit " + limit + " of " + buf.length);
+        }
+        int b = buf[off];
+        if (b >= 0) {
+            // Single byte fast path, which is the common case for codec codes and lengths
+            return b;
+        }
+        long value = b & 0x7F;
+        int i = off + 1;
+        int shift = 7;
+        do {
+            if (i == limit) {
+                throw new IllegalArgumentException("Variable length quantity is truncated");
+            }
+            if (shift > 63) {
+                throw new IllegalArgumentException("Variable length quantity is too long");
+            }
+            b = buf[i++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        if (b == 0) {
+            throw new IllegalArgumentException("Variable length quantity is not minimally encoded");
+        }
+        if (shift == 70 && b > 1) {
+            throw new IllegalArgumentException("Variable length quantity overflows 64 bits");
+        }
+        return value;
+    }
+
+    /**
+     * @see #readUnsignedVarLong(byte[], int)
+     */
+    public static int readUnsignedVarInt(byte[] buf, int off) {
+        return readUnsignedVarInt(buf, off, buf.length);
+    }
+
+    /**
+     * Decodes a value of at most 32 bits from a range of an array without allocating.
+     * <p/>
+     * Only the minimal (canonical) encoding of a value is accepted, so the number of bytes consumed is always
+     * {@link #varIntSize(int)} of the result.
+     *
+     * @param buf   to read bytes from
+     * @param off   the offset in buf of the value
+     * @param limit the offset in buf the value must end before
+     * @return decode value, which is negative for values of 2^31 and above
+     * @throws IndexOutOfBoundsException if off is not within buf
+     * @throws IllegalArgumentException  if the value is truncated by limit, is longer than 5 bytes,
+     *                                   overflows 32 bits or is not minimally encoded
+     * @see #readUnsignedVarLong(byte[], int, int)
+     */
+    public static int readUnsignedVarInt(byte[] buf, int off, int limit) {
+        if (off < 0 || off >= limit || limit > buf.length) {
+            throw new IndexOutOfBoundsException("Offset " + off + " out of bounds for limit " + limit + " of " + buf.length);
+        }
+        int b = buf[off];
+        if (b >= 0) {
+            return b;
+        }
+        int value = b & 0x7F;
+        int i = off + 1;
+        int shift = 7;
+        do {
+            if (i == limit) {
+                throw new IllegalArgumentException("Variable length quantity is truncated");
+            }
+            if (shift > 28) {
+                throw new IllegalArgumentException("Variable length quantity is too long");
+            }
+            b = buf[i++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        if (b == 0) {
+            throw new IllegalArgumentException("Variable length quantity is not minimally encoded");
+        }
+        if (shift == 35 && b > 0x0F) {
+            throw new IllegalArgumentException("Variable length quantity overflows 32 bits");
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,417 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import java.util.function.IntSupplier;
+
+/**
+ * <p>Encodes whole columns of values as packed unsigned varints, one after the other with no separators,
+ * and decodes them back.</p>
+ * <p>The encoding of each value is the same as {@link VarInt#writeUnsignedVarLong(long, byte[], int)}, after an
+ * optional {@link Transform}. Values of one or two bytes, the common case for offsets and sizes, are encoded and
+ * decoded inline without a call per value; longer values fall back to {@link VarInt}.</p>
+ * <p>Runs of single byte values are found eight bytes at a time and copied out together. On Java 17 and later, with
+ * the <code>jdk.incubator.vector</code> module, blocks of one and two byte values are decoded with the vector API,
+ * refer to: {@link #isVectorized()}.</p>
+ * <p>The number of values is not written, so a column is decoded either with a known count or by counting the
+ * values in a byte range with {@link #count(byte[], int, int)}.</p>
+ */
+public final class VarIntArrays {
+
+    /**
+     * How values are transformed before they are varint encoded.
+     */
+    public enum Transform {
+        /**
+         * Values are encoded as they are. Negative values take the longest encoding.
+         */
+        NONE(false, false),
+        /**
+         * Values are zig-zag encoded, as per {@link VarInt#zigZagEncode(long)}, so small negative values are short.
+         */
+        ZIGZAG(false, true),
+        /**
+         * The difference from the previous value is encoded, the first value being its difference from zero.
+         * Suits ascending columns such as sorted offsets.
+         */
+        DELTA(true, false),
+        /**
+         * The difference from the previous value is zig-zag encoded. Suits columns that mostly ascend.
+         */
+        DELTA_ZIGZAG(true, true);
+
+        final boolean delta;
+        final boolean zigZag;
+
+        Transform(boolean delta, boolean zigZag) {
+            this.delta = delta;
+            this.zigZag = zigZag;
+        }
+    }
+
+    private static final int MAX_LONG_BYTES = 10;
+    private static final int MAX_INT_BYTES = 5;
+
+    private VarIntArrays() {}
+
+    /**
+     * Calculates the length of the packed encoding of a range of values.
+     * @param values The values.
+     * @param offset The offset of the first value.
+     * @param length The number of values.
+     * @param transform How the values are transformed.
+     * @return The length in bytes.
+     */
+    public static int encodedLength(long[] values, int offset, int length, Transform transform) {
+        checkRange(values.length, offset, length);
+        int size = 0;
+        long previous = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            long value = values[i];
+            size += VarInt.varIntSize(raw(value, previous, transform));
+            previous = value;
+        }
+        return size;
+    }
+
+    /**
+     * @see #encodedLength(long[], int, int, Transform)
+     */
+    public static int encodedLength(int[] values, int offset, int length, Transform transform) {
+        checkRange(values.length, offset, length);
+        int size = 0;
+        int previous = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = values[i];
+            size += VarInt.varIntSize(raw(value, previous, transform));
+            previous = value;
+        }
+        return size;
+    }
+
+    /**
+     * Encodes all the values into a new array.
+     * @param values The values.
+     * @param transform How the values are transformed.
+     * @return The packed encoding.
+     */
+    public static byte[] encode(long[] values, Transform transform) {
+        byte[] dest = new byte[encodedLength(values, 0, values.length, transform)];
+        encode(values, 0, values.length, transform, dest, 0);
+        return dest;
+    }
+
+    /**
+     * @see #encode(long[], Transform)
+     */
+    public static byte[] encode(int[] values, Transform transform) {
+        byte[] dest = new byte[encodedLength(values, 0, values.length, transform)];
+        encode(values, 0, values.length, transform, dest, 0);
+        return dest;
+    }
+
+    /**
+     * Encodes a range of values into an existing array.
+     * @param values The values.
+     * @param offset The offset of the first value.
+     * @param length The number of values.
+     * @param transform How the values are transformed.
+     * @param dest The array to write the packed encoding to.
+     * @param destOffset The offset in dest to write at.
+     * @return The offset in dest just past the encoding.
+     * @throws IndexOutOfBoundsException if the encoding does not fit in dest, in which case nothing is written.
+     */
+    public static int encode(long[] values, int offset, int length, Transform transform, byte[] dest, int destOffset) {
+        checkRange(values.length, offset, length);
+        checkDest(dest, destOffset, (long) length * MAX_LONG_BYTES, () -> encodedLength(values, offset, length, transform));
+        boolean delta = transform.delta;
+        boolean zigZag = transform.zigZag;
+        int pos = destOffset;
+        long previous = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            long value = values[i];
+            long raw = delta ? value - previous : value;
+            if (zigZag) {
+                raw = VarInt.zigZagEncode(raw);
+            }
+            previous = value;
+            if ((raw & 0xFFFFFFFFFFFFFF80L) == 0L) {
+                dest[pos++] = (byte) raw;
+            } else if ((raw & 0xFFFFFFFFFFFFC000L) == 0L) {
+                dest[pos++] = (byte) (raw | 0x80);
+                dest[pos++] = (byte) (raw >>> 7);
+            } else {
+                pos = VarInt.writeUnsignedVarLong(raw, dest, pos);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @see #encode(long[], int, int, Transform, byte[], int)
+     */
+    public static int encode(int[] values, int offset, int length, Transform transform, byte[] dest, int destOffset) {
+        checkRange(values.length, offset, length);
+        checkDest(dest, destOffset, (long) length * MAX_INT_BYTES, () -> encodedLength(values, offset, length, transform));
+        boolean delta = transform.delta;
+        boolean zigZag = transform.zigZag;
+        int pos = destOffset;
+        int previous = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = values[i];
+            int raw = delta ? value - previous : value;
+            if (zigZag) {
+                raw = VarInt.zigZagEncode(raw);
+            }
+            previous = value;
+            if ((raw & 0xFFFFFF80) == 0) {
+                dest[pos++] = (byte) raw;
+            } else if ((raw & 0xFFFFC000) == 0) {
+                dest[pos++] = (byte) (raw | 0x80);
+                dest[pos++] = (byte) (raw >>> 7);
+            } else {
+                pos = VarInt.writeUnsignedVarInt(raw, dest, pos);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Counts the values packed in a byte range, which is the number of bytes without the continuation bit.
+     * @param src The array holding the packed encoding.
+     * @param offset The offset of the encoding.
+     * @param length The length of the encoding.
+     * @return The number of values.
+     */
+    public static int count(byte[] src, int offset, int length) {
+        checkRange(src.length, offset, length);
+        int count = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            count += ~src[i] >>> 31;
+        }
+        return count;
+    }
+
+    /**
+     * Decodes all the values packed in an array.
+     * @param src The packed encoding.
+     * @param transform How the values were transformed.
+     * @return The values.
+     * @throws IllegalArgumentException if the encoding is malformed.
+     */
+    public static long[] decodeLongs(byte[] src, Transform transform) {
+        long[] values = new long[count(src, 0, src.length)];
+        int end = decode(src, 0, src.length, values, 0, values.length, transform);
+        if (end != src.length) {
+            throw new IllegalArgumentException("Variable length quantity is truncated");
+        }
+        return values;
+    }
+
+    /**
+     * @see #decodeLongs(byte[], Transform)
+     */
+    public static int[] decodeInts(byte[] src, Transform transform) {
+        int[] values = new int[count(src, 0, src.length)];
+        int end = decode(src, 0, src.length, values, 0, values.length, transform);
+        if (end != src.length) {
+            throw new IllegalArgumentException("Variable length quantity is truncated");
+        }
+        return values;
+    }
+
+    /**
+     * Decodes a number of values from a range of an array into an existing array.
+     * @param src The array holding the packed encoding.
+     * @param srcOffset The offset of the encoding.
+     * @param srcLength The length of the range the encoding must end within.
+     * @param dest The array to write the values to.
+     * @param destOffset The offset in dest of the first value.
+     * @param count The number of values to decode.
+     * @param transform How the values were transformed.
+     * @return The offset in src just past the last decoded value.
+     * @throws IndexOutOfBoundsException if either range is out of bounds.
+     * @throws IllegalArgumentException if the encoding is malformed or ends before count values.
+     */
+    public static int decode(byte[] src, int srcOffset, int srcLength, long[] dest, int destOffset, int count, Transform transform) {
+        checkRange(src.length, srcOffset, srcLength);
+        checkRange(dest.length, destOffset, count);
+        boolean delta = transform.delta;
+        boolean zigZag = transform.zigZag;
+        int pos = srcOffset;
+        int limit = srcOffset + srcLength;
+        long previous = 0;
+        boolean vectorized = VarIntBulk.isVectorized();
+        for (int i = destOffset, end = destOffset + count; i < end; i++) {
+            if (pos >= limit) {
+                throw new IllegalArgumentException("Variable length quantity is truncated");
+            }
+            if (vectorized) {
+                long next = VarIntBulk.decodeSmall(src, pos, limit, dest, i, end);
+                int decodedEnd = (int) next;
+                if (decodedEnd > i) {
+                    previous = transform(dest, i, decodedEnd, previous, delta, zigZag);
+                    pos = (int) (next >>> 32);
+                    //The loop moves on to the next value.
+                    i = decodedEnd - 1;
+                    continue;
+                }
+            }
+            long raw;
+            int b0 = src[pos];
+            int b1;
+            if (b0 >= 0) {
+                if (pos + 1 < limit && src[pos + 1] >= 0) {
+                    //Copy out the whole run of single byte values.
+                    int run = VarIntBulk.singleByteRun(src, pos, Math.min(limit - pos, end - i));
+                    for (int last = i + run - 1; i < last; i++) {
+                        raw = src[pos++];
+                        if (zigZag) {
+                            raw = VarInt.zigZagDecode(raw);
+                        }
+                        previous = delta ? previous + raw : raw;
+                        dest[i] = previous;
+                    }
+                }
+                raw = src[pos++];
+            } else if (pos + 1 < limit && (b1 = src[pos + 1]) > 0) {
+                //A zero second byte is not minimal, so is left to VarInt to reject.
+                raw = (b0 & 0x7F) | (b1 << 7);
+                pos += 2;
+            } else {
+                raw = VarInt.readUnsignedVarLong(src, pos, limit);
+                pos += VarInt.varIntSize(raw);
+            }
+            if (zigZag) {
+                raw = VarInt.zigZagDecode(raw);
+            }
+            previous = delta ? previous + raw : raw;
+            dest[i] = previous;
+        }
+        return pos;
+    }
+
+    /**
+     * @see #decode(byte[], int, int, long[], int, int, Transform)
+     */
+    public static int decode(byte[] src, int srcOffset, int srcLength, int[] dest, int destOffset, int count, Transform transform) {
+        checkRange(src.length, srcOffset, srcLength);
+        checkRange(dest.length, destOffset, count);
+        boolean delta = transform.delta;
+        boolean zigZag = transform.zigZag;
+        int pos = srcOffset;
+        int limit = srcOffset + srcLength;
+        int previous = 0;
+        boolean vectorized = VarIntBulk.isVectorized();
+        for (int i = destOffset, end = destOffset + count; i < end; i++) {
+            if (pos >= limit) {
+                throw new IllegalArgumentException("Variable length quantity is truncated");
+            }
+            if (vectorized) {
+                long next = VarIntBulk.decodeSmall(src, pos, limit, dest, i, end);
+                int decodedEnd = (int) next;
+                if (decodedEnd > i) {
+                    previous = transform(dest, i, decodedEnd, previous, delta, zigZag);
+                    pos = (int) (next >>> 32);
+                    //The loop moves on to the next value.
+                    i = decodedEnd - 1;
+                    continue;
+                }
+            }
+            int raw;
+            int b0 = src[pos];
+            int b1;
+            if (b0 >= 0) {
+                if (pos + 1 < limit && src[pos + 1] >= 0) {
+                    //Copy out the whole run of single byte values.
+                    int run = VarIntBulk.singleByteRun(src, pos, Math.min(limit - pos, end - i));
+                    for (int last = i + run - 1; i < last; i++) {
+                        raw = src[pos++];
+                        if (zigZag) {
+                            raw = VarInt.zigZagDecode(raw);
+                        }
+                        previous = delta ? previous + raw : raw;
+                        dest[i] = previous;
+                    }
+                }
+                raw = src[pos++];
+            } else if (pos + 1 < limit && (b1 = src[pos + 1]) > 0) {
+                raw = (b0 & 0x7F) | (b1 << 7);
+                pos += 2;
+            } else {
+                raw = VarInt.readUnsignedVarInt(src, pos, limit);
+                pos += VarInt.varIntSize(raw);
+            }
+            if (zigZag) {
+                raw = VarInt.zigZagDecode(raw);
+            }
+            previous = delta ? previous + raw : raw;
+            dest[i] = previous;
+        }
+        return pos;
+    }
+
+    /**
+     * @return true, if blocks of one and two byte values are decoded with the vector API, which needs Java 17 or later
+     * and the <code>jdk.incubator.vector</code> module, and can be turned off with the system property
+     * <code>multicodec.varint.vector=false</code>.
+     */
+    public static boolean isVectorized() {
+        return VarIntBulk.isVectorized();
+    }
+
+    /**
+     * Applies the transform to raw values decoded in bulk.
+     * @return the last value.
+     */
+    private static long transform(long[] values, int from, int to, long previous, boolean delta, boolean zigZag) {
+        if (!delta && !zigZag) {
+            return values[to - 1];
+        }
+        for (int i = from; i < to; i++) {
+            long raw = zigZag ? VarInt.zigZagDecode(values[i]) : values[i];
+            previous = delta ? previous + raw : raw;
+            values[i] = previous;
+        }
+        return previous;
+    }
+
+    private static int transform(int[] values, int from, int to, int previous, boolean delta, boolean zigZag) {
+        if (!delta && !zigZag) {
+            return values[to - 1];
+        }
+        for (int i = from; i < to; i++) {
+            int raw = zigZag ? VarInt.zigZagDecode(values[i]) : values[i];
+            previous = delta ? previous + raw : raw;
+            values[i] = previous;
+        }
+        return previous;
+    }
+
+    private static long raw(long value, long previous, Transform transform) {
+        long raw = transform.delta ? value - previous : value;
+        return transform.zigZag ? VarInt.zigZagEncode(raw) : raw;
+    }
+
+    private static int raw(int value, int previous, Transform transform) {
+        int raw = transform.delta ? value - previous : value;
+        return transform.zigZag ? VarInt.zigZagEncode(raw) : raw;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength);
+        }
+    }
+
+    private static void checkDest(byte[] dest, int destOffset, long worstCase, IntSupplier exactLength) {
+        if (destOffset < 0 || destOffset > dest.length) {
+            throw new IndexOutOfBoundsException("Offset " + destOffset + " out of bounds for length " + dest.length);
+        }
+        //Only size the encoding exactly when the worst case might not fit.
+        if (worstCase > dest.length - destOffset) {
+            int length = exactLength.getAsInt();
+            if (length > dest.length - destOffset) {
+                throw new IndexOutOfBoundsException("Encoding of " + length + " bytes does not fit at offset " + destOffset + " of " + dest.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.identityfoundry.ddi.protocol.common;
+
+/**
+ * <p>Bulk steps of {@link VarIntArrays} decoding: scanning packed varints for runs of single byte values, which are
+ * then copied out without decoding each value, and decoding blocks of one and two byte values at once.</p>
+ * <p>This is the Java 8 implementation, which tests eight continuation bits at a time and has no block decoder. The
+ * multi-release jar replaces this class on Java 17 and later with one that decodes blocks with the vector API.</p>
+ */
+final class VarIntBulk {
+
+    private static final long CONTINUATION_BITS = 0x8080808080808080L;
+
+    private VarIntBulk() {}
+
+    /**
+     * @return true, if blocks are decoded with the vector API.
+     */
+    static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Finds the length of the run of bytes without the continuation bit.
+     * @param src The packed varints.
+     * @param off The offset to scan from.
+     * @param max The most bytes to scan.
+     * @return The number of single byte values at off, up to max.
+     */
+    static int singleByteRun(byte[] src, int off, int max) {
+        int n = 0;
+        while (n <= max - 8 && (VarIntSwar.loadLittleEndian(src, off + n) & CONTINUATION_BITS) == 0) {
+            n += 8;
+        }
+        while (n < max && src[off + n] >= 0) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Decodes the one and two byte values at pos into dest from index i, without transforming them, stopping at a
+     * longer or malformed value or near the end of either range. Only decodes when {@link #isVectorized()}.
+     * @return the offset in src and the index in dest after the decoded values, as {@link #position(int, int)}.
+     */
+    static long decodeSmall(byte[] src, int pos, int limit, long[] dest, int i, int end) {
+        return position(pos, i);
+    }
+
+    /**
+     * @see #decodeSmall(byte[], int, int, long[], int, int)
+     */
+    static long decodeSmall(byte[] src, int pos, int limit, int[] dest, int i, int end) {
+        return position(pos, i);
+    }
+
+    /**
+     * Packs an offset in the source and an index in the destination into one value.
+     */
+    static long position(int pos, int i) {
+        return ((long) pos << 32) | (i & 0xFFFFFFFFL);
+    }
+}
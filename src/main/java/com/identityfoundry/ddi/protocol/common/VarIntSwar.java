@@ -0,0 +1,145 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Decodes unsigned varints a word at a time (SIMD within a register) rather than a byte at a time.</p>
+ * <p>Eight bytes are loaded as one little endian word. The end of the varint is the lowest byte with its
+ * continuation bit clear, found with {@link Long#numberOfTrailingZeros(long)} on the inverted continuation bits,
+ * and the 7-bit groups are then packed together with a fixed sequence of masks and shifts. There is no branch per
+ * byte, so the cost does not depend on how the lengths of consecutive values vary.</p>
+ * <p>Values of more than 8 bytes, values within 8 bytes of the end of the input and malformed values are left to
+ * the scalar methods of {@link VarInt}, so the results and exceptions are always the same as
+ * {@link VarInt#readUnsignedVarLong(byte[], int, int)} and {@link VarInt#readUnsignedVarInt(byte[], int, int)}.
+ * As with those methods the number of bytes consumed is {@link VarInt#varIntSize(long)} of the value.</p>
+ */
+public final class VarIntSwar {
+
+    private static final long CONTINUATION_BITS = 0x8080808080808080L;
+    private static final long PAYLOAD_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private VarIntSwar() {}
+
+    /**
+     * Decodes a value from a range of an array.
+     *
+     * @param buf   to read bytes from
+     * @param off   the offset in buf of the value
+     * @param limit the offset in buf the value must end before
+     * @return decode value
+     * @see VarInt#readUnsignedVarLong(byte[], int, int)
+     */
+    public static long readUnsignedVarLong(byte[] buf, int off, int limit) {
+        if (off < 0 || limit > buf.length || limit - off < 8) {
+            return VarInt.readUnsignedVarLong(buf, off, limit);
+        }
+        long value = decodeWord(loadLittleEndian(buf, off));
+        return (value >= 0) ? value : VarInt.readUnsignedVarLong(buf, off, limit);
+    }
+
+    /**
+     * @see #readUnsignedVarLong(byte[], int, int)
+     */
+    public static long readUnsignedVarLong(byte[] buf, int off) {
+        return readUnsignedVarLong(buf, off, buf.length);
+    }
+
+    /**
+     * Decodes a value of at most 32 bits from a range of an array.
+     *
+     * @param buf   to read bytes from
+     * @param off   the offset in buf of the value
+     * @param limit the offset in buf the value must end before
+     * @return decode value, which is negative for values of 2^31 and above
+     * @see VarInt#readUnsignedVarInt(byte[], int, int)
+     */
+    public static int readUnsignedVarInt(byte[] buf, int off, int limit) {
+        if (off < 0 || limit > buf.length || limit - off < 8) {
+            return VarInt.readUnsignedVarInt(buf, off, limit);
+        }
+        long value = decodeWord(loadLittleEndian(buf, off));
+        return (value >>> 32 == 0) ? (int) value : VarInt.readUnsignedVarInt(buf, off, limit);
+    }
+
+    /**
+     * @see #readUnsignedVarInt(byte[], int, int)
+     */
+    public static int readUnsignedVarInt(byte[] buf, int off) {
+        return readUnsignedVarInt(buf, off, buf.length);
+    }
+
+    /**
+     * Decodes a value at an index of a buffer, which may be a direct buffer. The position of the buffer is not changed.
+     *
+     * @param buf   to read bytes from
+     * @param index the index in buf of the value
+     * @return decode value
+     * @throws IndexOutOfBoundsException if index is not within the limit of buf
+     * @throws IllegalArgumentException  if the value is truncated by the limit of buf, is longer than 10 bytes,
+     *                                   overflows 64 bits or is not minimally encoded
+     */
+    public static long readUnsignedVarLong(ByteBuffer buf, int index) {
+        if (index >= 0 && buf.limit() - index >= 8) {
+            long word = buf.getLong(index);
+            if (buf.order() == ByteOrder.BIG_ENDIAN) {
+                word = Long.reverseBytes(word);
+            }
+            long value = decodeWord(word);
+            if (value >= 0) {
+                return value;
+            }
+        }
+        return readScalar(buf, index);
+    }
+
+    /**
+     * Decodes the varint in the low bytes of a little endian word.
+     * @return the value, or -1 if the varint is not wholly within the word or is not minimally encoded.
+     */
+    private static long decodeWord(long word) {
+        long stops = ~word & CONTINUATION_BITS;
+        if (stops == 0) {
+            return -1;
+        }
+        //Keep the bytes up to and including the first byte without the continuation bit.
+        int bits = Long.numberOfTrailingZeros(stops) + 1;
+        long x = word & PAYLOAD_BITS & (stops ^ (stops - 1));
+        //A multibyte varint ending in a zero byte has a shorter encoding.
+        if (bits > 8 && (x >>> (bits - 8)) == 0) {
+            return -1;
+        }
+        //Pack the 7-bit groups: pairs into 14 bits, then 28 bits, then 56 bits.
+        x = (x & 0x007F007F007F007FL) | ((x & 0x7F007F007F007F00L) >>> 1);
+        x = (x & 0x00003FFF00003FFFL) | ((x & 0x3FFF00003FFF0000L) >>> 2);
+        x = (x & 0x000000000FFFFFFFL) | ((x & 0x0FFFFFFF00000000L) >>> 4);
+        return x;
+    }
+
+    static long loadLittleEndian(byte[] buf, int off) {
+        return (buf[off] & 0xFFL)
+                | (buf[off + 1] & 0xFFL) << 8
+                | (buf[off + 2] & 0xFFL) << 16
+                | (buf[off + 3] & 0xFFL) << 24
+                | (buf[off + 4] & 0xFFL) << 32
+                | (buf[off + 5] & 0xFFL) << 40
+                | (buf[off + 6] & 0xFFL) << 48
+                | (buf[off + 7] & 0xFFL) << 56;
+    }
+
+    private static long readScalar(ByteBuffer buf, int index) {
+        if (index < 0 || index >= buf.limit()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for limit " + buf.limit());
+        }
+        if (buf.hasArray()) {
+            return VarInt.readUnsignedVarLong(buf.array(), buf.arrayOffset() + index, buf.arrayOffset() + buf.limit());
+        }
+        //Only values near the limit, long values and malformed values get here, so copying them out is cheap enough.
+        int length = Math.min(10, buf.limit() - index);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buf.get(index + i);
+        }
+        return VarInt.readUnsignedVarLong(bytes, 0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.identityfoundry.ddi.protocol.didkey;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+import java.util.Arrays;
+
+/**
+ * <p>A resolved <code>did:key</code>: the public key and its codec.</p>
+ * <p>Instances are immutable, so one instance is safely shared by every caller of a {@link DidKeyResolver}.</p>
+ * <p>See: <a href="https://w3c-ccg.github.io/did-method-key">https://w3c-ccg.github.io/did-method-key</a></p>
+ */
+public final class DidKey {
+    private final String did;
+    private final Multicodec codec;
+    private final byte[] key;
+
+    DidKey(String did, Multicodec codec, byte[] key) {
+        this.did = did;
+        this.codec = codec;
+        this.key = key;
+    }
+
+    /**
+     * Gets the DID, without any fragment.
+     * @return the DID.
+     */
+    public String getDid() {
+        return did;
+    }
+
+    /**
+     * Gets the codec of the public key, e.g. {@link Multicodec#ED25519_PUB}.
+     * @return the codec of the public key.
+     */
+    public Multicodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets a copy of the public key bytes.
+     * @return the public key bytes.
+     */
+    public byte[] getKey() {
+        return key.clone();
+    }
+
+    /**
+     * Gets the length of the public key.
+     * @return the length of the public key in bytes.
+     */
+    public int getKeyLength() {
+        return key.length;
+    }
+
+    /**
+     * Gets the public key as hex.
+     * @return the public key as hex.
+     */
+    public String getKeyAsHex() {
+        return HexUtils.bytesToHex(key);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DidKey)) {
+            return false;
+        }
+        DidKey other = (DidKey) o;
+        return codec == other.codec && Arrays.equals(key, other.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * codec.hashCode() + Arrays.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return did;
+    }
+}
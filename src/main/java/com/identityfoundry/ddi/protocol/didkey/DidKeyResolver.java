@@ -0,0 +1,233 @@
+package com.identityfoundry.ddi.protocol.didkey;
+
+import com.identityfoundry.ddi.protocol.multibase.Multibase;
+import com.identityfoundry.ddi.protocol.multicodec.AmbiguousCodecEncodingException;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedView;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Resolves <code>did:key</code> DIDs to their public keys.</p>
+ * <p>A DID such as <code>did:key:z6Mk...</code> is resolved by multibase decoding the base58btc method specific
+ * identifier, multicodec decoding the result and checking the length of the key is right for its codec.
+ * Any fragment, as in <code>did:key:z6Mk...#z6Mk...</code>, is ignored. An invalid DID is rejected with an
+ * {@link IllegalArgumentException}.</p>
+ * <p>Resolved keys are kept in a bounded least recently used cache, so resolving the same DID again is a hash lookup.
+ * A DID resolved with a fragment is cached as given as well, so resolving it again does not copy it to strip the
+ * fragment.
+ * The cache is split into stripes, each with its own lock, so concurrent resolutions of different DIDs seldom wait
+ * for each other. Failed resolutions are not cached.</p>
+ * <p>See: <a href="https://w3c-ccg.github.io/did-method-key">https://w3c-ccg.github.io/did-method-key</a></p>
+ */
+public class DidKeyResolver {
+
+    /**
+     * The default maximum number of DIDs held in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final String DID_KEY_PREFIX = "did:key:";
+
+    //The length of the public key for each supported codec, or -1 where the length varies.
+    private static final Map<Multicodec, Integer> KEY_LENGTHS = new EnumMap<>(Multicodec.class);
+
+    static {
+        KEY_LENGTHS.put(Multicodec.ED25519_PUB, 32);
+        KEY_LENGTHS.put(Multicodec.X25519_PUB, 32);
+        KEY_LENGTHS.put(Multicodec.ED448_PUB, 57);
+        KEY_LENGTHS.put(Multicodec.X448_PUB, 56);
+        //Elliptic curve points are compressed: a sign byte and the x coordinate.
+        KEY_LENGTHS.put(Multicodec.SECP256K1_PUB, 33);
+        KEY_LENGTHS.put(Multicodec.P256_PUB, 33);
+        KEY_LENGTHS.put(Multicodec.P384_PUB, 49);
+        KEY_LENGTHS.put(Multicodec.P521_PUB, 67);
+        KEY_LENGTHS.put(Multicodec.SM2_PUB, 33);
+        KEY_LENGTHS.put(Multicodec.BLS12_381_G1_PUB, 48);
+        KEY_LENGTHS.put(Multicodec.BLS12_381_G2_PUB, 96);
+        KEY_LENGTHS.put(Multicodec.BLS12_381_G1G2_PUB, 144);
+        //DER encoded, so the length depends on the modulus.
+        KEY_LENGTHS.put(Multicodec.RSA_PUB, -1);
+    }
+
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a resolver caching up to the default maximum number of DIDs.
+     */
+    public DidKeyResolver() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a resolver with a bounded cache.
+     * @param maximumSize The most DIDs held in the cache, or 0 to not cache.
+     */
+    public DidKeyResolver(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative: " + maximumSize);
+        }
+        //Enough stripes to spread the cores, but each stripe holds enough entries to be worth an LRU order.
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(), maximumSize / 16)));
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            //Spread the remainder so the stripes add up to the maximum size.
+            stripes[i] = new Stripe(maximumSize / stripeCount + ((i < maximumSize % stripeCount) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Resolves a did:key DID to its public key, from the cache when it has been resolved before.
+     * @param did The DID, e.g. <code>did:key:z6Mk...</code>.
+     * @return The public key and its codec.
+     * @throws IllegalArgumentException if the DID is not a valid did:key for a supported public key codec.
+     */
+    public DidKey resolve(String did) {
+        int end = did.indexOf('#');
+        //Pick the stripe by the DID without its fragment, hashed in place, so a DID shares a stripe with its fragments.
+        int hash = (end < 0) ? did.hashCode() : hashPrefix(did, end);
+        Stripe stripe = stripes[spread(hash) & (stripes.length - 1)];
+        String key = did;
+        DidKey resolved;
+        synchronized (stripe) {
+            resolved = stripe.get(did);
+            if (resolved == null && end >= 0) {
+                //The fragment is only stripped on a miss, and the DID as given is cached for the next time.
+                key = did.substring(0, end);
+                resolved = stripe.get(key);
+                if (resolved != null) {
+                    stripe.put(did, resolved);
+                }
+            }
+        }
+        if (resolved != null) {
+            hits.increment();
+            return resolved;
+        }
+        misses.increment();
+        //Resolve outside the lock, so a slow resolution does not hold up the stripe.
+        resolved = resolveUncached(key);
+        synchronized (stripe) {
+            DidKey raced = stripe.putIfAbsent(key, resolved);
+            if (raced != null) {
+                resolved = raced;
+            }
+            if (end >= 0) {
+                stripe.put(did, resolved);
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * Resolves a did:key DID to its public key without the cache.
+     * @param did The DID, e.g. <code>did:key:z6Mk...</code>.
+     * @return The public key and its codec.
+     * @throws IllegalArgumentException if the DID is not a valid did:key for a supported public key codec.
+     */
+    public static DidKey resolveUncached(String did) {
+        int end = did.indexOf('#');
+        if (end >= 0) {
+            did = did.substring(0, end);
+        }
+        if (!did.startsWith(DID_KEY_PREFIX) || did.length() == DID_KEY_PREFIX.length()
+                || did.charAt(DID_KEY_PREFIX.length()) != Multibase.BASE58_BTC.prefix) {
+            throw new IllegalArgumentException("Not a base58btc did:key: " + did);
+        }
+        DecodedView view;
+        try {
+            view = Multibase.decodeMulticodec(did.substring(DID_KEY_PREFIX.length()));
+        } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+            throw new IllegalArgumentException("Could not decode did:key: " + did, exAmbiguousCodecEncoding);
+        }
+        Integer keyLength = KEY_LENGTHS.get(view.getCodec());
+        if (keyLength == null) {
+            throw new IllegalArgumentException("Not a public key codec: " + view.getCodec().name() + " in " + did);
+        }
+        if (keyLength >= 0 && view.getLength() != keyLength) {
+            throw new IllegalArgumentException("Expected a " + keyLength + " byte " + view.getCodec().name()
+                    + " key but found " + view.getLength() + " bytes in " + did);
+        }
+        return new DidKey(did, view.getCodec(), view.copyData());
+    }
+
+    /**
+     * Gets the number of resolutions answered from the cache.
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of resolutions not answered from the cache, including those that failed.
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of DIDs in the cache.
+     * @return the number of cached DIDs.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes every DID from the cache. The hit and miss counts are kept.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Hashes the start of a string as {@link String#hashCode()} hashes the same characters, without copying them.
+     */
+    private static int hashPrefix(String s, int end) {
+        int hash = 0;
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        //Mix the high bits into the low bits that pick the stripe.
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * One stripe of the cache, evicting its least recently used DID when full. Guarded by its own monitor.
+     */
+    private static final class Stripe extends LinkedHashMap<String, DidKey> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DidKey> eldest) {
+            return size() > capacity;
+        }
+    }
+}
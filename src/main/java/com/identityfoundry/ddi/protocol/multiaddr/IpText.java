@@ -0,0 +1,195 @@
+package com.identityfoundry.ddi.protocol.multiaddr;
+
+/**
+ * Reads and writes the text forms of IPv4 and IPv6 addresses without {@link java.net.InetAddress}, which would
+ * allocate and, given anything but a literal, resolve a host name.
+ */
+final class IpText {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private IpText() {
+    }
+
+    /**
+     * Parses a dotted decimal IPv4 address.
+     * @param text the text.
+     * @param start the index of the address.
+     * @param end the index after the address.
+     * @param dest the array to write the 4 bytes of the address to.
+     * @param destOffset the offset to write at.
+     * @throws IllegalArgumentException if the text is not an IPv4 address.
+     */
+    static void parseIp4(CharSequence text, int start, int end, byte[] dest, int destOffset) {
+        int i = start;
+        for (int part = 0; part < 4; part++) {
+            if (part > 0) {
+                if (i == end || text.charAt(i) != '.') {
+                    throw invalid("IPv4", text, start, end);
+                }
+                i++;
+            }
+            int value = 0;
+            int digits = 0;
+            for (char c; i < end && (c = text.charAt(i)) >= '0' && c <= '9'; i++, digits++) {
+                value = value * 10 + (c - '0');
+            }
+            //No leading zeros, which some parsers read as octal.
+            if (digits == 0 || digits > 3 || value > 255 || (digits > 1 && text.charAt(i - digits) == '0')) {
+                throw invalid("IPv4", text, start, end);
+            }
+            dest[destOffset + part] = (byte) value;
+        }
+        if (i != end) {
+            throw invalid("IPv4", text, start, end);
+        }
+    }
+
+    /**
+     * Parses an IPv6 address as per RFC 4291, with any "::" and trailing dotted decimal IPv4 address.
+     * @param text the text.
+     * @param start the index of the address.
+     * @param end the index after the address.
+     * @param dest the array to write the 16 bytes of the address to.
+     * @param destOffset the offset to write at.
+     * @throws IllegalArgumentException if the text is not an IPv6 address.
+     */
+    static void parseIp6(CharSequence text, int start, int end, byte[] dest, int destOffset) {
+        int groups = 0;
+        int compressAt = -1;
+        int i = start;
+        if (end - start >= 2 && text.charAt(i) == ':' && text.charAt(i + 1) == ':') {
+            compressAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (groups == 8) {
+                throw invalid("IPv6", text, start, end);
+            }
+            int value = 0;
+            int j = i;
+            for (int digit; j < end && j - i < 5 && (digit = hexDigit(text.charAt(j))) >= 0; j++) {
+                value = (value << 4) | digit;
+            }
+            if (j < end && text.charAt(j) == '.') {
+                //A trailing IPv4 address fills the last two groups.
+                if (groups > 6) {
+                    throw invalid("IPv6", text, start, end);
+                }
+                parseIp4(text, i, end, dest, destOffset + 2 * groups);
+                groups += 2;
+                break;
+            }
+            if (j == i || j - i > 4) {
+                throw invalid("IPv6", text, start, end);
+            }
+            dest[destOffset + 2 * groups] = (byte) (value >>> 8);
+            dest[destOffset + 2 * groups + 1] = (byte) value;
+            groups++;
+            i = j;
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i) != ':' || ++i == end) {
+                throw invalid("IPv6", text, start, end);
+            }
+            if (text.charAt(i) == ':') {
+                if (compressAt >= 0) {
+                    throw invalid("IPv6", text, start, end);
+                }
+                compressAt = groups;
+                i++;
+            }
+        }
+        if (compressAt < 0) {
+            if (groups != 8) {
+                throw invalid("IPv6", text, start, end);
+            }
+            return;
+        }
+        if (groups == 8) {
+            throw invalid("IPv6", text, start, end);
+        }
+        //Move the groups after the "::" to the end and zero the gap.
+        int tail = 2 * (groups - compressAt);
+        System.arraycopy(dest, destOffset + 2 * compressAt, dest, destOffset + 16 - tail, tail);
+        for (int k = destOffset + 2 * compressAt; k < destOffset + 16 - tail; k++) {
+            dest[k] = 0;
+        }
+    }
+
+    /**
+     * Appends an IPv4 address in dotted decimal.
+     */
+    static void appendIp4(StringBuilder out, byte[] address, int offset) {
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                out.append('.');
+            }
+            out.append(address[offset + i] & 0xFF);
+        }
+    }
+
+    /**
+     * Appends an IPv6 address in the canonical text form of RFC 5952: lower case, no leading zeros, and the longest
+     * run of two or more zero groups, the first if tied, written as "::".
+     */
+    static void appendIp6(StringBuilder out, byte[] address, int offset) {
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && group(address, offset, j) == 0) {
+                j++;
+            }
+            if (j - i > bestLength) {
+                bestStart = i;
+                bestLength = j - i;
+            }
+            i = j + 1;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                out.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (i > 0 && i != bestStart + bestLength) {
+                out.append(':');
+            }
+            appendHex(out, group(address, offset, i));
+        }
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int group(byte[] address, int offset, int group) {
+        return (address[offset + 2 * group] & 0xFF) << 8 | (address[offset + 2 * group + 1] & 0xFF);
+    }
+
+    private static void appendHex(StringBuilder out, int value) {
+        boolean started = false;
+        for (int shift = 12; shift >= 0; shift -= 4) {
+            int digit = (value >>> shift) & 0xF;
+            if (started || digit != 0 || shift == 0) {
+                out.append(HEX_DIGITS[digit]);
+                started = true;
+            }
+        }
+    }
+
+    private static IllegalArgumentException invalid(String kind, CharSequence text, int start, int end) {
+        return new IllegalArgumentException("Invalid " + kind + " address: " + text.subSequence(start, end));
+    }
+}
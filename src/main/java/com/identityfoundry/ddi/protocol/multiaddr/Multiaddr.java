@@ -0,0 +1,317 @@
+package com.identityfoundry.ddi.protocol.multiaddr;
+
+import com.identityfoundry.ddi.protocol.cid.Cid;
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.multibase.Multibase;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>An immutable multiaddr: a self-describing network address such as <code>/ip4/1.2.3.4/tcp/80</code>.</p>
+ * <p>Each component is a protocol code followed by its value. In the binary form the code is an unsigned varint and
+ * the value is either fixed length, such as the 4 bytes of an ip4 address or the 2 byte big endian port of tcp, or
+ * varint length prefixed, such as a dns name. A multiaddr holds only its binary form; the string form is written when
+ * first asked for and kept. The components are read in place with a {@link MultiaddrCursor}.</p>
+ * <p>The protocols supported are ip4, ip6, ip6zone, tcp, udp, dccp, sctp, dns, dns4, dns6, dnsaddr, unix, p2p (and
+ * its old name ipfs), certhash, and the protocols without a value such as quic, tls, ws and p2p-circuit.
+ * Malformed multiaddrs are rejected with an {@link IllegalArgumentException}.</p>
+ * <p>See: <a href="https://github.com/multiformats/multiaddr">https://github.com/multiformats/multiaddr</a></p>
+ */
+public final class Multiaddr {
+
+    final byte[] bytes;
+    private final int hash;
+    //Computed on first use. Both are immutable, so a race only computes them twice.
+    private String string;
+    private InetSocketAddress socketAddress;
+
+    private Multiaddr(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * Parses the string form of a multiaddr, e.g. <code>/ip4/1.2.3.4/tcp/80</code>.
+     * @param text The multiaddr string.
+     * @return The multiaddr.
+     * @throws IllegalArgumentException if the text is not a valid multiaddr.
+     */
+    public static Multiaddr parse(String text) {
+        int length = text.length();
+        if (length < 2 || text.charAt(0) != '/') {
+            throw new IllegalArgumentException("Not a multiaddr: " + text);
+        }
+        Output out = new Output(length);
+        int i = 1;
+        while (i < length) {
+            int nameEnd = indexOfSlash(text, i);
+            Protocol protocol = Protocol.named(text, i, nameEnd);
+            if (protocol == null) {
+                throw new IllegalArgumentException("Unsupported multiaddr protocol: " + text.substring(i, nameEnd));
+            }
+            out.writeVarInt(protocol.codec.codeValue);
+            i = nameEnd + 1;
+            if (protocol.value == Protocol.Value.NONE) {
+                continue;
+            }
+            //A unix path is the rest of the multiaddr, including its leading slash.
+            int valueStart = (protocol.value == Protocol.Value.PATH) ? nameEnd : Math.min(i, length);
+            int valueEnd = (protocol.value == Protocol.Value.PATH) ? length : indexOfSlash(text, valueStart);
+            if (valueStart == valueEnd) {
+                throw new IllegalArgumentException("Missing " + protocol.protocolName + " value in " + text);
+            }
+            writeValue(protocol, text, valueStart, valueEnd, out);
+            i = valueEnd + 1;
+        }
+        return new Multiaddr(out.toArray());
+    }
+
+    /**
+     * Reads the binary form of a multiaddr.
+     * @param bytes The binary multiaddr.
+     * @return The multiaddr.
+     * @throws IllegalArgumentException if the bytes are not a valid multiaddr.
+     */
+    public static Multiaddr fromBytes(byte[] bytes) {
+        return fromBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads the binary form of a multiaddr from a range of an array.
+     * @param source The array holding the binary multiaddr.
+     * @param offset The offset of the multiaddr.
+     * @param length The length of the multiaddr.
+     * @return The multiaddr.
+     * @throws IllegalArgumentException if the bytes are not a valid multiaddr.
+     */
+    public static Multiaddr fromBytes(byte[] source, int offset, int length) {
+        MultiaddrCursor cursor = new MultiaddrCursor().reset(source, offset, length);
+        if (length == 0) {
+            throw new IllegalArgumentException("Empty multiaddr");
+        }
+        while (cursor.next()) {
+            if (cursor.current().value == Protocol.Value.TEXT) {
+                //The string form could not hold a slash within a name.
+                for (int i = cursor.getValueOffset(); i < cursor.getValueOffset() + cursor.getValueLength(); i++) {
+                    if (source[i] == '/') {
+                        throw new IllegalArgumentException("A " + cursor.getProtocolName() + " value must not contain '/'");
+                    }
+                }
+            }
+        }
+        return new Multiaddr(Arrays.copyOfRange(source, offset, offset + length));
+    }
+
+    /**
+     * Gets a copy of the binary form of the multiaddr.
+     * @return the binary multiaddr.
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Gets the length of the binary form of the multiaddr.
+     * @return the length in bytes.
+     */
+    public int getLength() {
+        return bytes.length;
+    }
+
+    /**
+     * Creates a cursor over the components of the multiaddr.
+     * @return the cursor, before the first component.
+     */
+    public MultiaddrCursor cursor() {
+        return new MultiaddrCursor().reset(this);
+    }
+
+    /**
+     * Converts a multiaddr starting with a numeric ip4 or ip6 address and a tcp, udp, dccp or sctp port to a socket
+     * address, e.g. <code>/ip4/1.2.3.4/tcp/4001/p2p/Qm...</code> to 1.2.3.4:4001. Any later components are ignored.
+     * No name is resolved, so dns multiaddrs are not converted. The socket address is kept after the first call.
+     * @return the socket address.
+     * @throws IllegalArgumentException if the multiaddr does not start with a numeric address and a port.
+     */
+    public InetSocketAddress toInetSocketAddress() {
+        InetSocketAddress result = socketAddress;
+        if (result == null) {
+            MultiaddrCursor cursor = cursor();
+            cursor.next();
+            Protocol.Value address = cursor.current().value;
+            if (address != Protocol.Value.IP4 && address != Protocol.Value.IP6) {
+                throw new IllegalArgumentException("Not a numeric address: " + this);
+            }
+            byte[] host = Arrays.copyOfRange(bytes, cursor.getValueOffset(), cursor.getValueOffset() + cursor.getValueLength());
+            if (!cursor.next() || cursor.current().value != Protocol.Value.PORT) {
+                throw new IllegalArgumentException("No port follows the address: " + this);
+            }
+            try {
+                result = new InetSocketAddress(InetAddress.getByAddress(host), cursor.getPort());
+            } catch (UnknownHostException exUnknownHost) {
+                //Only thrown for an address of the wrong length, which the cursor has checked.
+                throw new IllegalStateException(exUnknownHost);
+            }
+            socketAddress = result;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the string form of the multiaddr, e.g. <code>/ip4/1.2.3.4/tcp/80</code>. Addresses are written in their
+     * canonical form, so the string may differ from one that was parsed. The string is kept after the first call.
+     * @return the multiaddr string.
+     */
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            StringBuilder out = new StringBuilder(bytes.length * 3);
+            for (MultiaddrCursor cursor = cursor(); cursor.next(); ) {
+                appendComponent(out, cursor);
+            }
+            result = out.toString();
+            string = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Multiaddr)) {
+            return false;
+        }
+        Multiaddr other = (Multiaddr) o;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private static int indexOfSlash(String text, int from) {
+        int index = text.indexOf('/', from);
+        return (index < 0) ? text.length() : index;
+    }
+
+    private static void writeValue(Protocol protocol, String text, int start, int end, Output out) {
+        switch (protocol.value) {
+            case IP4:
+                IpText.parseIp4(text, start, end, out.reserve(4), out.size - 4);
+                break;
+            case IP6:
+                IpText.parseIp6(text, start, end, out.reserve(16), out.size - 16);
+                break;
+            case PORT:
+                int port = 0;
+                for (int i = start; i < end; i++) {
+                    char c = text.charAt(i);
+                    if (c < '0' || c > '9' || (port = port * 10 + (c - '0')) > 0xFFFF) {
+                        throw new IllegalArgumentException("Invalid " + protocol.protocolName + " port: " + text.substring(start, end));
+                    }
+                }
+                byte[] buf = out.reserve(2);
+                buf[out.size - 2] = (byte) (port >>> 8);
+                buf[out.size - 1] = (byte) port;
+                break;
+            case TEXT:
+            case PATH:
+                out.writeLengthPrefixed(text.substring(start, end).getBytes(StandardCharsets.UTF_8));
+                break;
+            case BASE58:
+                //A peer id is a base58btc multihash, or a CID of one.
+                char first = text.charAt(start);
+                out.writeLengthPrefixed((first == 'Q' || first == '1')
+                        ? Multibase.BASE58_BTC.decodeUnprefixed(text, start, end)
+                        : Cid.parse(text.substring(start, end)).getMultihash());
+                break;
+            case MULTIBASE:
+                out.writeLengthPrefixed(Multibase.decode(text.substring(start, end)));
+                break;
+            default:
+                throw new IllegalStateException("No value expected for " + protocol.protocolName);
+        }
+    }
+
+    private static void appendComponent(StringBuilder out, MultiaddrCursor cursor) {
+        Protocol protocol = cursor.current();
+        out.append('/').append(protocol.protocolName);
+        byte[] source = cursor.getSource();
+        int offset = cursor.getValueOffset();
+        int length = cursor.getValueLength();
+        switch (protocol.value) {
+            case NONE:
+                return;
+            case PATH:
+                if (source[offset] != '/') {
+                    out.append('/');
+                }
+                out.append(new String(source, offset, length, StandardCharsets.UTF_8));
+                return;
+            default:
+                out.append('/');
+        }
+        switch (protocol.value) {
+            case IP4:
+                IpText.appendIp4(out, source, offset);
+                break;
+            case IP6:
+                IpText.appendIp6(out, source, offset);
+                break;
+            case PORT:
+                out.append(cursor.getPort());
+                break;
+            case TEXT:
+                out.append(new String(source, offset, length, StandardCharsets.UTF_8));
+                break;
+            case BASE58:
+                String peerId = Multibase.BASE58_BTC.encode(source, offset, length);
+                out.append(peerId, 1, peerId.length());
+                break;
+            default:
+                out.append(Multibase.BASE64_URL.encode(source, offset, length));
+        }
+    }
+
+    /**
+     * A growable array the binary form is written into as a string is parsed.
+     */
+    private static final class Output {
+        private byte[] buf;
+        private int size;
+
+        Output(int capacity) {
+            buf = new byte[Math.max(16, capacity)];
+        }
+
+        byte[] reserve(int length) {
+            if (buf.length - size < length) {
+                buf = Arrays.copyOf(buf, Math.max(2 * buf.length, size + length));
+            }
+            size += length;
+            return buf;
+        }
+
+        void writeVarInt(long value) {
+            int length = VarInt.varIntSize(value);
+            VarInt.writeUnsignedVarLong(value, reserve(length), size - length);
+        }
+
+        void writeLengthPrefixed(byte[] value) {
+            writeVarInt(value.length);
+            System.arraycopy(value, 0, reserve(value.length), size - value.length, value.length);
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+}
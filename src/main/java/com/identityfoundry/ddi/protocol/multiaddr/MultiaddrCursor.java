@@ -0,0 +1,153 @@
+package com.identityfoundry.ddi.protocol.multiaddr;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+/**
+ * <p>Steps through the components of a binary multiaddr in place.</p>
+ * <p>A cursor holds only offsets into the array it was reset to, so stepping allocates nothing and one cursor may be
+ * reset and reused for any number of multiaddrs, e.g. straight from the bytes of a message:</p>
+ * <pre>
+ * MultiaddrCursor cursor = new MultiaddrCursor();
+ * for (cursor.reset(bytes, offset, length); cursor.next(); ) {
+ *     if (cursor.getProtocol() == Multicodec.TCP) {
+ *         port = cursor.getPort();
+ *     }
+ * }
+ * </pre>
+ * <p>A malformed component is rejected with an {@link IllegalArgumentException} when the cursor steps to it.
+ * A cursor is not thread safe.</p>
+ */
+public final class MultiaddrCursor {
+    private byte[] source;
+    private int position;
+    private int end;
+    private Protocol protocol;
+    private int valueOffset;
+    private int valueLength;
+
+    /**
+     * Resets the cursor to before the first component of a binary multiaddr.
+     * @param source The array holding the multiaddr.
+     * @param offset The offset of the multiaddr.
+     * @param length The length of the multiaddr.
+     * @return This cursor.
+     */
+    public MultiaddrCursor reset(byte[] source, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > source.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + source.length);
+        }
+        this.source = source;
+        this.position = offset;
+        this.end = offset + length;
+        this.protocol = null;
+        return this;
+    }
+
+    /**
+     * Resets the cursor to before the first component of a multiaddr.
+     * @param multiaddr The multiaddr.
+     * @return This cursor.
+     */
+    public MultiaddrCursor reset(Multiaddr multiaddr) {
+        return reset(multiaddr.bytes, 0, multiaddr.bytes.length);
+    }
+
+    /**
+     * Steps to the next component.
+     * @return true if there is a next component, false at the end of the multiaddr.
+     * @throws IllegalArgumentException if the next component is malformed or its protocol is not supported.
+     */
+    public boolean next() {
+        if (position == end) {
+            protocol = null;
+            return false;
+        }
+        long code = VarInt.readUnsignedVarLong(source, position, end);
+        int pos = position + VarInt.varIntSize(code);
+        Protocol next = Protocol.of(code);
+        if (next == null) {
+            throw new IllegalArgumentException("Unsupported multiaddr protocol code: 0x" + Long.toHexString(code));
+        }
+        int length = next.value.size;
+        if (length < 0) {
+            if (pos == end) {
+                throw new IllegalArgumentException("Missing " + next.protocolName + " value length");
+            }
+            length = VarInt.readUnsignedVarInt(source, pos, end);
+            pos += VarInt.varIntSize(length);
+            if (length == 0) {
+                throw new IllegalArgumentException("Empty " + next.protocolName + " value");
+            }
+        }
+        if (length < 0 || length > end - pos) {
+            throw new IllegalArgumentException("Truncated " + next.protocolName + " value");
+        }
+        protocol = next;
+        valueOffset = pos;
+        valueLength = length;
+        position = pos + length;
+        return true;
+    }
+
+    /**
+     * Gets the protocol of the current component. The protocol {@link Multicodec#IPFS} is read as {@link Multicodec#P2P}.
+     * @return the protocol.
+     */
+    public Multicodec getProtocol() {
+        return current().codec;
+    }
+
+    /**
+     * Gets the name of the protocol of the current component, as in the string form, e.g. "ip4".
+     * @return the protocol name.
+     */
+    public String getProtocolName() {
+        return current().protocolName;
+    }
+
+    /**
+     * Gets the array the cursor steps through.
+     * @return the array, which is shared, not copied.
+     */
+    public byte[] getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the offset of the value of the current component in the source array.
+     * @return the offset of the value.
+     */
+    public int getValueOffset() {
+        current();
+        return valueOffset;
+    }
+
+    /**
+     * Gets the length of the value of the current component, which is 0 for protocols without a value.
+     * @return the length of the value in bytes.
+     */
+    public int getValueLength() {
+        current();
+        return valueLength;
+    }
+
+    /**
+     * Gets the port of a tcp, udp, dccp or sctp component.
+     * @return the port.
+     * @throws IllegalStateException if the current component is not a port.
+     */
+    public int getPort() {
+        if (current().value != Protocol.Value.PORT) {
+            throw new IllegalStateException("Not a port: " + protocol.protocolName);
+        }
+        return (source[valueOffset] & 0xFF) << 8 | (source[valueOffset + 1] & 0xFF);
+    }
+
+    Protocol current() {
+        if (protocol == null) {
+            throw new IllegalStateException("The cursor is not on a component");
+        }
+        return protocol;
+    }
+}
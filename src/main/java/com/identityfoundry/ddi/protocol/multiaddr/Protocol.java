@@ -0,0 +1,105 @@
+package com.identityfoundry.ddi.protocol.multiaddr;
+
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+import java.util.Locale;
+
+/**
+ * The multiaddr protocols that can be read and written, with the form of the value of each.
+ */
+enum Protocol {
+    IP4(Multicodec.IP4, Value.IP4),
+    IP6(Multicodec.IP6, Value.IP6),
+    IP6ZONE(Multicodec.IP6ZONE, Value.TEXT),
+    TCP(Multicodec.TCP, Value.PORT),
+    UDP(Multicodec.UDP, Value.PORT),
+    DCCP(Multicodec.DCCP, Value.PORT),
+    SCTP(Multicodec.SCTP, Value.PORT),
+    DNS(Multicodec.DNS, Value.TEXT),
+    DNS4(Multicodec.DNS4, Value.TEXT),
+    DNS6(Multicodec.DNS6, Value.TEXT),
+    DNSADDR(Multicodec.DNSADDR, Value.TEXT),
+    UNIX(Multicodec.UNIX, Value.PATH),
+    P2P(Multicodec.P2P, Value.BASE58),
+    //An older name for p2p, read but never written.
+    IPFS(Multicodec.IPFS, Value.BASE58),
+    CERTHASH(Multicodec.CERTHASH, Value.MULTIBASE),
+    UTP(Multicodec.UTP, Value.NONE),
+    UDT(Multicodec.UDT, Value.NONE),
+    QUIC(Multicodec.QUIC, Value.NONE),
+    WEBTRANSPORT(Multicodec.WEBTRANSPORT, Value.NONE),
+    WEBRTC(Multicodec.WEBRTC, Value.NONE),
+    TLS(Multicodec.TLS, Value.NONE),
+    NOISE(Multicodec.NOISE, Value.NONE),
+    HTTP(Multicodec.HTTP, Value.NONE),
+    HTTPS(Multicodec.HTTPS, Value.NONE),
+    WS(Multicodec.WS, Value.NONE),
+    WSS(Multicodec.WSS, Value.NONE),
+    P2P_CIRCUIT(Multicodec.P2P_CIRCUIT, Value.NONE),
+    P2P_WEBRTC_STAR(Multicodec.P2P_WEBRTC_STAR, Value.NONE),
+    P2P_WEBSOCKET_STAR(Multicodec.P2P_WEBSOCKET_STAR, Value.NONE),
+    P2P_STARDUST(Multicodec.P2P_STARDUST, Value.NONE);
+
+    /**
+     * The forms of protocol values.
+     */
+    enum Value {
+        NONE(0), IP4(4), IP6(16), PORT(2), TEXT(-1), PATH(-1), BASE58(-1), MULTIBASE(-1);
+
+        //The length of the binary value, or -1 where it is length prefixed.
+        final int size;
+
+        Value(int size) {
+            this.size = size;
+        }
+    }
+
+    //Every supported code is below this, so the codes index an array.
+    private static final int CODE_LIMIT = 0x200;
+    private static final Protocol[] BY_CODE = new Protocol[CODE_LIMIT];
+
+    static {
+        for (Protocol protocol : values()) {
+            //IPFS shares the code of P2P, which is declared first.
+            if (BY_CODE[protocol.codec.codeValue] == null) {
+                BY_CODE[protocol.codec.codeValue] = protocol;
+            }
+        }
+    }
+
+    final Multicodec codec;
+    final String protocolName;
+    final Value value;
+
+    Protocol(Multicodec codec, Value value) {
+        this.codec = codec;
+        this.protocolName = name().toLowerCase(Locale.ROOT).replace('_', '-');
+        this.value = value;
+    }
+
+    /**
+     * Gets the protocol with a code.
+     * @param code the code.
+     * @return the protocol, or null if the code is not a supported protocol.
+     */
+    static Protocol of(long code) {
+        return (code >= 0 && code < CODE_LIMIT) ? BY_CODE[(int) code] : null;
+    }
+
+    /**
+     * Gets the protocol named by a range of characters, without taking the range as a string.
+     * @param text the characters.
+     * @param start the index of the name.
+     * @param end the index after the name.
+     * @return the protocol, or null if the name is not a supported protocol.
+     */
+    static Protocol named(String text, int start, int end) {
+        int length = end - start;
+        for (Protocol protocol : values()) {
+            if (protocol.protocolName.length() == length && text.startsWith(protocol.protocolName, start)) {
+                return protocol;
+            }
+        }
+        return null;
+    }
+}
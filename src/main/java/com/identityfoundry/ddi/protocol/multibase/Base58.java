@@ -0,0 +1,159 @@
+package com.identityfoundry.ddi.protocol.multibase;
+
+import java.util.Arrays;
+
+/**
+ * <p>Base58 with the bitcoin alphabet.</p>
+ * <p>Base58 is not a whole number of bits per character, so the whole input is converted as one big number. Rather than
+ * a digit or byte at a time, the conversion works on limbs: the encoder multiplies in 4 bytes at a time and holds the
+ * number as limbs of 5 base58 digits (58^5 &lt; 2^30), and the decoder multiplies in 5 digits at a time and holds the
+ * number as limbs of 32 bits. This does about a twentieth of the long divisions of the textbook conversion.</p>
+ */
+final class Base58 {
+
+    private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+
+    //The value of each character of the alphabet, and -1 for every other ASCII character.
+    private static final byte[] DIGITS = new byte[128];
+
+    //58^5, the base of the limbs of the encoder.
+    private static final long LIMB_BASE = 656356768L;
+
+    private static final long[] POWERS = {1, 58, 58 * 58, 58 * 58 * 58, 58 * 58 * 58 * 58, LIMB_BASE};
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DIGITS[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base58() {}
+
+    /**
+     * Encodes the bytes of head followed by a range of data.
+     * @param prefix The character to write before the encoding.
+     * @param head Bytes to encode before the data, which may be empty.
+     * @param data The array holding the data.
+     * @param offset The offset of the data.
+     * @param length The length of the data.
+     * @return The prefix followed by the encoding.
+     */
+    static String encode(char prefix, byte[] head, byte[] data, int offset, int length) {
+        int total = head.length + length;
+        int zeros = 0;
+        while (zeros < total && byteAt(head, data, offset, zeros) == 0) {
+            zeros++;
+        }
+
+        //Multiply in the bytes after the leading zeros, the first chunk taking the bytes left over from whole chunks.
+        int[] limbs = new int[(int) ((total - zeros) * 8L / 29) + 2];
+        int used = 0;
+        int chunkLength = (total - zeros) % 4 == 0 ? 4 : (total - zeros) % 4;
+        for (int i = zeros; i < total; i += chunkLength, chunkLength = 4) {
+            long carry = 0;
+            for (int j = 0; j < chunkLength; j++) {
+                carry = (carry << 8) | byteAt(head, data, offset, i + j);
+            }
+            int shift = chunkLength * 8;
+            for (int l = 0; l < used; l++) {
+                long value = ((long) limbs[l] << shift) + carry;
+                carry = value / LIMB_BASE;
+                limbs[l] = (int) (value - carry * LIMB_BASE);
+            }
+            while (carry != 0) {
+                long next = carry / LIMB_BASE;
+                limbs[used++] = (int) (carry - next * LIMB_BASE);
+                carry = next;
+            }
+        }
+
+        char[] chars = new char[1 + zeros + used * 5];
+        chars[0] = prefix;
+        int pos = 1;
+        for (; pos <= zeros; pos++) {
+            chars[pos] = ALPHABET[0];
+        }
+        //The most significant limb has no leading zero digits, every other limb has exactly 5 digits.
+        if (used > 0) {
+            int top = limbs[used - 1];
+            int digits = 1;
+            while (digits < 5 && top >= POWERS[digits]) {
+                digits++;
+            }
+            pos = writeDigits(top, digits, chars, pos);
+            for (int l = used - 2; l >= 0; l--) {
+                pos = writeDigits(limbs[l], 5, chars, pos);
+            }
+        }
+        return new String(chars, 0, pos);
+    }
+
+    /**
+     * Decodes a range of characters.
+     * @param chars The characters holding the encoding.
+     * @param start The index of the first character of the encoding.
+     * @param end The index just past the encoding.
+     * @return The bytes.
+     * @throws IllegalArgumentException if a character is not in the alphabet.
+     */
+    static byte[] decode(CharSequence chars, int start, int end) {
+        int zeros = 0;
+        while (start + zeros < end && chars.charAt(start + zeros) == ALPHABET[0]) {
+            zeros++;
+        }
+
+        //Each base58 digit is log2(58)/8 = 0.733 bytes.
+        int[] limbs = new int[(int) ((end - start - zeros) * 733L / 4000) + 2];
+        int used = 0;
+        int chunkLength = (end - start - zeros) % 5 == 0 ? 5 : (end - start - zeros) % 5;
+        for (int i = start + zeros; i < end; i += chunkLength, chunkLength = 5) {
+            long carry = 0;
+            for (int j = i; j < i + chunkLength; j++) {
+                carry = carry * 58 + digit(chars, j);
+            }
+            long multiplier = POWERS[chunkLength];
+            for (int l = 0; l < used; l++) {
+                long value = (limbs[l] & 0xFFFFFFFFL) * multiplier + carry;
+                limbs[l] = (int) value;
+                carry = value >>> 32;
+            }
+            if (carry != 0) {
+                limbs[used++] = (int) carry;
+            }
+        }
+
+        //Write the limbs big endian, skipping the leading zero bytes of the most significant limb.
+        int topBytes = (used == 0) ? 0 : 4 - Integer.numberOfLeadingZeros(limbs[used - 1]) / 8;
+        byte[] bytes = new byte[zeros + (used == 0 ? 0 : (used - 1) * 4 + topBytes)];
+        int pos = zeros;
+        for (int l = used - 1; l >= 0; l--) {
+            int limb = limbs[l];
+            for (int b = (l == used - 1) ? topBytes - 1 : 3; b >= 0; b--) {
+                bytes[pos++] = (byte) (limb >>> (b * 8));
+            }
+        }
+        return bytes;
+    }
+
+    private static int byteAt(byte[] head, byte[] data, int offset, int index) {
+        return ((index < head.length) ? head[index] : data[offset + index - head.length]) & 0xFF;
+    }
+
+    private static int digit(CharSequence chars, int index) {
+        char c = chars.charAt(index);
+        int value = (c < DIGITS.length) ? DIGITS[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid base58 character '" + c + "' at index " + index);
+        }
+        return value;
+    }
+
+    private static int writeDigits(int limb, int digits, char[] chars, int pos) {
+        for (int d = pos + digits - 1; d >= pos; d--) {
+            chars[d] = ALPHABET[limb % 58];
+            limb /= 58;
+        }
+        return pos + digits;
+    }
+}
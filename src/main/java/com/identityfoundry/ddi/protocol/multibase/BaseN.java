@@ -0,0 +1,128 @@
+package com.identityfoundry.ddi.protocol.multibase;
+
+import java.util.Arrays;
+
+/**
+ * <p>The bases that are a whole number of bits per character, base16, base32 and base64, as per RFC 4648.</p>
+ * <p>Encoding and decoding are table driven: the bytes are shifted through a bit buffer and each group of bits is
+ * looked up in the alphabet, or each character is looked up in the reverse table.</p>
+ */
+final class BaseN {
+
+    static final BaseN BASE16 = new BaseN("0123456789abcdef", 4, false, true);
+    static final BaseN BASE16_UPPER = new BaseN("0123456789ABCDEF", 4, false, true);
+    static final BaseN BASE32 = new BaseN("abcdefghijklmnopqrstuvwxyz234567", 5, false, true);
+    static final BaseN BASE32_UPPER = new BaseN("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567", 5, false, true);
+    static final BaseN BASE64 = new BaseN("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/", 6, false, false);
+    static final BaseN BASE64_URL = new BaseN("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", 6, false, false);
+    static final BaseN BASE64_URL_PAD = new BaseN("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_", 6, true, false);
+
+    private static final char PAD = '=';
+
+    private final char[] alphabet;
+    private final byte[] digits = new byte[128];
+    private final int bitsPerChar;
+    private final int mask;
+    private final boolean padded;
+    //The number of characters in a group of whole bytes, which padding fills up to.
+    private final int groupChars;
+
+    private BaseN(String alphabet, int bitsPerChar, boolean padded, boolean caseInsensitive) {
+        this.alphabet = alphabet.toCharArray();
+        this.bitsPerChar = bitsPerChar;
+        this.mask = (1 << bitsPerChar) - 1;
+        this.padded = padded;
+        this.groupChars = 8 / gcd(8, bitsPerChar);
+        Arrays.fill(digits, (byte) -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            char c = this.alphabet[i];
+            digits[c] = (byte) i;
+            if (caseInsensitive) {
+                digits[Character.toLowerCase(c)] = (byte) i;
+                digits[Character.toUpperCase(c)] = (byte) i;
+            }
+        }
+    }
+
+    /**
+     * Encodes the bytes of head followed by a range of data.
+     * @param prefix The character to write before the encoding.
+     * @param head Bytes to encode before the data, which may be empty.
+     * @param data The array holding the data.
+     * @param offset The offset of the data.
+     * @param length The length of the data.
+     * @return The prefix followed by the encoding.
+     */
+    String encode(char prefix, byte[] head, byte[] data, int offset, int length) {
+        int total = head.length + length;
+        int encodedChars = (int) ((total * 8L + bitsPerChar - 1) / bitsPerChar);
+        int paddedChars = padded ? (encodedChars + groupChars - 1) / groupChars * groupChars : encodedChars;
+        char[] chars = new char[1 + paddedChars];
+        chars[0] = prefix;
+        int pos = 1;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < total; i++) {
+            buffer = (buffer << 8) | (((i < head.length) ? head[i] : data[offset + i - head.length]) & 0xFF);
+            bits += 8;
+            while (bits >= bitsPerChar) {
+                bits -= bitsPerChar;
+                chars[pos++] = alphabet[(buffer >>> bits) & mask];
+            }
+        }
+        if (bits > 0) {
+            chars[pos++] = alphabet[(buffer << (bitsPerChar - bits)) & mask];
+        }
+        while (pos < chars.length) {
+            chars[pos++] = PAD;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a range of characters.
+     * @param chars The characters holding the encoding.
+     * @param start The index of the first character of the encoding.
+     * @param end The index just past the encoding.
+     * @return The bytes.
+     * @throws IllegalArgumentException if a character is not in the alphabet, or the length or padding is invalid.
+     */
+    byte[] decode(CharSequence chars, int start, int end) {
+        if (padded) {
+            if ((end - start) % groupChars != 0) {
+                throw new IllegalArgumentException("Padded encoding is not a whole number of groups: " + (end - start));
+            }
+            while (end > start && chars.charAt(end - 1) == PAD) {
+                end--;
+            }
+        }
+        int encodedChars = end - start;
+        int remainderBits = (encodedChars * bitsPerChar) % 8;
+        //Trailing bits short of a whole byte are only padding when they fit in the last character.
+        if (remainderBits >= bitsPerChar) {
+            throw new IllegalArgumentException("Invalid encoding length: " + encodedChars);
+        }
+        byte[] bytes = new byte[(int) (encodedChars * (long) bitsPerChar / 8)];
+        int pos = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            int value = (c < digits.length) ? digits[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid character '" + c + "' at index " + i);
+            }
+            buffer = (buffer << bitsPerChar) | value;
+            bits += bitsPerChar;
+            if (bits >= 8) {
+                bits -= 8;
+                bytes[pos++] = (byte) (buffer >>> bits);
+            }
+        }
+        return bytes;
+    }
+
+    private static int gcd(int a, int b) {
+        return (b == 0) ? a : gcd(b, a % b);
+    }
+}
@@ -0,0 +1,178 @@
+package com.identityfoundry.ddi.protocol.multibase;
+
+import com.identityfoundry.ddi.protocol.multicodec.AmbiguousCodecEncodingException;
+import com.identityfoundry.ddi.protocol.multicodec.CodecSet;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedView;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import com.identityfoundry.ddi.protocol.multicodec.MulticodecEncoder;
+
+/**
+ * <p>Multibase is part of the Multiformats collection of protocols.</p>
+ * <p>A multibase string is a single character naming the base, followed by the data encoded in that base.
+ * For example the public key in a <code>did:key</code> is the base58btc multibase string, starting 'z', of the
+ * multicodec encoded key.</p>
+ * <p>See: <a href="https://github.com/multiformats/multibase">https://github.com/multiformats/multibase</a></p>
+ * <p>The {@link Multicodec} methods encode and decode a multicodec value and a multibase string in one step.
+ * The codec is written with {@link Multicodec#prefix()}, the single unsigned varint that did:key and CIDs use, so the
+ * bytes encoded are those of {@link MulticodecEncoder#encode(Multicodec, byte[])}. Every codec is decoded again with
+ * {@link CodecSet#all()}, as multibase values never held legacy prefixes.</p>
+ * <p>Invalid multibase strings are rejected with an {@link IllegalArgumentException}.</p>
+ */
+public enum Multibase {
+
+    BASE16("base16", 'f'),
+    BASE16_UPPER("base16upper", 'F'),
+    BASE32("base32", 'b'),
+    BASE32_UPPER("base32upper", 'B'),
+    BASE58_BTC("base58btc", 'z'),
+    BASE64("base64", 'm'),
+    BASE64_URL("base64url", 'u'),
+    BASE64_URL_PAD("base64urlpad", 'U');
+
+    private static final byte[] NO_HEAD = new byte[0];
+
+    /**
+     * The name of the base in the multibase table.
+     */
+    public final String baseName;
+
+    /**
+     * The character that starts a multibase string in this base.
+     */
+    public final char prefix;
+
+    Multibase(String baseName, char prefix) {
+        this.baseName = baseName;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Looks up the base of a multibase string by its first character.
+     * @param prefix The first character of a multibase string.
+     * @return The base.
+     * @throws IllegalArgumentException if no supported base starts with the character.
+     */
+    public static Multibase lookup(char prefix) {
+        for (Multibase base : values()) {
+            if (base.prefix == prefix) {
+                return base;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported multibase prefix: " + prefix);
+    }
+
+    /**
+     * Encodes bytes as a multibase string in this base.
+     * @param data The bytes to encode.
+     * @return The multibase string.
+     */
+    public String encode(byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    /**
+     * Encodes a range of bytes as a multibase string in this base.
+     * @param data The array holding the bytes.
+     * @param offset The offset of the bytes.
+     * @param length The number of bytes.
+     * @return The multibase string.
+     */
+    public String encode(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + data.length);
+        }
+        return encode(NO_HEAD, data, offset, length);
+    }
+
+    /**
+     * Encodes a multicodec value as a multibase string in this base, without first building the multicodec encoding.
+     * @param codec The codec of the data.
+     * @param data The data.
+     * @return The multibase string.
+     */
+    public String encode(Multicodec codec, byte[] data) {
+        return encode(codec.prefix(), data, 0, data.length);
+    }
+
+    /**
+     * Decodes a multibase string in any supported base.
+     * @param multibase The multibase string.
+     * @return The bytes.
+     * @throws IllegalArgumentException if the string is empty, its base is not supported or it is not a valid
+     * encoding in its base.
+     */
+    public static byte[] decode(CharSequence multibase) {
+        if (multibase.length() == 0) {
+            throw new IllegalArgumentException("Empty multibase string");
+        }
+        return lookup(multibase.charAt(0)).decodeBody(multibase, 1, multibase.length());
+    }
+
+    /**
+     * Decodes text in this base that has no multibase prefix, such as a CIDv0, which is bare base58btc.
+     * @param text The text.
+     * @param start The index of the first character to decode.
+     * @param end The index after the last character to decode.
+     * @return The bytes.
+     * @throws IllegalArgumentException if the text is not a valid encoding in this base.
+     */
+    public byte[] decodeUnprefixed(CharSequence text, int start, int end) {
+        if (start < 0 || start > end || end > text.length()) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + text.length());
+        }
+        return decodeBody(text, start, end);
+    }
+
+    /**
+     * Decodes a multibase string holding a multicodec value.
+     * The returned view refers to the only copy of the decoded bytes.
+     * @param multibase The multibase string.
+     * @return The view of the codec and payload.
+     * @throws IllegalArgumentException if the string is not a valid multibase string.
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload.
+     */
+    public static DecodedView decodeMulticodec(CharSequence multibase) throws AmbiguousCodecEncodingException {
+        byte[] bytes = decode(multibase);
+        //Multibase values only ever hold the specification varint, so are not checked for legacy prefixes.
+        return MulticodecEncoder.decodeView(bytes, 0, bytes.length, CodecSet.all());
+    }
+
+    private String encode(byte[] head, byte[] data, int offset, int length) {
+        switch (this) {
+            case BASE58_BTC:
+                return Base58.encode(prefix, head, data, offset, length);
+            default:
+                return bitBase().encode(prefix, head, data, offset, length);
+        }
+    }
+
+    private byte[] decodeBody(CharSequence text, int start, int end) {
+        switch (this) {
+            case BASE58_BTC:
+                return Base58.decode(text, start, end);
+            default:
+                return bitBase().decode(text, start, end);
+        }
+    }
+
+    private BaseN bitBase() {
+        switch (this) {
+            case BASE16:
+                return BaseN.BASE16;
+            case BASE16_UPPER:
+                return BaseN.BASE16_UPPER;
+            case BASE32:
+                return BaseN.BASE32;
+            case BASE32_UPPER:
+                return BaseN.BASE32_UPPER;
+            case BASE64:
+                return BaseN.BASE64;
+            case BASE64_URL:
+                return BaseN.BASE64_URL;
+            case BASE64_URL_PAD:
+                return BaseN.BASE64_URL_PAD;
+            default:
+                throw new IllegalStateException("Not a power of two base: " + this);
+        }
+    }
+}
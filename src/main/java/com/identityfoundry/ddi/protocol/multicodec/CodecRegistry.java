@@ -0,0 +1,148 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A registry of codecs that starts from the {@link Multicodec} constants and accepts custom codecs at runtime, such
+ * as private use codes in the <code>0x300000</code> to <code>0x3FFFFF</code> range or codes added to the multicodec
+ * table after this release.</p>
+ * <p>Lookups never lock. The custom codecs are held in an immutable snapshot published through a single volatile
+ * reference; registering a codec copies the snapshot, adds the codec and publishes the copy. A lookup therefore sees
+ * either the snapshot before a registration or the one after it, never a partly built table, and codecs can be
+ * registered while other threads are decoding. Registrations are serialised with each other.</p>
+ * <p>Built in codes are resolved by the {@link Multicodec} table first, so a built in codec cannot be replaced.
+ * Pass a registry to {@link MulticodecEncoder#decodeView(CodecRegistry, byte[], int, int)} to decode custom codes.</p>
+ */
+public final class CodecRegistry {
+
+    private static final CodecRegistry DEFAULT = new CodecRegistry();
+
+    private static final Map<String, Multicodec> BUILT_IN_NAMES = new HashMap<>();
+
+    static {
+        for (Multicodec codec : Multicodec.values()) {
+            BUILT_IN_NAMES.putIfAbsent(codec.codecName, codec);
+        }
+    }
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Creates a registry holding only the {@link Multicodec} constants.
+     */
+    public CodecRegistry() {
+    }
+
+    /**
+     * Gets the registry shared across the process.
+     * @return the default registry.
+     */
+    public static CodecRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers a custom codec.
+     * @param name The name of the codec, which must not be the name of a registered codec.
+     * @param code The code of the codec, which must not be the code of a registered codec.
+     * @return The registered codec.
+     * @throws IllegalArgumentException if the name is empty, the code is negative, or either is already registered.
+     */
+    public synchronized RegisteredCodec register(String name, long code) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Codec name must not be empty");
+        }
+        if (code < 0) {
+            throw new IllegalArgumentException("Codec code must not be negative: " + code);
+        }
+        RegisteredCodec existing = lookup(code);
+        if (existing != null) {
+            throw new IllegalArgumentException("Codec code 0x" + Long.toHexString(code).toUpperCase() + " is already registered to " + existing.getName());
+        }
+        if (lookup(name) != null) {
+            throw new IllegalArgumentException("Codec name is already registered: " + name);
+        }
+        RegisteredCodec codec = new RegisteredCodec(name, code, null);
+        snapshot = snapshot.with(codec);
+        return codec;
+    }
+
+    /**
+     * Resolves a code to its codec.
+     * @param code The numeric code.
+     * @return The codec, or null if the code is not registered.
+     */
+    public RegisteredCodec lookup(long code) {
+        Multicodec builtIn = CodecTable.lookup(code);
+        return (builtIn != null) ? RegisteredCodec.of(builtIn) : snapshot.find(code);
+    }
+
+    /**
+     * Resolves a name to its codec.
+     * @param name The name of the codec, e.g. "sha2-256".
+     * @return The codec, or null if the name is not registered.
+     */
+    public RegisteredCodec lookup(String name) {
+        Multicodec builtIn = BUILT_IN_NAMES.get(name);
+        return (builtIn != null) ? RegisteredCodec.of(builtIn) : snapshot.names.get(name);
+    }
+
+    /**
+     * Gets the custom codecs, in the order they were registered.
+     * @return an unmodifiable list of the custom codecs at the time of the call.
+     */
+    public List<RegisteredCodec> getCustomCodecs() {
+        return snapshot.codecs;
+    }
+
+    /**
+     * The immutable custom codecs of a registry: an open addressing table keyed on the code, and the names.
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(Collections.emptyList());
+
+        final List<RegisteredCodec> codecs;
+        final Map<String, RegisteredCodec> names;
+        private final long[] codes;
+        private final RegisteredCodec[] slots;
+        private final int mask;
+
+        private Snapshot(List<RegisteredCodec> codecs) {
+            this.codecs = codecs;
+            this.names = new HashMap<>();
+            //Power of two capacity of at least twice the entry count keeps the linear probe sequences short.
+            int capacity = Integer.highestOneBit(Math.max(codecs.size(), 1) * 2 - 1) << 1;
+            this.codes = new long[capacity];
+            this.slots = new RegisteredCodec[capacity];
+            this.mask = capacity - 1;
+            for (RegisteredCodec codec : codecs) {
+                names.put(codec.getName(), codec);
+                int slot = CodecTable.mix(codec.getCode()) & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                codes[slot] = codec.getCode();
+                slots[slot] = codec;
+            }
+        }
+
+        Snapshot with(RegisteredCodec codec) {
+            RegisteredCodec[] grown = codecs.toArray(new RegisteredCodec[codecs.size() + 1]);
+            grown[codecs.size()] = codec;
+            return new Snapshot(Collections.unmodifiableList(Arrays.asList(grown)));
+        }
+
+        RegisteredCodec find(long code) {
+            for (int slot = CodecTable.mix(code) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+                if (codes[slot] == code) {
+                    return slots[slot];
+                }
+            }
+            return null;
+        }
+    }
+}
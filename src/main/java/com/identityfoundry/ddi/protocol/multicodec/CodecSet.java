@@ -0,0 +1,205 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>An immutable set of the codecs a call site expects, prepared for
+ * {@link MulticodecEncoder#decode(byte[], CodecSet)}.</p>
+ * <p>Restricting a decode to the expected codecs rejects any other codec without a table lookup, and resolves the
+ * ambiguity described in {@link AmbiguousCodecEncodingException}. The leading unsigned varint is read as per the
+ * specification and used when it is the code of an expected codec.</p>
+ * <p>A set from {@link #withLegacyPrefixes()} also accepts the legacy prefixes written by
+ * {@link LegacyTranscoder#encodeLegacy(Multicodec, byte[])}. When the specification reading is not an expected codec
+ * the legacy prefixes of the expected codecs are compared, longest first. So with only <code>UDP</code> expected
+ * <code>0111A1</code> decodes as <code>UDP</code> with payload <code>A1</code>, with only <code>CIDV1</code> expected
+ * it decodes as <code>CIDV1</code> with payload <code>11A1</code>, and with both expected the specification reading,
+ * <code>CIDV1</code>, is taken. Without legacy prefixes only <code>CIDV1</code> decodes it.</p>
+ * <p>Where expected codecs share a code (e.g. <code>P2P</code> and <code>IPFS</code>) the first declared is decoded.
+ * A set is built once per distinct set of codecs and may be shared between threads, so keep it in a constant.</p>
+ */
+public final class CodecSet {
+
+    /**
+     * The most sets kept by {@link #cached(Set)}, so a caller building a new set per call cannot grow the cache
+     * without bound.
+     */
+    private static final int CACHE_LIMIT = 256;
+
+    //Codes below this, the one and two byte varints most codecs use, are resolved with a bitmask rather than a search.
+    private static final int SMALL_CODES = 0x400;
+
+    private static final ConcurrentHashMap<Set<Multicodec>, CodecSet> CACHE = new ConcurrentHashMap<>();
+
+    private static final CodecSet ALL = new CodecSet(EnumSet.allOf(Multicodec.class), false);
+
+    private final Set<Multicodec> codecs;
+    private final boolean legacyPrefixes;
+    //The codes of the set in ascending order, and the codec of each.
+    private final long[] codes;
+    private final Multicodec[] codeCodecs;
+    //A bit per small code in the set, and the number of codes of the set below each word of bits.
+    private final long[] smallCodes = new long[SMALL_CODES / 64];
+    private final int[] smallRanks = new int[SMALL_CODES / 64];
+    //The codecs of the set by decreasing legacy prefix length, or none if legacy prefixes are not accepted.
+    private final Multicodec[] legacyCodecs;
+
+    private CodecSet(EnumSet<Multicodec> codecs, boolean legacyPrefixes) {
+        this.codecs = Collections.unmodifiableSet(codecs);
+        this.legacyPrefixes = legacyPrefixes;
+
+        Multicodec[] byCode = codecs.toArray(new Multicodec[0]);
+        //Stable, so the first declared codec of a shared code sorts first.
+        Arrays.sort(byCode, (a, b) -> Integer.compare(a.codeValue, b.codeValue));
+        long[] codeValues = new long[byCode.length];
+        int distinct = 0;
+        for (Multicodec codec : byCode) {
+            if (distinct == 0 || codeValues[distinct - 1] != codec.codeValue) {
+                codeValues[distinct] = codec.codeValue;
+                byCode[distinct++] = codec;
+            }
+        }
+        this.codes = Arrays.copyOf(codeValues, distinct);
+        this.codeCodecs = Arrays.copyOf(byCode, distinct);
+        for (long code : codes) {
+            if (code < SMALL_CODES) {
+                smallCodes[(int) code >>> 6] |= 1L << code;
+            }
+        }
+        for (int word = 1; word < smallRanks.length; word++) {
+            smallRanks[word] = smallRanks[word - 1] + Long.bitCount(smallCodes[word - 1]);
+        }
+
+        this.legacyCodecs = legacyPrefixes ? codecs.toArray(new Multicodec[0]) : new Multicodec[0];
+        Arrays.sort(legacyCodecs, (a, b) -> Integer.compare(b.legacyPrefix.length, a.legacyPrefix.length));
+    }
+
+    /**
+     * Creates a set of the expected codecs.
+     * @param codecs The expected codecs.
+     * @return The codec set.
+     * @throws IllegalArgumentException if no codec is given.
+     */
+    public static CodecSet of(Set<Multicodec> codecs) {
+        if (codecs.isEmpty()) {
+            throw new IllegalArgumentException("A codec set must hold at least one codec");
+        }
+        return new CodecSet(EnumSet.copyOf(codecs), false);
+    }
+
+    /**
+     * Creates a set of the expected codecs.
+     * @param first An expected codec.
+     * @param rest The other expected codecs.
+     * @return The codec set.
+     */
+    public static CodecSet of(Multicodec first, Multicodec... rest) {
+        return new CodecSet(EnumSet.of(first, rest), false);
+    }
+
+    /**
+     * Gets the set of every codec, which decodes data as {@link MulticodecEncoder#decode(byte[])} does except that
+     * data starting with a legacy prefix is not rejected, for formats that only ever held the specification varint.
+     * @return The codec set.
+     */
+    public static CodecSet all() {
+        return ALL;
+    }
+
+    /**
+     * Gets a set of the same codecs that also accepts their legacy prefixes, for data from peers that still write
+     * them, see {@link LegacyTranscoder}.
+     * @return The codec set.
+     */
+    public CodecSet withLegacyPrefixes() {
+        return legacyPrefixes ? this : new CodecSet(EnumSet.copyOf(codecs), true);
+    }
+
+    /**
+     * Gets the set built for some codecs, without legacy prefixes, building it on first use.
+     */
+    static CodecSet cached(Set<Multicodec> codecs) {
+        CodecSet set = CACHE.get(codecs);
+        if (set == null) {
+            set = of(codecs);
+            if (CACHE.size() < CACHE_LIMIT) {
+                //Keyed on the copy, so a caller changing its set later does not change the key.
+                CodecSet raced = CACHE.putIfAbsent(set.codecs, set);
+                set = (raced != null) ? raced : set;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Gets the codecs of the set.
+     * @return an unmodifiable view of the codecs.
+     */
+    public Set<Multicodec> getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Tells whether the set accepts legacy prefixes.
+     * @return true if the set was built by {@link #withLegacyPrefixes()}.
+     */
+    public boolean isLegacyPrefixes() {
+        return legacyPrefixes;
+    }
+
+    /**
+     * Tells whether a codec is in the set.
+     * @param codec The codec.
+     * @return true if the codec is expected.
+     */
+    public boolean contains(Multicodec codec) {
+        return codecs.contains(codec);
+    }
+
+    /**
+     * Resolves a code read as a single varint.
+     * @return the codec of the set with the code, or null.
+     */
+    Multicodec byCode(long code) {
+        if (code >= 0 && code < SMALL_CODES) {
+            //The codes are ascending, so the index of a small code is the count of the set bits below its own.
+            int word = (int) code >>> 6;
+            long bits = smallCodes[word];
+            long bit = 1L << code;
+            return ((bits & bit) != 0) ? codeCodecs[smallRanks[word] + Long.bitCount(bits & (bit - 1))] : null;
+        }
+        int index = Arrays.binarySearch(codes, code);
+        return (index >= 0) ? codeCodecs[index] : null;
+    }
+
+    /**
+     * Finds the codec of the set with the longest legacy prefix starting a range of the data.
+     * @return the codec, or null if no legacy prefix of the set matches.
+     */
+    Multicodec byLegacyPrefix(byte[] source, int offset, int length) {
+        for (Multicodec codec : legacyCodecs) {
+            byte[] prefix = codec.legacyPrefix;
+            if (prefix.length <= length && startsWith(source, offset, prefix)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] source, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (source[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return legacyPrefixes ? codecs + " with legacy prefixes" : codecs.toString();
+    }
+}
@@ -2,15 +2,26 @@ package com.identityfoundry.ddi.protocol.multicodec;
 
 import com.identityfoundry.ddi.protocol.common.HexUtils;
 
+import java.util.Arrays;
+
 /**
  * <p>A bean to encapsulate decoded data and its codec.</p>
  * <p>The bean provides access to an array of bytes to express the decoded data payload.
  * The data can set/get either as a byte[] or as a hex string in such a way as the operations are consistent ways to act
  * on the same payload of data.</p>
+ * <p>A bean may be reused as the target of {@link MulticodecEncoder#decodeInto(byte[], int, int, DecodedData)}, which
+ * refers to the payload in place in the decoded array rather than copying it. The payload is then only copied if
+ * {@link #getDataAsBytes()} is called, and the hex string is only built once per payload, so a loop decoding into one
+ * bean produces no garbage. Use {@link #toView()} to keep a decoded payload beyond the next decode.</p>
  */
 public class DecodedData {
     private Multicodec codec;
+    //The payload is length bytes of source from offset. data is the payload as its own array, once there is one.
     private byte[] data;
+    private byte[] source;
+    private int offset;
+    private int length;
+    private String hex;
 
     public DecodedData() {
     }
@@ -33,26 +44,64 @@ public class DecodedData {
 
     /**
      * Gets the data as a byte array.
+     * After {@link MulticodecEncoder#decodeInto(byte[], int, int, DecodedData)} the payload is copied on the first
+     * call, and the same array is returned until the data is next set.
      * @return the data as a byte array.
      */
     public byte[] getDataAsBytes() {
+        detach();
         return data;
     }
 
+    /**
+     * Copies a payload referred to in place into an array of its own, so it no longer depends on the decoded array.
+     * Does nothing if the payload already has its own array.
+     */
+    void detach() {
+        if (data == null && source != null) {
+            data = Arrays.copyOfRange(source, offset, offset + length);
+            source = data;
+            offset = 0;
+        }
+    }
+
     /**
      * Sets the data.
      * @param data the data as a byte array.
      */
     public void setData(byte[] data) {
         this.data = data;
+        this.source = data;
+        this.offset = 0;
+        this.length = (data == null) ? 0 : data.length;
+        this.hex = null;
+    }
+
+    /**
+     * Refers to a payload in place, without copying it.
+     */
+    void setData(Multicodec codec, byte[] source, int offset, int length) {
+        this.codec = codec;
+        this.data = null;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.hex = null;
     }
 
     /**
      * Alternative method to get the data as a hex string.
+     * The string is built on the first call and kept until the data is next set, so changes made in the meantime to
+     * the array returned by {@link #getDataAsBytes()}, or to the decoded array, are not reflected.
      * @return get the data as a hex string.
      */
     public String getDataAsHex() {
-        return HexUtils.bytesToHex(this.data);
+        String result = hex;
+        if (result == null) {
+            result = (source == null) ? HexUtils.bytesToHex(data) : HexUtils.encode(source, offset, length, true);
+            hex = result;
+        }
+        return result;
     }
 
     /**
@@ -63,12 +112,61 @@ public class DecodedData {
         setData(HexUtils.hexToBytes(hexData));
     }
 
+    /**
+     * Gets the array holding the payload, which after
+     * {@link MulticodecEncoder#decodeInto(byte[], int, int, DecodedData)} is the decoded array, shared, not copied.
+     * @return the array holding the payload.
+     */
+    public byte[] getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the offset of the payload in the source array.
+     * @return the offset of the payload.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the payload.
+     * @return the length of the payload.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Copies the payload into an array.
+     * @param dest the array to copy to.
+     * @param destOffset the offset in the array to copy to.
+     * @return the offset in the array after the payload.
+     */
+    public int copyData(byte[] dest, int destOffset) {
+        System.arraycopy(source, offset, dest, destOffset, length);
+        return destOffset + length;
+    }
+
+    /**
+     * Copies the codec and payload into an immutable view, which may be kept after this bean is reused.
+     * @return a view over its own copy of the payload, which is empty if no data is set.
+     * @throws IllegalStateException if no codec is set.
+     */
+    public DecodedView toView() {
+        if (codec == null) {
+            throw new IllegalStateException("No codec is set");
+        }
+        byte[] payload = (source == null) ? new byte[0] : Arrays.copyOfRange(source, offset, offset + length);
+        return new DecodedView(codec, payload, 0, length);
+    }
+
     /**
      * Determines if this object is populated with non-null information.
      * @return true, if this object is populated with non-null information.
      */
     public boolean isSet() {
-        return (getCodec() != null) && (getDataAsBytes() != null && getDataAsBytes().length > 0);
+        return (getCodec() != null) && length > 0;
 
     }
 }
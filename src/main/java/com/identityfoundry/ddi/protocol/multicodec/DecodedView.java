@@ -0,0 +1,178 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>An immutable view of decoded data and its codec.</p>
+ * <p>Unlike {@link DecodedData} the view does not hold its own copy of the payload. It refers to the payload in place,
+ * as an offset and length into the array that was decoded, and the payload is only copied on request.
+ * Changes to the underlying array are therefore visible through the view.</p>
+ * <p>Views are compared by value: two views are equal when they have the same codec and payload bytes, wherever the
+ * payloads are held. The comparison and the hash code read the underlying array each time, so a view over an array
+ * that is later changed or reused changes its hash code, and is lost if held in a hash based collection. Use
+ * {@link #copy()} for a view that can be kept, or used as a key, while the underlying array is reused.</p>
+ */
+public final class DecodedView {
+    private final Multicodec codec;
+    private final RegisteredCodec registered;
+    private final byte[] source;
+    private final int offset;
+    private final int length;
+
+    DecodedView(Multicodec codec, byte[] source, int offset, int length) {
+        this(RegisteredCodec.of(codec), source, offset, length);
+    }
+
+    DecodedView(RegisteredCodec registered, byte[] source, int offset, int length) {
+        this.codec = registered.getMulticodec();
+        this.registered = registered;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets the Multicodec value of the data.
+     * @return the Multicodec value of the data, or null if the data was decoded with a custom codec of a
+     * {@link CodecRegistry}.
+     */
+    public Multicodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the codec of the data, which may be a custom codec when decoded with a {@link CodecRegistry}.
+     * @return the codec of the data.
+     */
+    public RegisteredCodec getRegisteredCodec() {
+        return registered;
+    }
+
+    /**
+     * Gets the array holding the payload. The array is shared, not copied.
+     * @return the array holding the payload.
+     */
+    public byte[] getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the offset of the payload in the source array.
+     * @return the offset of the payload.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the payload.
+     * @return the length of the payload.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Gets a byte of the payload.
+     * @param index the index of the byte within the payload.
+     * @return the byte.
+     */
+    public byte byteAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return source[offset + index];
+    }
+
+    /**
+     * Gets a read-only buffer over the payload, sharing the source array.
+     * @return a read-only buffer whose position is 0 and limit is the payload length.
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return ByteBuffer.wrap(source, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Copies the payload into a new array.
+     * @return a copy of the payload.
+     */
+    public byte[] copyData() {
+        return Arrays.copyOfRange(source, offset, offset + length);
+    }
+
+    /**
+     * Copies the payload into an array.
+     * @param dest the array to copy to.
+     * @param destOffset the offset in the array to copy to.
+     * @return the offset in the array after the payload.
+     */
+    public int copyData(byte[] dest, int destOffset) {
+        System.arraycopy(source, offset, dest, destOffset, length);
+        return destOffset + length;
+    }
+
+    /**
+     * Gets the payload as a hex string.
+     * @return the payload as a hex string.
+     */
+    public String getDataAsHex() {
+        return HexUtils.bytesToHex(copyData());
+    }
+
+    /**
+     * Copies the payload into a view of its own, unaffected by later changes to the underlying array.
+     * @return a view over a copy of the payload.
+     */
+    public DecodedView copy() {
+        return new DecodedView(registered, copyData(), 0, length);
+    }
+
+    /**
+     * Compares the codec and the current payload bytes, see the note on value semantics above.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DecodedView)) {
+            return false;
+        }
+        DecodedView other = (DecodedView) o;
+        if (registered != other.registered || length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (source[offset + i] != other.source[other.offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the codec and the current payload bytes, so the hash changes if the underlying array does.
+     */
+    @Override
+    public int hashCode() {
+        int hash = registered.hashCode();
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + source[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Copies the view into a DecodedData.
+     * @return a DecodedData holding a copy of the payload, whose codec is not set for a custom codec.
+     */
+    public DecodedData toDecodedData() {
+        DecodedData data = new DecodedData();
+        data.setCodec(codec);
+        data.setData(copyData());
+        return data;
+    }
+}
@@ -0,0 +1,283 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * <p>A byte level trie over the legacy codec prefixes written by earlier releases of
+ * {@link MulticodecEncoder#encode(Multicodec, byte[])}, and now by {@link LegacyTranscoder#encodeLegacy(Multicodec, byte[])},
+ * where each byte of a multibyte code is unsigned varint encoded separately (e.g. <code>0xB3D7</code> is written as
+ * <code>varint(0xB3) varint(0xD7)</code>, i.e. <code>B301D701</code>).</p>
+ * <p>A single walk over the leading bytes of the data reports every codec whose legacy prefix matches, so the longest
+ * match and all the ambiguous shorter candidates are found in one pass.
+ * Refer to: {@link AmbiguousCodecEncodingException} for more information on the ambiguity.</p>
+ */
+public final class LegacyPrefixTrie {
+
+    /**
+     * The length of the longest legacy prefix.
+     */
+    static final int MAX_DEPTH;
+
+    //The root is indexed directly by the first byte, deeper nodes hold a sorted run of child labels.
+    private static final int[] ROOT = new int[256];
+    private static final int[] FIRST_CHILD;
+    private static final int[] CHILD_COUNT;
+    private static final byte[] LABEL;
+    private static final Multicodec[][] TERMINAL;
+    //Whether a node ends the legacy prefix of a multibyte code, which differs from its prefix, and whether any node
+    //from it down does.
+    private static final boolean[] CHANGED;
+    private static final boolean[] CHANGED_BELOW;
+
+    static {
+        Node root = new Node();
+        int maxDepth = 0;
+        for (Multicodec codec : Multicodec.values()) {
+            Node node = root;
+            for (byte b : codec.legacyPrefix) {
+                node = node.children.computeIfAbsent(Byte.toUnsignedInt(b), k -> new Node());
+            }
+            node.codecs.add(codec);
+            maxDepth = Math.max(maxDepth, codec.legacyPrefix.length);
+        }
+        MAX_DEPTH = maxDepth;
+
+        //Flatten the trie breadth first so the children of a node sit in one contiguous run.
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int n = 0; n < nodes.size(); n++) {
+            Node node = nodes.get(n);
+            node.firstChild = nodes.size();
+            nodes.addAll(node.children.values());
+        }
+
+        int count = nodes.size();
+        FIRST_CHILD = new int[count];
+        CHILD_COUNT = new int[count];
+        LABEL = new byte[count];
+        TERMINAL = new Multicodec[count][];
+        CHANGED = new boolean[count];
+        CHANGED_BELOW = new boolean[count];
+        for (int n = 0; n < count; n++) {
+            Node node = nodes.get(n);
+            FIRST_CHILD[n] = node.firstChild;
+            CHILD_COUNT[n] = node.children.size();
+            TERMINAL[n] = node.codecs.isEmpty() ? null : node.codecs.toArray(new Multicodec[0]);
+            int child = node.firstChild;
+            for (Integer label : node.children.keySet()) {
+                LABEL[child++] = (byte) label.intValue();
+            }
+            for (Multicodec codec : node.codecs) {
+                CHANGED[n] |= !Arrays.equals(codec.legacyPrefix, codec.prefix);
+            }
+        }
+        //Children follow their parent, so walking back reaches every child before its parent.
+        for (int n = count - 1; n >= 0; n--) {
+            CHANGED_BELOW[n] |= CHANGED[n];
+            for (int c = FIRST_CHILD[n]; c < FIRST_CHILD[n] + CHILD_COUNT[n]; c++) {
+                CHANGED_BELOW[n] |= CHANGED_BELOW[c];
+            }
+        }
+        Arrays.fill(ROOT, -1);
+        for (int c = FIRST_CHILD[0]; c < FIRST_CHILD[0] + CHILD_COUNT[0]; c++) {
+            ROOT[Byte.toUnsignedInt(LABEL[c])] = c;
+        }
+    }
+
+    private LegacyPrefixTrie() {}
+
+    /**
+     * Matches the legacy codec prefixes against the start of the data.
+     * @param data The legacy multicodec encoded data.
+     * @return The match, which is empty if no legacy prefix matches.
+     */
+    public static Match match(byte[] data) {
+        return match(data, 0, data.length);
+    }
+
+    /**
+     * Matches the legacy codec prefixes against the start of a range of the data.
+     * @param data The array holding the legacy multicodec encoded data.
+     * @param offset The offset of the encoded data in the array.
+     * @param length The length of the encoded data.
+     * @return The match, which is empty if no legacy prefix matches.
+     */
+    public static Match match(byte[] data, int offset, int length) {
+        Multicodec[][] codecs = new Multicodec[MAX_DEPTH][];
+        int[] prefixLengths = new int[MAX_DEPTH];
+        int found = 0;
+
+        int end = offset + Math.min(length, MAX_DEPTH);
+        int node = (length > 0) ? ROOT[Byte.toUnsignedInt(data[offset])] : -1;
+        int i = offset + 1;
+        while (node >= 0) {
+            if (TERMINAL[node] != null) {
+                codecs[found] = TERMINAL[node];
+                prefixLengths[found++] = i - offset;
+            }
+            node = (i < end) ? child(node, data[i++]) : -1;
+        }
+        return new Match(codecs, prefixLengths, found);
+    }
+
+    /**
+     * Finds the longest legacy prefix at the start of a range that differs from the prefix of its codec, as the
+     * legacy prefixes of multibyte codes do, without allocating.
+     * @param data The array holding the encoded data.
+     * @param offset The offset of the encoded data in the array.
+     * @param length The length of the encoded data.
+     * @return The length of the prefix, or 0 if none matches.
+     */
+    static int longestChangedPrefix(byte[] data, int offset, int length) {
+        int longest = 0;
+        int end = offset + Math.min(length, MAX_DEPTH);
+        int node = (length > 0) ? ROOT[Byte.toUnsignedInt(data[offset])] : -1;
+        int i = offset + 1;
+        while (node >= 0 && CHANGED_BELOW[node]) {
+            if (CHANGED[node]) {
+                longest = i - offset;
+            }
+            node = (i < end) ? child(node, data[i++]) : -1;
+        }
+        return longest;
+    }
+
+    /**
+     * @see #longestChangedPrefix(byte[], int, int)
+     * @param data The buffer holding the encoded data, which is read from its position to its limit.
+     */
+    static int longestChangedPrefix(ByteBuffer data) {
+        int longest = 0;
+        int offset = data.position();
+        int end = offset + Math.min(data.remaining(), MAX_DEPTH);
+        int node = data.hasRemaining() ? ROOT[Byte.toUnsignedInt(data.get(offset))] : -1;
+        int i = offset + 1;
+        while (node >= 0 && CHANGED_BELOW[node]) {
+            if (CHANGED[node]) {
+                longest = i - offset;
+            }
+            node = (i < end) ? child(node, data.get(i++)) : -1;
+        }
+        return longest;
+    }
+
+    private static int child(int node, byte label) {
+        for (int c = FIRST_CHILD[node], last = c + CHILD_COUNT[node]; c < last; c++) {
+            if (LABEL[c] == label) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The codecs whose legacy prefix matches the start of some data, ordered from the shortest to the longest prefix.
+     */
+    public static final class Match {
+        private final Multicodec[][] codecs;
+        private final int[] prefixLengths;
+        private final int count;
+
+        private Match(Multicodec[][] codecs, int[] prefixLengths, int count) {
+            this.codecs = codecs;
+            this.prefixLengths = prefixLengths;
+            this.count = count;
+        }
+
+        /**
+         * Determines if any legacy prefix matched.
+         * @return true, if at least one legacy prefix matched.
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * Determines if more than one distinct code matched, i.e. the data cannot be decoded unambiguously.
+         * @return true, if prefixes of different lengths matched.
+         */
+        public boolean isAmbiguous() {
+            return count > 1;
+        }
+
+        /**
+         * Gets the codec with the longest matching legacy prefix.
+         * @return the codec with the longest matching legacy prefix, or null if nothing matched.
+         */
+        public Multicodec longest() {
+            return (count == 0) ? null : codecs[count - 1][0];
+        }
+
+        /**
+         * Gets the length in bytes of the longest matching legacy prefix.
+         * @return the length of the longest matching legacy prefix, or 0 if nothing matched.
+         */
+        public int longestPrefixLength() {
+            return (count == 0) ? 0 : prefixLengths[count - 1];
+        }
+
+        /**
+         * Gets the number of distinct matching prefixes.
+         * @return the number of distinct matching prefixes.
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Gets the first declared codec for the i'th matching prefix.
+         * @param i the index of the prefix, from the shortest to the longest.
+         * @return the codec.
+         */
+        public Multicodec codec(int i) {
+            return codecs(i).get(0);
+        }
+
+        /**
+         * Gets every codec sharing the i'th matching prefix (e.g. <code>P2P</code> and <code>IPFS</code>).
+         * @param i the index of the prefix, from the shortest to the longest.
+         * @return the codecs.
+         */
+        public List<Multicodec> codecs(int i) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Match index: " + i + ", size: " + count);
+            }
+            return Collections.unmodifiableList(Arrays.asList(codecs[i]));
+        }
+
+        /**
+         * Gets the length in bytes of the i'th matching prefix.
+         * @param i the index of the prefix, from the shortest to the longest.
+         * @return the prefix length.
+         */
+        public int prefixLength(int i) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Match index: " + i + ", size: " + count);
+            }
+            return prefixLengths[i];
+        }
+
+        /**
+         * Gets all the matching codecs, from the shortest to the longest prefix.
+         * @return the matching codecs.
+         */
+        public List<Multicodec> candidates() {
+            List<Multicodec> candidates = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Collections.addAll(candidates, codecs[i]);
+            }
+            return candidates;
+        }
+    }
+
+    private static final class Node {
+        private final TreeMap<Integer, Node> children = new TreeMap<>();
+        private final List<Multicodec> codecs = new ArrayList<>(1);
+        private int firstChild;
+    }
+}
@@ -0,0 +1,151 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Rewrites legacy records, as written by earlier releases of {@link MulticodecEncoder#encode(Multicodec, byte[])}
+ * where each byte of a multibyte code is varint encoded separately, into the specification encoding where the whole
+ * code is a single unsigned varint. {@link #encodeLegacy(Multicodec, byte[])} still writes the legacy encoding, for
+ * peers that have not moved to the specification encoding.</p>
+ * <p>For example the legacy <code>SKEIN1024_952</code> record <code>B301D701...</code> is rewritten as
+ * <code>D7E702...</code>. Single byte codes are encoded the same way in both forms.</p>
+ * <p>The legacy prefixes are resolved with the {@link LegacyPrefixTrie}. Since a legacy prefix can be ambiguous
+ * (refer to: {@link AmbiguousCodecEncodingException}) an {@link AmbiguityPolicy} chooses between the candidates.</p>
+ */
+public final class LegacyTranscoder {
+
+    /**
+     * How to choose between codecs when more than one legacy prefix matches a record.
+     */
+    public enum AmbiguityPolicy {
+        /**
+         * Use the codec with the longest matching prefix.
+         */
+        LONGEST_MATCH,
+        /**
+         * Use the codec with the shortest matching prefix, as earlier releases of {@link MulticodecEncoder#decode(byte[])}
+         * did.
+         */
+        SHORTEST_MATCH,
+        /**
+         * Reject the record with an {@link AmbiguousCodecEncodingException}.
+         */
+        REJECT
+    }
+
+    //Several batches per worker thread evens out records of very different sizes.
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private LegacyTranscoder() {}
+
+    /**
+     * Encodes the byte array of data for the multicodec type with the legacy prefix, where each byte of the code is
+     * unsigned varint encoded in turn. For a multibyte code this differs from, and cannot be read back by,
+     * {@link MulticodecEncoder#decode(byte[])}; use {@link #transcode(byte[], AmbiguityPolicy)} to read it.
+     * @param multicodec The Multicodec enum to encode with.
+     * @param data The bytes of data to encode.
+     * @return The legacy multicodec encoding of the input bytes.
+     */
+    public static byte[] encodeLegacy(Multicodec multicodec, byte[] data) {
+        byte[] prefix = multicodec.legacyPrefix;
+        byte[] encoding = new byte[prefix.length + data.length];
+        System.arraycopy(prefix, 0, encoding, 0, prefix.length);
+        System.arraycopy(data, 0, encoding, prefix.length, data.length);
+        return encoding;
+    }
+
+    /**
+     * Rewrites a legacy encoded record into the specification encoding.
+     * @param legacyRecord The record encoded with a per-byte varint prefix.
+     * @param policy How to choose between ambiguous legacy prefixes.
+     * @return The record encoded with a single varint prefix.
+     * @throws AmbiguousCodecEncodingException if no legacy prefix matches, or the policy rejects an ambiguous match.
+     */
+    public static byte[] transcode(byte[] legacyRecord, AmbiguityPolicy policy) throws AmbiguousCodecEncodingException {
+        LegacyPrefixTrie.Match match = LegacyPrefixTrie.match(legacyRecord);
+        if (match.isEmpty() || (match.isAmbiguous() && policy == AmbiguityPolicy.REJECT)) {
+            throw new AmbiguousCodecEncodingException("Could not transcode:" + HexUtils.bytesToHex(legacyRecord));
+        }
+        int candidate = (policy == AmbiguityPolicy.SHORTEST_MATCH) ? 0 : match.size() - 1;
+        int legacyPrefixLength = match.prefixLength(candidate);
+        long code = match.codec(candidate).codeValue;
+
+        int payloadLength = legacyRecord.length - legacyPrefixLength;
+        byte[] specRecord = new byte[VarInt.varIntSize(code) + payloadLength];
+        int i = VarInt.writeUnsignedVarLong(code, specRecord, 0);
+        System.arraycopy(legacyRecord, legacyPrefixLength, specRecord, i, payloadLength);
+        return specRecord;
+    }
+
+    /**
+     * Rewrites many legacy encoded records into the specification encoding, spread over the common fork join pool.
+     * @param legacyRecords The records encoded with a per-byte varint prefix.
+     * @param policy How to choose between ambiguous legacy prefixes.
+     * @return The records encoded with a single varint prefix, in the same order as the input.
+     * @throws AmbiguousCodecEncodingException if a record cannot be transcoded, naming the first such record.
+     * @throws InterruptedException if interrupted while waiting for the records.
+     * @see #transcodeAll(byte[][], AmbiguityPolicy, ExecutorService)
+     */
+    public static byte[][] transcodeAll(byte[][] legacyRecords, AmbiguityPolicy policy) throws AmbiguousCodecEncodingException, InterruptedException {
+        return transcodeAll(legacyRecords, policy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Rewrites many legacy encoded records into the specification encoding, spread over an executor.
+     * The executor is not shut down, so one executor can serve many calls.
+     * @param legacyRecords The records encoded with a per-byte varint prefix.
+     * @param policy How to choose between ambiguous legacy prefixes.
+     * @param executor The executor to transcode with.
+     * @return The records encoded with a single varint prefix, in the same order as the input.
+     * @throws AmbiguousCodecEncodingException if a record cannot be transcoded, naming the first such record.
+     * @throws InterruptedException if interrupted while waiting for the records.
+     */
+    public static byte[][] transcodeAll(byte[][] legacyRecords, AmbiguityPolicy policy, ExecutorService executor)
+            throws AmbiguousCodecEncodingException, InterruptedException {
+        byte[][] specRecords = new byte[legacyRecords.length][];
+        int batches = Math.max(1, Math.min(legacyRecords.length, Runtime.getRuntime().availableProcessors() * BATCHES_PER_THREAD));
+        int batchSize = (legacyRecords.length + batches - 1) / batches;
+
+        //Each batch stops at its first failure and returns its index, or -1 if every record was transcoded.
+        List<Future<Integer>> futures = new ArrayList<>(batches);
+        for (int start = 0; start < legacyRecords.length; start += batchSize) {
+            final int from = start;
+            final int to = Math.min(start + batchSize, legacyRecords.length);
+            futures.add(executor.submit(() -> {
+                for (int r = from; r < to; r++) {
+                    try {
+                        specRecords[r] = transcode(legacyRecords[r], policy);
+                    } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+                        return r;
+                    }
+                }
+                return -1;
+            }));
+        }
+        try {
+            //The batches are in record order, so the first failure found is the first failing record.
+            for (Future<Integer> future : futures) {
+                int failed = future.get();
+                if (failed >= 0) {
+                    throw new AmbiguousCodecEncodingException("Could not transcode record at index:" + failed
+                            + " " + HexUtils.bytesToHex(legacyRecords[failed]));
+                }
+            }
+        } catch (ExecutionException exExecution) {
+            throw new IllegalStateException("Unexpected error on transcode: " + exExecution.getCause().getMessage(), exExecution.getCause());
+        } finally {
+            for (Future<Integer> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return specRecords;
+    }
+}
@@ -0,0 +1,224 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Encodes many payloads into one contiguous buffer, returning an index of where each record ends.</p>
+ * <p>The returned index has one more element than there are payloads: <code>offsets[0]</code> is the offset the batch
+ * was written at and <code>offsets[i + 1]</code> is the offset just past record <code>i</code>.</p>
+ * <p>In the plain layout record <code>i</code> is <code>[offsets[i], offsets[i + 1])</code> and is exactly what
+ * {@link MulticodecEncoder#encode(Multicodec, byte[])} produces for the payload: the code as a single unsigned varint
+ * followed by the payload.</p>
+ * <p>In the packed layout a run of consecutive payloads with the same codec shares one header,
+ * <code>&lt;varint run length&gt;&lt;varint code&gt;</code>, written in front of the first payload of the run, and the
+ * other payloads of the run are written without any prefix. The code in the header is a single unsigned varint as per
+ * the multicodec specification, so the header is never ambiguous. Packed batches are read back with
+ * {@link #decode(byte[], int[], boolean)}.</p>
+ * <p>Payloads may be empty in either layout. As the index gives the end of every record, an empty payload is not
+ * ambiguous and decodes to an empty view.</p>
+ */
+public final class MulticodecBatchEncoder {
+
+    private MulticodecBatchEncoder() {}
+
+    /**
+     * Calculates the length of the encoding of a batch, so a destination can be sized exactly.
+     * @param codecs The codec of each payload.
+     * @param payloads The payloads.
+     * @param packed true, for the packed layout.
+     * @return The length in bytes of the encoded batch.
+     */
+    public static int encodedLength(Multicodec[] codecs, byte[][] payloads, boolean packed) {
+        checkBatch(codecs, payloads);
+        long length = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            length += payloads[i].length;
+            if (!packed) {
+                length += codecs[i].prefix.length;
+            } else if (i == 0 || codecs[i] != codecs[i - 1]) {
+                length += VarInt.varIntSize(runLength(codecs, i)) + VarInt.varIntSize(codecs[i].codeValue);
+            }
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch is too large for one buffer: " + length + " bytes");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Encodes a batch of payloads with the same codec into an array.
+     * @param codec The codec of every payload.
+     * @param payloads The payloads.
+     * @param dest The array to write to, of at least {@link #encodedLength(Multicodec[], byte[][], boolean)} bytes
+     * from destOffset.
+     * @param destOffset The offset in the array to write at.
+     * @param packed true, for the packed layout.
+     * @return The offset index of the records.
+     */
+    public static int[] encode(Multicodec codec, byte[][] payloads, byte[] dest, int destOffset, boolean packed) {
+        Multicodec[] codecs = new Multicodec[payloads.length];
+        Arrays.fill(codecs, codec);
+        return encode(codecs, payloads, dest, destOffset, packed);
+    }
+
+    /**
+     * Encodes a batch of payloads into an array.
+     * @param codecs The codec of each payload.
+     * @param payloads The payloads.
+     * @param dest The array to write to, of at least {@link #encodedLength(Multicodec[], byte[][], boolean)} bytes
+     * from destOffset.
+     * @param destOffset The offset in the array to write at.
+     * @param packed true, for the packed layout.
+     * @return The offset index of the records.
+     * @throws IndexOutOfBoundsException if the array is too small, in which case nothing is written.
+     */
+    public static int[] encode(Multicodec[] codecs, byte[][] payloads, byte[] dest, int destOffset, boolean packed) {
+        int length = encodedLength(codecs, payloads, packed);
+        if (destOffset < 0 || destOffset > dest.length - length) {
+            throw new IndexOutOfBoundsException("Batch of " + length + " bytes does not fit at offset " + destOffset + " of " + dest.length);
+        }
+
+        int[] offsets = new int[payloads.length + 1];
+        int pos = destOffset;
+        offsets[0] = pos;
+        for (int i = 0; i < payloads.length; i++) {
+            Multicodec codec = codecs[i];
+            if (!packed) {
+                System.arraycopy(codec.prefix, 0, dest, pos, codec.prefix.length);
+                pos += codec.prefix.length;
+            } else if (i == 0 || codec != codecs[i - 1]) {
+                pos = VarInt.writeUnsignedVarLong(runLength(codecs, i), dest, pos);
+                pos = VarInt.writeUnsignedVarLong(codec.codeValue, dest, pos);
+            }
+            System.arraycopy(payloads[i], 0, dest, pos, payloads[i].length);
+            pos += payloads[i].length;
+            offsets[i + 1] = pos;
+        }
+        return offsets;
+    }
+
+    /**
+     * Encodes a batch of payloads into a buffer, which may be a direct buffer.
+     * @param codecs The codec of each payload.
+     * @param payloads The payloads.
+     * @param dest The buffer to write to, its position is advanced past the batch.
+     * @param packed true, for the packed layout.
+     * @return The offset index of the records, as absolute indexes into the buffer.
+     * @throws BufferOverflowException if the buffer is too small, in which case nothing is written.
+     */
+    public static int[] encode(Multicodec[] codecs, byte[][] payloads, ByteBuffer dest, boolean packed) {
+        int length = encodedLength(codecs, payloads, packed);
+        if (dest.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (dest.hasArray()) {
+            int[] offsets = encode(codecs, payloads, dest.array(), dest.arrayOffset() + dest.position(), packed);
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] -= dest.arrayOffset();
+            }
+            ((Buffer) dest).position(dest.position() + length);
+            return offsets;
+        }
+
+        int[] offsets = new int[payloads.length + 1];
+        offsets[0] = dest.position();
+        byte[] header = new byte[20];
+        for (int i = 0; i < payloads.length; i++) {
+            Multicodec codec = codecs[i];
+            if (!packed) {
+                dest.put(codec.prefix);
+            } else if (i == 0 || codec != codecs[i - 1]) {
+                int headerLength = VarInt.writeUnsignedVarLong(runLength(codecs, i), header, 0);
+                headerLength = VarInt.writeUnsignedVarLong(codec.codeValue, header, headerLength);
+                dest.put(header, 0, headerLength);
+            }
+            dest.put(payloads[i]);
+            offsets[i + 1] = dest.position();
+        }
+        return offsets;
+    }
+
+    /**
+     * Decodes a batch written by one of the encode methods, without copying the payloads.
+     * @param buffer The array holding the batch.
+     * @param offsets The offset index returned when the batch was encoded.
+     * @param packed true, if the batch was written in the packed layout.
+     * @return The views of the records, referring to the payloads in place in the buffer.
+     * @throws AmbiguousCodecEncodingException if a codec cannot be decoded.
+     */
+    public static DecodedView[] decode(byte[] buffer, int[] offsets, boolean packed) throws AmbiguousCodecEncodingException {
+        DecodedView[] views = new DecodedView[offsets.length - 1];
+        if (!packed) {
+            for (int i = 0; i < views.length; i++) {
+                views[i] = decodeRecord(buffer, offsets[i], offsets[i + 1]);
+            }
+            return views;
+        }
+
+        int i = 0;
+        while (i < views.length) {
+            //Read the run header ...
+            int pos = offsets[i];
+            long runLength;
+            long code;
+            try {
+                runLength = VarInt.readUnsignedVarLong(buffer, pos, offsets[i + 1]);
+                pos += VarInt.varIntSize(runLength);
+                code = VarInt.readUnsignedVarLong(buffer, pos, offsets[i + 1]);
+                pos += VarInt.varIntSize(code);
+            } catch (IndexOutOfBoundsException | IllegalArgumentException exMalformed) {
+                throw new AmbiguousCodecEncodingException("Could not decode batch run header at offset:" + offsets[i]);
+            }
+            Multicodec codec = CodecTable.lookup(code);
+            if (codec == null || runLength < 1 || runLength > views.length - i) {
+                throw new AmbiguousCodecEncodingException("Could not decode batch run header at offset:" + offsets[i]);
+            }
+
+            // ... then the payloads of the run.
+            views[i] = new DecodedView(codec, buffer, pos, offsets[i + 1] - pos);
+            for (int last = i + (int) runLength, r = i + 1; r < last; r++) {
+                views[r] = new DecodedView(codec, buffer, offsets[r], offsets[r + 1] - offsets[r]);
+            }
+            i += (int) runLength;
+        }
+        return views;
+    }
+
+    /**
+     * Decodes a record of the plain layout, which unlike {@link MulticodecEncoder#decodeView(byte[], int, int)}
+     * accepts an empty payload, as the packed layout does.
+     */
+    private static DecodedView decodeRecord(byte[] buffer, int start, int end) throws AmbiguousCodecEncodingException {
+        long code;
+        try {
+            code = VarInt.readUnsignedVarLong(buffer, start, end);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException exMalformed) {
+            throw new AmbiguousCodecEncodingException("Could not decode batch record at offset:" + start);
+        }
+        Multicodec codec = CodecTable.lookup(code);
+        if (codec == null) {
+            throw new AmbiguousCodecEncodingException("Could not decode batch record at offset:" + start);
+        }
+        int pos = start + VarInt.varIntSize(code);
+        return new DecodedView(codec, buffer, pos, end - pos);
+    }
+
+    private static void checkBatch(Multicodec[] codecs, byte[][] payloads) {
+        if (codecs.length != payloads.length) {
+            throw new IllegalArgumentException("There are " + codecs.length + " codecs for " + payloads.length + " payloads");
+        }
+    }
+
+    private static int runLength(Multicodec[] codecs, int start) {
+        int end = start + 1;
+        while (end < codecs.length && codecs[end] == codecs[start]) {
+            end++;
+        }
+        return end - start;
+    }
+}
@@ -2,10 +2,13 @@ package com.identityfoundry.ddi.protocol.multicodec;
 
 import com.identityfoundry.ddi.protocol.common.HexUtils;
 import com.identityfoundry.ddi.protocol.common.VarInt;
-import org.apache.commons.lang3.StringUtils;
+import com.identityfoundry.ddi.protocol.common.VarIntSwar;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
 
 /**
  * <p>Multicodec is part of the Multiformats collection of protocols.</p>
@@ -35,38 +38,90 @@ public class MulticodecEncoder {
      *
      */
     public static byte[] encode(Multicodec multicodec, byte[] data) {
+        byte[] encoding = new byte[encodedLength(multicodec, data.length)];
+        encodeInto(multicodec, data, 0, data.length, encoding, 0);
+        return encoding;
+    }
 
-        //Get the multicodec prefix of the encoding type as an array as some codes use multibyte prefixes.
-        byte[] multicodecBytes = HexUtils.hexToBytes(multicodec.code);
-
-        //Create a byte array pre-pended with the multicodec prefix for the multicodecType
-        //Taking care that the multicodec prefix must be unsigned varint encoded...
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-
-            //As per multicodec spec, perform unsigned varint encoding of each byte of the multicodec prefix
-            for (byte b : multicodecBytes) {
-                byteArrayOutputStream.write(VarInt.writeUnsignedVarInt(Byte.toUnsignedInt(b)));
-            }
+    /**
+     * Calculates the length of the multicodec encoding of some data.
+     * @param multicodec The Multicodec enum to encode with.
+     * @param payloadLength The length of the data to encode.
+     * @return The length of the multicodec encoding of the data.
+     */
+    public static int encodedLength(Multicodec multicodec, int payloadLength) {
+        return multicodec.prefix.length + payloadLength;
+    }
 
-            //Append the data bytes
-            byteArrayOutputStream.write(data);
-            return byteArrayOutputStream.toByteArray();
+    /**
+     * Encodes a range of an array of data for the multicodec type into another array, without allocating.
+     * The encoding is the same as {@link #encode(Multicodec, byte[])}.
+     * @param multicodec The Multicodec enum to encode with.
+     * @param src The array holding the data to encode.
+     * @param srcOffset The offset of the data in the array.
+     * @param length The length of the data.
+     * @param dest The array to write the encoding to, with at least {@link #encodedLength(Multicodec, int)} bytes
+     * from destOffset.
+     * @param destOffset The offset in the array to write the encoding at.
+     * @return The offset in dest just past the encoding.
+     * @throws IndexOutOfBoundsException if either range is out of bounds, in which case nothing is written.
+     */
+    public static int encodeInto(Multicodec multicodec, byte[] src, int srcOffset, int length, byte[] dest, int destOffset) {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        byte[] prefix = multicodec.prefix;
+        if (srcOffset < 0 || length < 0 || srcOffset > src.length - length
+                || destOffset < 0 || destOffset > dest.length - prefix.length - length) {
+            throw new IndexOutOfBoundsException("Cannot encode " + length + " bytes from offset " + srcOffset + " into offset " + destOffset);
+        }
+        //The prefix is pre-computed per codec as the unsigned varint encoding of the code.
+        System.arraycopy(prefix, 0, dest, destOffset, prefix.length);
+        System.arraycopy(src, srcOffset, dest, destOffset + prefix.length, length);
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordEncode(multicodec, length, start);
+        }
+        return destOffset + prefix.length + length;
+    }
 
-        } catch (IOException exIO) {
-            System.err.println("Unexpected error on multicodec encode: " + exIO.getMessage());
-            return null;
+    /**
+     * Encodes the remaining bytes of a buffer for the multicodec type into another buffer.
+     * The prefix is the same as written by {@link #encode(Multicodec, byte[])}. Either buffer may be a direct buffer.
+     * @param multicodec The Multicodec enum to encode with.
+     * @param src The buffer holding the data to encode, its position is advanced to its limit.
+     * @param dst The buffer to write the encoding to, its position is advanced past the encoding.
+     * @throws BufferOverflowException if dst does not have room for the encoding, in which case neither buffer is
+     * changed.
+     */
+    public static void encode(Multicodec multicodec, ByteBuffer src, ByteBuffer dst) {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        int length = src.remaining();
+        if (dst.remaining() < encodedLength(multicodec, length)) {
+            throw new BufferOverflowException();
+        }
+        dst.put(multicodec.prefix);
+        dst.put(src);
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordEncode(multicodec, length, start);
         }
     }
 
     /**
      * Decodes a multicodec encoded byte array.<br/>
      * <br/>
-     * <b>Assumption: The decoding only supports single byte codec codes. </b></br>
-     * Some codec codes are multibyte values and these cannot be distinguished from single byte codec codes </br>
-     * when the data follows.
+     * The codec code is read as the leading unsigned varint of the data, as per the multicodec specification, and
+     * is resolved to its {@link Multicodec} with a direct table lookup. This is the prefix written by
+     * {@link #encode(Multicodec, byte[])}, so every codec encoded by it decodes back to the same codec, single and
+     * multibyte codes alike.
      * <br/>
      * <br/>
-     * Consider this encoding of sample data 'A1E9D3D8EC'<br/>
+     * Earlier releases varint encoded each byte of a multibyte code separately, as
+     * {@link LegacyTranscoder#encodeLegacy(Multicodec, byte[])} still does. That legacy encoding is ambiguous and is
+     * not read by this method: data starting with the legacy prefix of a multibyte code, such as <code>0111</code> for
+     * udp or <code>1200</code> for p256-pub, is rejected rather than read as the codec of its first byte. Rewrite such
+     * data with {@link LegacyTranscoder#transcode(byte[], LegacyTranscoder.AmbiguityPolicy)}. Data written by this
+     * release can start with the same bytes, e.g. sha2-256 with a payload starting <code>00</code>, so formats that
+     * never held legacy prefixes are read with {@link #decode(byte[], CodecSet)} and {@link CodecSet#all()}, which do
+     * not check for them.
+     * Consider the legacy encoding of sample data 'A1E9D3D8EC'<br/>
      *<pre>
      * 1. cidv1 encoding starts with 0x10.
      *    - therefore sample encoding hex data is: 01A1E9D3D8EC
@@ -81,33 +136,342 @@ public class MulticodecEncoder {
      * </ol>
      *
      * <p>
-     * This suggests an issue in the multi codec specification for codec prefixes greater than 1 byte.
-     * They cannot be 1:1 unambiguously mapped between each other.
+     * Written as a single varint, as per the specification, the udp code is <code>9102</code> and there is no clash.
      * <br/>
      * @param multicodecEncodedData The multicodec encoded data
      * @return The DecodedData object
      */
     public static DecodedData decode(byte[] multicodecEncodedData) throws AmbiguousCodecEncodingException {
 
-        DecodedData data = new DecodedData();
-        //No clever shortcuts - we simply loop over the set of the codecs and find a match at the start of the string.
-        //Remembering that the codec at the start will be unsigned varint encoded ...
-        String multicodecEncodedDataHex = HexUtils.bytesToHex(multicodecEncodedData);
-
-        for (Multicodec c : Multicodec.values()) {
-            //as per stated assumption...
-            int codeLength = HexUtils.hexToBytes(c.code).length;
-            if ((codeLength == 1) && (multicodecEncodedDataHex.startsWith(c.uvarintcode))) {
-                data.setCodec(c);
-                data.setData(StringUtils.removeStart(multicodecEncodedDataHex, c.uvarintcode));
-                break;
+        DecodedData data = decodeInto(multicodecEncodedData, 0, multicodecEncodedData.length, new DecodedData());
+        //Copied now, so the result does not depend on the array passed in.
+        data.detach();
+        return data;
+    }
+
+    /**
+     * Decodes a multicodec encoded byte array without copying the payload.<br/>
+     * <br/>
+     * The returned view refers to the payload in place in the given array, so later changes to the array are
+     * visible through the view. The codec is read as per {@link #decode(byte[])}.
+     * @param multicodecEncodedData The multicodec encoded data
+     * @return The DecodedView of the payload
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload.
+     */
+    public static DecodedView decodeView(byte[] multicodecEncodedData) throws AmbiguousCodecEncodingException {
+        return decodeView(multicodecEncodedData, 0, multicodecEncodedData.length);
+    }
+
+    /**
+     * Decodes a range of a byte array holding multicodec encoded data without copying the payload.<br/>
+     * <br/>
+     * The returned view refers to the payload in place in the given array, so later changes to the array are
+     * visible through the view. The codec is read as per {@link #decode(byte[])}.
+     * @param source The array holding the multicodec encoded data
+     * @param offset The offset of the encoded data in the array
+     * @param length The length of the encoded data
+     * @return The DecodedView of the payload
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload.
+     */
+    public static DecodedView decodeView(byte[] source, int offset, int length) throws AmbiguousCodecEncodingException {
+        Multicodec codec = readCodec(source, offset, length, false);
+        int i = offset + VarInt.varIntSize(codec.codeValue);
+        return new DecodedView(codec, source, i, offset + length - i);
+    }
+
+    /**
+     * Decodes a range of a byte array holding multicodec encoded data into a reusable DecodedData, without
+     * allocating.<br/>
+     * <br/>
+     * The target is set to the codec and refers to the payload in place in the given array; the payload is only
+     * copied if {@link DecodedData#getDataAsBytes()} is called. Decoding into one target per thread in a loop therefore
+     * produces no garbage. The codec is read as per {@link #decode(byte[])}.
+     * @param source The array holding the multicodec encoded data
+     * @param offset The offset of the encoded data in the array
+     * @param length The length of the encoded data
+     * @param target The DecodedData to set, whose previous contents are replaced
+     * @return The target
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload, in which case
+     * the target is not changed.
+     */
+    public static DecodedData decodeInto(byte[] source, int offset, int length, DecodedData target) throws AmbiguousCodecEncodingException {
+        Multicodec codec = readCodec(source, offset, length, false);
+        int i = offset + VarInt.varIntSize(codec.codeValue);
+        target.setData(codec, source, i, offset + length - i);
+        return target;
+    }
+
+    /**
+     * Decodes a record of a framed format, {@link MulticodecOutputStream} or {@link MulticodecRecords}, whose framing
+     * gives its length, so unlike {@link #decodeView(byte[], int, int)} an empty payload is decoded.
+     */
+    static DecodedView decodeRecordView(byte[] source, int offset, int length) throws AmbiguousCodecEncodingException {
+        Multicodec codec = readCodec(source, offset, length, true);
+        int i = offset + VarInt.varIntSize(codec.codeValue);
+        return new DecodedView(codec, source, i, offset + length - i);
+    }
+
+    /**
+     * Reads and resolves the codec of a range, checking a payload follows it and it does not start with a legacy prefix
+     * unless the range is a framed record, a format only ever written with the specification varint.
+     * As the codec is resolved from its code, the code is {@link Multicodec#codeValue} of the codec.
+     */
+    private static Multicodec readCodec(byte[] source, int offset, int length, boolean framed) throws AmbiguousCodecEncodingException {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        //Read the leading unsigned varint straight from the bytes...
+        long code = readCode(source, offset, length, start);
+
+        //... and resolve the codec without scanning the set of codecs.
+        Multicodec codec = CodecTable.lookup(code);
+        if (codec == null) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.UNKNOWN_CODE, start);
+        }
+        if (!framed && VarInt.varIntSize(code) == length) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.NO_PAYLOAD, start);
+        }
+        //Data written by earlier releases may start with the legacy prefix of a multibyte code.
+        if (!framed && LegacyPrefixTrie.longestChangedPrefix(source, offset, length) > VarInt.varIntSize(code)) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.LEGACY_PREFIX, start);
+        }
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordDecode(codec, length, start);
+        }
+        return codec;
+    }
+
+    /**
+     * Decodes a range of a byte array holding multicodec encoded data without copying the payload, resolving the
+     * codec through a registry, so that custom codecs registered at runtime are decoded as well as the
+     * {@link Multicodec} constants. The codec is read as per {@link #decode(byte[])}.
+     * @param registry The registry to resolve the codec with.
+     * @param source The array holding the multicodec encoded data
+     * @param offset The offset of the encoded data in the array
+     * @param length The length of the encoded data
+     * @return The DecodedView of the payload, see {@link DecodedView#getRegisteredCodec()}
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload.
+     */
+    public static DecodedView decodeView(CodecRegistry registry, byte[] source, int offset, int length) throws AmbiguousCodecEncodingException {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        long code = readCode(source, offset, length, start);
+        int i = offset + VarInt.varIntSize(code);
+        RegisteredCodec codec = registry.lookup(code);
+        if (codec == null) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.UNKNOWN_CODE, start);
+        }
+        if (i == offset + length) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.NO_PAYLOAD, start);
+        }
+        //Custom codecs have no ordinal to be counted against.
+        if (MulticodecMetrics.ENABLED && !codec.isCustom()) {
+            MulticodecMetrics.recordDecode(codec.getMulticodec(), length, start);
+        }
+        return new DecodedView(codec, source, i, offset + length - i);
+    }
+
+    /**
+     * Decodes a multicodec encoded byte array that is expected to hold one of a set of codecs.<br/>
+     * <br/>
+     * Only the expected codecs are compared, which resolves ambiguous prefixes, see {@link CodecSet}.
+     * The set is prepared on first use and kept, so pass the same codecs on each call, ideally as a constant
+     * {@link java.util.EnumSet}, or hold a {@link CodecSet} and call {@link #decode(byte[], CodecSet)}.
+     * Legacy prefixes are not accepted, see {@link CodecSet#withLegacyPrefixes()}.
+     * @param multicodecEncodedData The multicodec encoded data
+     * @param allowed The codecs the data is expected to hold
+     * @return The DecodedData object
+     * @throws AmbiguousCodecEncodingException if the data does not start with one of the codecs or there is no
+     * payload.
+     */
+    public static DecodedData decode(byte[] multicodecEncodedData, Set<Multicodec> allowed) throws AmbiguousCodecEncodingException {
+        return decodeView(multicodecEncodedData, 0, multicodecEncodedData.length, CodecSet.cached(allowed)).toDecodedData();
+    }
+
+    /**
+     * Decodes a multicodec encoded byte array that is expected to hold one of a set of codecs, see {@link CodecSet}.
+     * @param multicodecEncodedData The multicodec encoded data
+     * @param allowed The codecs the data is expected to hold
+     * @return The DecodedData object
+     * @throws AmbiguousCodecEncodingException if the data does not start with one of the codecs or there is no
+     * payload.
+     */
+    public static DecodedData decode(byte[] multicodecEncodedData, CodecSet allowed) throws AmbiguousCodecEncodingException {
+        return decodeView(multicodecEncodedData, 0, multicodecEncodedData.length, allowed).toDecodedData();
+    }
+
+    /**
+     * Decodes a range of a byte array holding one of a set of codecs without copying the payload, see
+     * {@link CodecSet}.
+     * @param source The array holding the multicodec encoded data
+     * @param offset The offset of the encoded data in the array
+     * @param length The length of the encoded data
+     * @param allowed The codecs the data is expected to hold
+     * @return The DecodedView of the payload
+     * @throws AmbiguousCodecEncodingException if the data does not start with one of the codecs or there is no
+     * payload.
+     */
+    public static DecodedView decodeView(byte[] source, int offset, int length, CodecSet allowed) throws AmbiguousCodecEncodingException {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        if (offset < 0 || length < 0 || offset > source.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + source.length);
+        }
+        if (length == 0) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.EMPTY, start);
+        }
+        int end = offset + length;
+
+        //The specification reading, a single varint, when it is the code of an expected codec...
+        Multicodec codec = null;
+        int i = offset;
+        boolean malformed = false;
+        try {
+            long code = VarInt.readUnsignedVarLong(source, offset, end);
+            codec = allowed.byCode(code);
+            if (codec != null) {
+                i += VarInt.varIntSize(code);
+            }
+        } catch (IllegalArgumentException exIllegalArgument) {
+            //Not a specification varint, though it may still be a legacy prefix.
+            malformed = true;
+        }
+
+        //... otherwise, if the set accepts them, the longest legacy prefix of an expected codec.
+        if (codec == null) {
+            codec = allowed.byLegacyPrefix(source, offset, length);
+            if (codec == null) {
+                throw couldNotDecode(source, offset, length,
+                        malformed ? MulticodecMetrics.Failure.MALFORMED_VARINT : MulticodecMetrics.Failure.UNKNOWN_CODE, start);
             }
+            i = offset + codec.legacyPrefix.length;
+        }
+        if (i == end) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.NO_PAYLOAD, start);
+        }
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordDecode(codec, length, start);
+        }
+        return new DecodedView(codec, source, i, end - i);
+    }
+
+    /**
+     * Encodes the byte array of data for a registered codec.
+     * The code is written as a single unsigned varint, as read by {@link #decodeView(CodecRegistry, byte[], int, int)}.
+     * For a {@link Multicodec} constant the encoding is the same as {@link #encode(Multicodec, byte[])}.
+     * @param codec The registered codec to encode with.
+     * @param data The bytes of data to encode.
+     * @return The multicodec encoding of the input bytes
+     */
+    public static byte[] encode(RegisteredCodec codec, byte[] data) {
+        if (!codec.isCustom()) {
+            return encode(codec.getMulticodec(), data);
+        }
+        byte[] encoding = new byte[codec.prefix.length + data.length];
+        System.arraycopy(codec.prefix, 0, encoding, 0, codec.prefix.length);
+        System.arraycopy(data, 0, encoding, codec.prefix.length, data.length);
+        return encoding;
+    }
+
+    private static long readCode(byte[] source, int offset, int length, long start) throws AmbiguousCodecEncodingException {
+        if (offset < 0 || length < 0 || offset > source.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + source.length);
+        }
+        if (length == 0) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.EMPTY, start);
+        }
+        try {
+            return VarInt.readUnsignedVarLong(source, offset, offset + length);
+        } catch (IllegalArgumentException exIllegalArgument) {
+            throw couldNotDecode(source, offset, length, MulticodecMetrics.Failure.MALFORMED_VARINT, start);
+        }
+    }
+
+    /**
+     * Decodes the codec at the position of a buffer, which may be a direct buffer.<br/>
+     * <br/>
+     * The codec is read as per {@link #decode(byte[])}. On return the position of the buffer is at the start of the
+     * payload, so the payload is the remaining bytes of the buffer and is not copied.
+     * @param in The buffer holding multicodec encoded data.
+     * @return The codec of the data.
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload, in which case
+     * the position of the buffer is not changed.
+     */
+    public static Multicodec decodeCodec(ByteBuffer in) throws AmbiguousCodecEncodingException {
+        return decodeCodec(in, false);
+    }
+
+    private static Multicodec decodeCodec(ByteBuffer in, boolean framed) throws AmbiguousCodecEncodingException {
+        long start = MulticodecMetrics.ENABLED ? System.nanoTime() : 0;
+        int end = in.limit();
+        if (in.position() == end) {
+            throw couldNotDecode(in, MulticodecMetrics.Failure.EMPTY, start);
+        }
+        long code;
+        try {
+            code = VarIntSwar.readUnsignedVarLong(in, in.position());
+        } catch (IllegalArgumentException exIllegalArgument) {
+            throw couldNotDecode(in, MulticodecMetrics.Failure.MALFORMED_VARINT, start);
         }
 
-        if (!data.isSet()){
-            throw new AmbiguousCodecEncodingException("Could not decode:" + multicodecEncodedDataHex);
+        Multicodec codec = CodecTable.lookup(code);
+        if (codec == null) {
+            throw couldNotDecode(in, MulticodecMetrics.Failure.UNKNOWN_CODE, start);
         }
+        //Only the minimal encoding is read, so its length is that of the code.
+        int i = in.position() + VarInt.varIntSize(code);
+        if (!framed && i == end) {
+            throw couldNotDecode(in, MulticodecMetrics.Failure.NO_PAYLOAD, start);
+        }
+        if (!framed && LegacyPrefixTrie.longestChangedPrefix(in) > i - in.position()) {
+            throw couldNotDecode(in, MulticodecMetrics.Failure.LEGACY_PREFIX, start);
+        }
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordDecode(codec, end - in.position(), start);
+        }
+        ((Buffer) in).position(i);
+        return codec;
+    }
+
+    /**
+     * Decodes the remaining bytes of a buffer, which may be a direct buffer.<br/>
+     * <br/>
+     * The codec is read as per {@link #decode(byte[])} and the payload is copied into the returned DecodedData.
+     * @param in The buffer holding multicodec encoded data, its position is advanced to its limit.
+     * @return The DecodedData object
+     * @throws AmbiguousCodecEncodingException if the codec cannot be decoded or there is no payload, in which case
+     * the position of the buffer is not changed.
+     */
+    public static DecodedData decode(ByteBuffer in) throws AmbiguousCodecEncodingException {
+        return copyPayload(decodeCodec(in, false), in);
+    }
+
+    /**
+     * Decodes a record of a framed format held in the remaining bytes of a buffer, accepting an empty payload as
+     * {@link #decodeRecordView(byte[], int, int)} does.
+     */
+    static DecodedData decodeRecord(ByteBuffer in) throws AmbiguousCodecEncodingException {
+        return copyPayload(decodeCodec(in, true), in);
+    }
+
+    private static DecodedData copyPayload(Multicodec codec, ByteBuffer in) {
+        byte[] payload = new byte[in.remaining()];
+        in.get(payload);
+
+        DecodedData data = new DecodedData();
+        data.setCodec(codec);
+        data.setData(payload);
         return data;
     }
 
+    private static AmbiguousCodecEncodingException couldNotDecode(ByteBuffer in, MulticodecMetrics.Failure reason, long start) {
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordFailure(reason, start);
+        }
+        return new AmbiguousCodecEncodingException("Could not decode codec at position:" + in.position());
+    }
+
+    private static AmbiguousCodecEncodingException couldNotDecode(byte[] source, int offset, int length, MulticodecMetrics.Failure reason, long start) {
+        if (MulticodecMetrics.ENABLED) {
+            MulticodecMetrics.recordFailure(reason, start);
+        }
+        return new AmbiguousCodecEncodingException("Could not decode:" + HexUtils.bytesToHex(Arrays.copyOfRange(source, offset, offset + length)));
+    }
+
 }
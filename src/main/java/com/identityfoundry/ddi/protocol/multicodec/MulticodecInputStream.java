@@ -0,0 +1,124 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+/**
+ * <p>Reads a stream of multicodec records, each framed as <code>&lt;varint length&gt;&lt;multicodec prefix&gt;&lt;payload&gt;</code>
+ * as written by a {@link MulticodecOutputStream}.</p>
+ * <p>The underlying stream is read through a buffer and each record is read into an internal record buffer that is
+ * reused from record to record, so only the decoded payload is allocated per record. The codec of each record is
+ * read as per {@link MulticodecEncoder#decode(byte[])}, except that a record with an empty payload is decoded and, as
+ * records were never written with legacy prefixes, they are not checked for.</p>
+ */
+public class MulticodecInputStream implements Closeable {
+
+    /**
+     * The default size of the read buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default limit on the length of a record, guarding against corrupt length prefixes.
+     */
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+
+    private final BufferedInputStream buffered;
+    private final DataInputStream in;
+    private final int maxRecordLength;
+    private byte[] record = new byte[256];
+
+    /**
+     * Creates a stream reading records from an underlying stream with the default buffer size and record limit.
+     * @param in The underlying stream.
+     */
+    public MulticodecInputStream(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_RECORD_LENGTH);
+    }
+
+    /**
+     * Creates a stream reading records from an underlying stream.
+     * @param in The underlying stream.
+     * @param bufferSize The size of the read buffer.
+     * @param maxRecordLength The limit on the length of a record.
+     */
+    public MulticodecInputStream(InputStream in, int bufferSize, int maxRecordLength) {
+        this.buffered = new BufferedInputStream(in, bufferSize);
+        this.in = new DataInputStream(buffered);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The decoded record, or null at the end of the stream.
+     * @throws IOException if the stream ends within a record, a record exceeds the length limit, or the underlying
+     * stream throws {@link IOException}
+     * @throws AmbiguousCodecEncodingException if the codec of the record cannot be decoded.
+     */
+    public DecodedData readRecord() throws IOException, AmbiguousCodecEncodingException {
+        DecodedView view = readRecordView();
+        return (view == null) ? null : view.toDecodedData();
+    }
+
+    /**
+     * Reads the next record without copying its payload.<br/>
+     * <br/>
+     * The view refers to the internal record buffer, so it is only valid until the next read from this stream.
+     * @return The view of the decoded record, or null at the end of the stream.
+     * @throws IOException if the stream ends within a record, a record exceeds the length limit, or the underlying
+     * stream throws {@link IOException}
+     * @throws AmbiguousCodecEncodingException if the codec of the record cannot be decoded.
+     */
+    public DecodedView readRecordView() throws IOException, AmbiguousCodecEncodingException {
+        //A clean end of the stream can only fall between records.
+        buffered.mark(1);
+        if (buffered.read() < 0) {
+            return null;
+        }
+        buffered.reset();
+
+        int length = VarInt.readUnsignedVarInt(in);
+        if (length < 0 || length > maxRecordLength) {
+            throw new IOException("Record length " + Integer.toUnsignedString(length) + " exceeds the limit of " + maxRecordLength);
+        }
+        if (record.length < length) {
+            record = new byte[Math.max(length, Math.min(record.length * 2, maxRecordLength))];
+        }
+        in.readFully(record, 0, length);
+        return MulticodecEncoder.decodeRecordView(record, 0, length);
+    }
+
+    /**
+     * Reads up to a number of records in one call.
+     * @param records The collection to add the decoded records to.
+     * @param maxRecords The maximum number of records to read.
+     * @return The number of records read, which is less than maxRecords only at the end of the stream.
+     * @throws IOException if the stream ends within a record, a record exceeds the length limit, or the underlying
+     * stream throws {@link IOException}
+     * @throws AmbiguousCodecEncodingException if the codec of a record cannot be decoded.
+     */
+    public int readRecords(Collection<? super DecodedData> records, int maxRecords) throws IOException, AmbiguousCodecEncodingException {
+        int count = 0;
+        DecodedView view;
+        while (count < maxRecords && (view = readRecordView()) != null) {
+            records.add(view.toDecodedData());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Closes the underlying stream.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,321 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Optional counters on the {@link MulticodecEncoder} encode and decode paths: the number of encodes and decodes of
+ * each codec, the decode failures by reason, the bytes processed, and the latency of each call in a log linear
+ * histogram.</p>
+ * <p>The metrics are off unless the JVM is started with <code>-Dmulticodec.metrics=true</code>. The switch is read
+ * once into {@link #ENABLED}, a static final, so when off the JIT removes the instrumentation and the only cost is
+ * that check. When on, every counter is a {@link LongAdder}, so threads recording the same codec do not contend on
+ * one cache line; a call costs two {@link System#nanoTime()} reads and a few adds. Custom codecs decoded through a
+ * {@link CodecRegistry} are not counted per codec, though their failures are.</p>
+ * <p>{@link #snapshot()} copies the counters into an immutable {@link Snapshot} for export. The counters are read one
+ * at a time while calls may be recording, so a snapshot taken under load is consistent per counter rather than
+ * across counters.</p>
+ */
+public final class MulticodecMetrics {
+
+    /**
+     * Whether the metrics are recorded, from the <code>multicodec.metrics</code> system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("multicodec.metrics");
+
+    /**
+     * The reasons a decode fails.
+     */
+    public enum Failure {
+        /**
+         * There were no bytes to decode.
+         */
+        EMPTY,
+        /**
+         * The codec code was not a valid unsigned varint, e.g. truncated or not minimally encoded.
+         */
+        MALFORMED_VARINT,
+        /**
+         * The codec code was not a known codec.
+         */
+        UNKNOWN_CODE,
+        /**
+         * The codec was not followed by a payload.
+         */
+        NO_PAYLOAD,
+        /**
+         * The data started with the legacy prefix of a multibyte code, so may have been written by an earlier release.
+         */
+        LEGACY_PREFIX
+    }
+
+    private static final int CODECS = Multicodec.values().length;
+    private static final LongAdder[] ENCODES = adders(CODECS);
+    private static final LongAdder[] DECODES = adders(CODECS);
+    private static final LongAdder[] FAILURES = adders(Failure.values().length);
+    private static final LongAdder BYTES_ENCODED = new LongAdder();
+    private static final LongAdder BYTES_DECODED = new LongAdder();
+    private static final LatencyHistogram ENCODE_LATENCY = new LatencyHistogram();
+    private static final LatencyHistogram DECODE_LATENCY = new LatencyHistogram();
+
+    private MulticodecMetrics() {}
+
+    static void recordEncode(Multicodec codec, int payloadLength, long startNanos) {
+        ENCODES[codec.ordinal()].increment();
+        BYTES_ENCODED.add(payloadLength);
+        ENCODE_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    static void recordDecode(Multicodec codec, int length, long startNanos) {
+        DECODES[codec.ordinal()].increment();
+        BYTES_DECODED.add(length);
+        DECODE_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    static void recordFailure(Failure reason, long startNanos) {
+        FAILURES[reason.ordinal()].increment();
+        DECODE_LATENCY.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Copies the current counters.
+     * @return the snapshot, all zero when the metrics are not {@link #ENABLED}.
+     */
+    public static Snapshot snapshot() {
+        Multicodec[] codecs = Multicodec.values();
+        Map<Multicodec, Long> encodes = new EnumMap<>(Multicodec.class);
+        Map<Multicodec, Long> decodes = new EnumMap<>(Multicodec.class);
+        for (Multicodec codec : codecs) {
+            long encoded = ENCODES[codec.ordinal()].sum();
+            long decoded = DECODES[codec.ordinal()].sum();
+            if (encoded != 0) {
+                encodes.put(codec, encoded);
+            }
+            if (decoded != 0) {
+                decodes.put(codec, decoded);
+            }
+        }
+        Map<Failure, Long> failures = new EnumMap<>(Failure.class);
+        for (Failure reason : Failure.values()) {
+            failures.put(reason, FAILURES[reason.ordinal()].sum());
+        }
+        return new Snapshot(encodes, decodes, failures, BYTES_ENCODED.sum(), BYTES_DECODED.sum(),
+                ENCODE_LATENCY.counts(), DECODE_LATENCY.counts());
+    }
+
+    /**
+     * Sets every counter back to zero. Calls recording at the same time may or may not be counted.
+     */
+    public static void reset() {
+        for (int i = 0; i < CODECS; i++) {
+            ENCODES[i].reset();
+            DECODES[i].reset();
+        }
+        for (LongAdder failure : FAILURES) {
+            failure.reset();
+        }
+        BYTES_ENCODED.reset();
+        BYTES_DECODED.reset();
+        ENCODE_LATENCY.reset();
+        DECODE_LATENCY.reset();
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * <p>A log linear latency histogram in nanoseconds, in the style of HdrHistogram: each power of two range is split
+     * into {@link #SUB_BUCKETS} equal buckets, so a recorded latency is placed within 12.5% of its value whatever its
+     * magnitude, in a fixed {@value #BUCKETS} buckets. Latencies from 2^{@value #MAX_EXPONENT} ns (about 18 minutes)
+     * up fall in the last bucket.</p>
+     */
+    static final class LatencyHistogram {
+        static final int SUB_BITS = 3;
+        static final int SUB_BUCKETS = 1 << SUB_BITS;
+        static final int MAX_EXPONENT = 40;
+        static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final LongAdder[] counts = adders(BUCKETS);
+
+        void record(long nanos) {
+            counts[index(nanos)].increment();
+        }
+
+        long[] counts() {
+            long[] copy = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                copy[i] = counts[i].sum();
+            }
+            return copy;
+        }
+
+        void reset() {
+            for (LongAdder count : counts) {
+                count.reset();
+            }
+        }
+
+        static int index(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                //Also places a negative latency, from a clock step, in the first bucket.
+                return (int) Math.max(nanos, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            if (exponent >= MAX_EXPONENT) {
+                return BUCKETS - 1;
+            }
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+        }
+
+        static long lowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+            return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+        }
+    }
+
+    /**
+     * An immutable copy of the metrics.
+     */
+    public static final class Snapshot {
+        private final Map<Multicodec, Long> encodes;
+        private final Map<Multicodec, Long> decodes;
+        private final Map<Failure, Long> failures;
+        private final long bytesEncoded;
+        private final long bytesDecoded;
+        private final long[] encodeLatency;
+        private final long[] decodeLatency;
+
+        Snapshot(Map<Multicodec, Long> encodes, Map<Multicodec, Long> decodes, Map<Failure, Long> failures,
+                 long bytesEncoded, long bytesDecoded, long[] encodeLatency, long[] decodeLatency) {
+            this.encodes = Collections.unmodifiableMap(encodes);
+            this.decodes = Collections.unmodifiableMap(decodes);
+            this.failures = Collections.unmodifiableMap(failures);
+            this.bytesEncoded = bytesEncoded;
+            this.bytesDecoded = bytesDecoded;
+            this.encodeLatency = encodeLatency;
+            this.decodeLatency = decodeLatency;
+        }
+
+        /**
+         * Gets the number of encodes of each codec.
+         * @return the counts of the codecs encoded at least once, in codec order.
+         */
+        public Map<Multicodec, Long> getEncodeCounts() {
+            return encodes;
+        }
+
+        /**
+         * Gets the number of successful decodes of each codec.
+         * @return the counts of the codecs decoded at least once, in codec order.
+         */
+        public Map<Multicodec, Long> getDecodeCounts() {
+            return decodes;
+        }
+
+        /**
+         * Gets the number of failed decodes for each reason.
+         * @return the count of every reason.
+         */
+        public Map<Failure, Long> getFailureCounts() {
+            return failures;
+        }
+
+        /**
+         * Gets the number of payload bytes encoded.
+         * @return the payload bytes, not counting the prefixes.
+         */
+        public long getBytesEncoded() {
+            return bytesEncoded;
+        }
+
+        /**
+         * Gets the number of bytes decoded successfully.
+         * @return the encoded bytes, counting the prefixes.
+         */
+        public long getBytesDecoded() {
+            return bytesDecoded;
+        }
+
+        /**
+         * Gets the number of histogram buckets, see {@link #getEncodeLatencyCounts()}.
+         * @return the number of buckets.
+         */
+        public static int getLatencyBucketCount() {
+            return LatencyHistogram.BUCKETS;
+        }
+
+        /**
+         * Gets the smallest latency counted in a histogram bucket. The bucket holds latencies from its lower bound up
+         * to, but not including, the lower bound of the next bucket.
+         * @param bucket the index of the bucket.
+         * @return the lower bound in nanoseconds.
+         */
+        public static long getLatencyBucketLowerBound(int bucket) {
+            return LatencyHistogram.lowerBound(bucket);
+        }
+
+        /**
+         * Gets the encode latency histogram.
+         * @return a copy of the count of each bucket.
+         */
+        public long[] getEncodeLatencyCounts() {
+            return encodeLatency.clone();
+        }
+
+        /**
+         * Gets the decode latency histogram, of both successful and failed decodes.
+         * @return a copy of the count of each bucket.
+         */
+        public long[] getDecodeLatencyCounts() {
+            return decodeLatency.clone();
+        }
+
+        /**
+         * Estimates a percentile of the encode latency.
+         * @param percentile the percentile, from 0 to 100.
+         * @return the upper bound of the bucket holding the percentile in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getEncodeLatencyPercentile(double percentile) {
+            return percentile(encodeLatency, percentile);
+        }
+
+        /**
+         * Estimates a percentile of the decode latency.
+         * @param percentile the percentile, from 0 to 100.
+         * @return the upper bound of the bucket holding the percentile in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getDecodeLatencyPercentile(double percentile) {
+            return percentile(decodeLatency, percentile);
+        }
+
+        private static long percentile(long[] counts, double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile out of range: " + percentile);
+            }
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            int bucket = 0;
+            while ((seen += counts[bucket]) < rank) {
+                bucket++;
+            }
+            return (bucket == LatencyHistogram.BUCKETS - 1) ? Long.MAX_VALUE : LatencyHistogram.lowerBound(bucket + 1) - 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <p>Writes a stream of multicodec records, each framed as <code>&lt;varint length&gt;&lt;multicodec prefix&gt;&lt;payload&gt;</code>
+ * where the length is the unsigned varint length of the prefix and payload together. As the length frames the record,
+ * the payload may be empty, as in the records of {@link MulticodecBatchEncoder}.</p>
+ * <p>The prefix is the code as a single unsigned varint, the same as written by
+ * {@link MulticodecEncoder#encode(Multicodec, byte[])} and read by {@link MulticodecEncoder#decode(byte[])}. Records are written
+ * through a buffer, so many small records do not each cost a write to the underlying stream.
+ * The records are read back with a {@link MulticodecInputStream}.</p>
+ */
+public class MulticodecOutputStream implements Closeable, Flushable {
+
+    /**
+     * The default size of the write buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+
+    /**
+     * Creates a stream writing records to an underlying stream through a buffer of the default size.
+     * @param out The underlying stream.
+     */
+    public MulticodecOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a stream writing records to an underlying stream through a buffer.
+     * @param out The underlying stream.
+     * @param bufferSize The size of the write buffer.
+     */
+    public MulticodecOutputStream(OutputStream out, int bufferSize) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, bufferSize));
+    }
+
+    /**
+     * Writes a record.
+     * @param codec The codec of the payload.
+     * @param data The payload.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    public void writeRecord(Multicodec codec, byte[] data) throws IOException {
+        writeRecord(codec, data, 0, data.length);
+    }
+
+    /**
+     * Writes a record from a range of an array.
+     * @param codec The codec of the payload.
+     * @param data The array holding the payload.
+     * @param offset The offset of the payload in the array.
+     * @param length The length of the payload.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    public void writeRecord(Multicodec codec, byte[] data, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + data.length);
+        }
+        VarInt.writeUnsignedVarInt(codec.prefix.length + length, out);
+        out.write(codec.prefix);
+        out.write(data, offset, length);
+    }
+
+    /**
+     * Writes a record holding decoded data.
+     * @param decodedData The codec and payload of the record.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    public void writeRecord(DecodedData decodedData) throws IOException {
+        writeRecord(decodedData.getCodec(), decodedData.getDataAsBytes());
+    }
+
+    /**
+     * Writes any buffered records to the underlying stream and flushes it.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying stream.
+     * @throws IOException if the underlying stream throws {@link IOException}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
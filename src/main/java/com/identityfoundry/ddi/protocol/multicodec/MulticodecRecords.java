@@ -0,0 +1,245 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Streams over buffers of concatenated multicodec records, each framed as
+ * <code>&lt;varint length&gt;&lt;multicodec prefix&gt;&lt;payload&gt;</code> as written by a {@link MulticodecOutputStream}.</p>
+ * <p>The spliterators split at record boundaries, found by skipping from record to record over the varint lengths
+ * without decoding the records, so a parallel stream divides the decoding across cores.
+ * A record that cannot be decoded fails the stream with an {@link IllegalArgumentException} whose cause is the
+ * {@link AmbiguousCodecEncodingException}, and malformed framing fails it with an {@link IllegalArgumentException}
+ * when the stream reaches it. A range holding malformed framing is not split. A record with an empty payload is
+ * decoded, as by {@link MulticodecInputStream}.</p>
+ */
+public final class MulticodecRecords {
+
+    //Ranges smaller than this are not worth splitting further.
+    private static final int MIN_SPLIT_BYTES = 4 * 1024;
+
+    private MulticodecRecords() {}
+
+    /**
+     * Creates a spliterator over the records in an array, viewing each payload in place.
+     * @param buffer The array of framed records.
+     * @param offset The offset of the first record.
+     * @param length The length of the records.
+     * @return The spliterator.
+     */
+    public static Spliterator<DecodedView> spliterator(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > buffer.length - length) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + buffer.length);
+        }
+        return new ArrayRecordSpliterator(buffer, offset, offset + length);
+    }
+
+    /**
+     * Streams the records in an array as views of the payloads in place.
+     * @param buffer The array of framed records.
+     * @param parallel true, for a parallel stream.
+     * @return The stream of views.
+     */
+    public static Stream<DecodedView> views(byte[] buffer, boolean parallel) {
+        return StreamSupport.stream(spliterator(buffer, 0, buffer.length), parallel);
+    }
+
+    /**
+     * Streams the records in an array, copying each payload.
+     * @param buffer The array of framed records.
+     * @param parallel true, for a parallel stream.
+     * @return The stream of decoded records.
+     */
+    public static Stream<DecodedData> stream(byte[] buffer, boolean parallel) {
+        return views(buffer, parallel).map(DecodedView::toDecodedData);
+    }
+
+    /**
+     * Streams the remaining records in a buffer, which may be a direct buffer, copying each payload.
+     * The position of the buffer is not changed.
+     * @param buffer The buffer of framed records.
+     * @param parallel true, for a parallel stream.
+     * @return The stream of decoded records.
+     */
+    public static Stream<DecodedData> stream(ByteBuffer buffer, boolean parallel) {
+        if (buffer.hasArray()) {
+            Spliterator<DecodedView> views = spliterator(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return StreamSupport.stream(views, parallel).map(DecodedView::toDecodedData);
+        }
+        return StreamSupport.stream(new BufferRecordSpliterator(buffer.duplicate(), buffer.position(), buffer.limit()), parallel);
+    }
+
+    /**
+     * Splits a range of framed records at record boundaries.
+     * @param <T> The type of the decoded records.
+     */
+    private abstract static class RecordSpliterator<T> implements Spliterator<T> {
+        int pos;
+        final int end;
+
+        RecordSpliterator(int pos, int end) {
+            this.pos = pos;
+            this.end = end;
+        }
+
+        abstract int readUnsignedVarInt(int index);
+
+        abstract T decode(int offset, int length) throws AmbiguousCodecEncodingException;
+
+        abstract RecordSpliterator<T> split(int from, int to);
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (pos >= end) {
+                return false;
+            }
+            int start = payloadStart(pos);
+            int length = recordEnd(pos) - start;
+            T record;
+            try {
+                record = decode(start, length);
+            } catch (AmbiguousCodecEncodingException exAmbiguousCodecEncoding) {
+                throw new IllegalArgumentException("Could not decode record at offset:" + pos, exAmbiguousCodecEncoding);
+            }
+            pos = start + length;
+            action.accept(record);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = pos + (end - pos) / 2;
+            if (end - pos < MIN_SPLIT_BYTES) {
+                return null;
+            }
+            //Skip whole records until reaching the middle of the range.
+            int boundary = pos;
+            try {
+                while (boundary < mid) {
+                    boundary = recordEnd(boundary);
+                }
+            } catch (IllegalArgumentException exMalformed) {
+                //No safe split point, so the range is left whole and tryAdvance reports the framing when it gets there.
+                return null;
+            }
+            if (boundary >= end) {
+                return null;
+            }
+            RecordSpliterator<T> prefix = split(pos, boundary);
+            pos = boundary;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            //Records are not counted up front, so the remaining bytes are the estimate.
+            return end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+
+        private int payloadStart(int record) {
+            return record + VarInt.varIntSize(readLength(record));
+        }
+
+        private int recordEnd(int record) {
+            int value = readLength(record);
+            int i = record + VarInt.varIntSize(value);
+            if (value < 0 || value > end - i) {
+                throw new IllegalArgumentException("Record at offset:" + record + " overruns the buffer");
+            }
+            return i + value;
+        }
+
+        private int readLength(int record) {
+            try {
+                return readUnsignedVarInt(record);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException exMalformed) {
+                throw new IllegalArgumentException("Malformed record length at offset:" + record, exMalformed);
+            }
+        }
+    }
+
+    private static final class ArrayRecordSpliterator extends RecordSpliterator<DecodedView> {
+        private final byte[] buffer;
+
+        ArrayRecordSpliterator(byte[] buffer, int pos, int end) {
+            super(pos, end);
+            this.buffer = buffer;
+        }
+
+        @Override
+        int readUnsignedVarInt(int index) {
+            //Record lengths are mostly one or two bytes, which the scalar reader returns without a loop.
+            return VarInt.readUnsignedVarInt(buffer, index, end);
+        }
+
+        @Override
+        DecodedView decode(int offset, int length) throws AmbiguousCodecEncodingException {
+            return MulticodecEncoder.decodeRecordView(buffer, offset, length);
+        }
+
+        @Override
+        RecordSpliterator<DecodedView> split(int from, int to) {
+            return new ArrayRecordSpliterator(buffer, from, to);
+        }
+    }
+
+    private static final class BufferRecordSpliterator extends RecordSpliterator<DecodedData> {
+        private final ByteBuffer buffer;
+
+        BufferRecordSpliterator(ByteBuffer buffer, int pos, int end) {
+            super(pos, end);
+            this.buffer = buffer;
+        }
+
+        @Override
+        int readUnsignedVarInt(int index) {
+            //Read a byte at a time with the checks of VarInt.readUnsignedVarInt(byte[], int, int).
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (index == end) {
+                    throw new IllegalArgumentException("Variable length quantity is truncated");
+                }
+                if (shift > 28) {
+                    throw new IllegalArgumentException("Variable length quantity is too long");
+                }
+                b = buffer.get(index++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (b == 0 && shift > 7) {
+                throw new IllegalArgumentException("Variable length quantity is not minimally encoded");
+            }
+            if (shift == 35 && b > 0x07) {
+                throw new IllegalArgumentException("Variable length quantity is too long");
+            }
+            return value;
+        }
+
+        @Override
+        DecodedData decode(int offset, int length) throws AmbiguousCodecEncodingException {
+            ByteBuffer record = buffer.duplicate();
+            //Set through Buffer, as the covariant ByteBuffer overrides do not exist before Java 9.
+            ((Buffer) record).limit(offset + length);
+            ((Buffer) record).position(offset);
+            return MulticodecEncoder.decodeRecord(record);
+        }
+
+        @Override
+        RecordSpliterator<DecodedData> split(int from, int to) {
+            return new BufferRecordSpliterator(buffer, from, to);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+
+/**
+ * <p>A codec known to a {@link CodecRegistry}: either one of the {@link Multicodec} constants, or a custom codec
+ * registered at runtime, such as a private use code in the <code>0x300000</code> to <code>0x3FFFFF</code> range.</p>
+ * <p>The prefix of a registered codec is its code written as a single unsigned varint, as per the multicodec
+ * specification and as read by {@link MulticodecEncoder#decode(byte[])}; for a {@link Multicodec} constant it is the
+ * prefix of the constant. Instances are immutable, and there is one instance per {@link Multicodec} constant, so they
+ * may be compared by identity.</p>
+ */
+public final class RegisteredCodec {
+
+    private static final RegisteredCodec[] BUILT_IN;
+
+    static {
+        Multicodec[] values = Multicodec.values();
+        BUILT_IN = new RegisteredCodec[values.length];
+        for (Multicodec codec : values) {
+            BUILT_IN[codec.ordinal()] = new RegisteredCodec(codec.codecName, codec.codeValue, codec);
+        }
+    }
+
+    private final String name;
+    private final long code;
+    private final Multicodec multicodec;
+    final byte[] prefix;
+
+    RegisteredCodec(String name, long code, Multicodec multicodec) {
+        this.name = name;
+        this.code = code;
+        this.multicodec = multicodec;
+        if (multicodec != null) {
+            //Shared with the constant, so both encode overloads write the same prefix.
+            this.prefix = multicodec.prefix;
+        } else {
+            this.prefix = new byte[VarInt.varIntSize(code)];
+            VarInt.writeUnsignedVarLong(code, prefix, 0);
+        }
+    }
+
+    /**
+     * Gets the registered codec of a {@link Multicodec} constant.
+     * @param multicodec The constant.
+     * @return The registered codec, the same instance on every call.
+     */
+    public static RegisteredCodec of(Multicodec multicodec) {
+        return BUILT_IN[multicodec.ordinal()];
+    }
+
+    /**
+     * Gets the name of the codec, e.g. "sha2-256".
+     * @return the name of the codec.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the numeric code of the codec.
+     * @return the code.
+     */
+    public long getCode() {
+        return code;
+    }
+
+    /**
+     * Gets the {@link Multicodec} constant of a built in codec.
+     * @return the constant, or null for a custom codec.
+     */
+    public Multicodec getMulticodec() {
+        return multicodec;
+    }
+
+    /**
+     * Tells whether the codec was registered at runtime rather than being a {@link Multicodec} constant.
+     * @return true for a custom codec.
+     */
+    public boolean isCustom() {
+        return multicodec == null;
+    }
+
+    /**
+     * Gets the prefix bytes, the code as a single unsigned varint.
+     * @return a copy of the prefix bytes.
+     */
+    public byte[] prefix() {
+        return prefix.clone();
+    }
+
+    /**
+     * Gets the length of the prefix.
+     * @return the length of the prefix in bytes.
+     */
+    public int prefixLength() {
+        return prefix.length;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(0x" + Long.toHexString(code).toUpperCase() + ")";
+    }
+}
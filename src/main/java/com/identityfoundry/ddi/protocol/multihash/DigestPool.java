@@ -0,0 +1,44 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import java.security.MessageDigest;
+
+/**
+ * <p>Per-thread pools of {@link MessageDigest} instances, one slot per hash function.</p>
+ * <p>{@link MessageDigest#getInstance(String)} searches the security providers on every call, which costs more than
+ * hashing a short input. A digest is instead borrowed from the calling thread's slot and released back to it reset.
+ * A borrowed digest leaves its slot empty, so a nested borrow of the same function on the same thread, such as a
+ * {@link MultihashInputStream} over another, gets a fresh digest rather than sharing one.</p>
+ */
+final class DigestPool {
+
+    private static final ThreadLocal<MessageDigest[]> POOL =
+            ThreadLocal.withInitial(() -> new MessageDigest[HashFunction.values().length]);
+
+    private DigestPool() {
+    }
+
+    /**
+     * Borrows a reset digest for a hash function.
+     * @param function the hash function.
+     * @return the digest, which should be released back on the same thread.
+     */
+    static MessageDigest borrow(HashFunction function) {
+        MessageDigest[] slots = POOL.get();
+        MessageDigest digest = slots[function.ordinal()];
+        if (digest == null) {
+            return function.newDigest();
+        }
+        slots[function.ordinal()] = null;
+        return digest;
+    }
+
+    /**
+     * Releases a digest back to the calling thread's pool, resetting it.
+     * @param function the hash function.
+     * @param digest the digest.
+     */
+    static void release(HashFunction function, MessageDigest digest) {
+        digest.reset();
+        POOL.get()[function.ordinal()] = digest;
+    }
+}
@@ -0,0 +1,129 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The multihash functions that can be computed, with the digest that computes each.
+ */
+enum HashFunction {
+    IDENTITY(Multicodec.IDENTITY, -1, null),
+    SHA1(Multicodec.SHA1, 20, "SHA-1"),
+    SHA2_224(Multicodec.SHA2_224, 28, "SHA-224"),
+    SHA2_256(Multicodec.SHA2_256, 32, "SHA-256"),
+    SHA2_384(Multicodec.SHA2_384, 48, "SHA-384"),
+    SHA2_512(Multicodec.SHA2_512, 64, "SHA-512"),
+    SHA2_512_224(Multicodec.SHA2_512_224, 28, "SHA-512/224"),
+    SHA2_512_256(Multicodec.SHA2_512_256, 32, "SHA-512/256"),
+    DBL_SHA2_256(Multicodec.DBL_SHA2_256, 32, "SHA-256"),
+    SHA3_224(Multicodec.SHA3_224, 28, "SHA3-224"),
+    SHA3_256(Multicodec.SHA3_256, 32, "SHA3-256"),
+    SHA3_384(Multicodec.SHA3_384, 48, "SHA3-384"),
+    SHA3_512(Multicodec.SHA3_512, 64, "SHA3-512"),
+    //The multihash table fixes the SHAKE output at twice the security strength.
+    SHAKE_128(Multicodec.SHAKE_128, 32, null),
+    SHAKE_256(Multicodec.SHAKE_256, 64, null),
+    KECCAK_224(Multicodec.KECCAK_224, 28, null),
+    KECCAK_256(Multicodec.KECCAK_256, 32, null),
+    KECCAK_384(Multicodec.KECCAK_384, 48, null),
+    KECCAK_512(Multicodec.KECCAK_512, 64, null),
+    MD5(Multicodec.MD5, 16, "MD5");
+
+    private static final HashFunction[] BY_ORDINAL = new HashFunction[Multicodec.values().length];
+
+    static {
+        for (HashFunction function : values()) {
+            BY_ORDINAL[function.codec.ordinal()] = function;
+        }
+    }
+
+    final Multicodec codec;
+    //The length of the digest in bytes, or -1 for the identity, whose digest is the data itself.
+    final int digestLength;
+    private final String jdkAlgorithm;
+    private final boolean jdkAvailable;
+
+    HashFunction(Multicodec codec, int digestLength, String jdkAlgorithm) {
+        this.codec = codec;
+        this.digestLength = digestLength;
+        this.jdkAlgorithm = jdkAlgorithm;
+        this.jdkAvailable = isJdkAvailable(jdkAlgorithm);
+    }
+
+    /**
+     * Gets the hash function for a codec.
+     * @param codec the codec.
+     * @return the hash function, or null if the codec is not a supported hash function.
+     */
+    static HashFunction of(Multicodec codec) {
+        return BY_ORDINAL[codec.ordinal()];
+    }
+
+    /**
+     * Gets the hash function for a multihash code.
+     * @param code the code.
+     * @return the hash function, or null if the code is not a supported hash function.
+     */
+    static HashFunction of(long code) {
+        for (HashFunction function : values()) {
+            if (function.codec.codeValue == code) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a new digest for the function. The JDK provider is preferred, so any intrinsics are used.
+     * @return the digest.
+     */
+    MessageDigest newDigest() {
+        if (jdkAvailable) {
+            try {
+                return MessageDigest.getInstance(jdkAlgorithm);
+            } catch (NoSuchAlgorithmException exNoSuchAlgorithm) {
+                throw new IllegalStateException("Digest no longer available: " + jdkAlgorithm, exNoSuchAlgorithm);
+            }
+        }
+        switch (this) {
+            case IDENTITY:
+                return new IdentityDigest();
+            case SHA3_224:
+                return KeccakDigest.sha3(224);
+            case SHA3_256:
+                return KeccakDigest.sha3(256);
+            case SHA3_384:
+                return KeccakDigest.sha3(384);
+            case SHA3_512:
+                return KeccakDigest.sha3(512);
+            case SHAKE_128:
+                return KeccakDigest.shake(128, digestLength);
+            case SHAKE_256:
+                return KeccakDigest.shake(256, digestLength);
+            case KECCAK_224:
+                return KeccakDigest.keccak(224);
+            case KECCAK_256:
+                return KeccakDigest.keccak(256);
+            case KECCAK_384:
+                return KeccakDigest.keccak(384);
+            case KECCAK_512:
+                return KeccakDigest.keccak(512);
+            default:
+                throw new IllegalStateException("No digest available for " + codec.name() + ": " + jdkAlgorithm);
+        }
+    }
+
+    private static boolean isJdkAvailable(String algorithm) {
+        if (algorithm == null) {
+            return false;
+        }
+        try {
+            MessageDigest.getInstance(algorithm);
+            return true;
+        } catch (NoSuchAlgorithmException exNoSuchAlgorithm) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+
+/**
+ * The identity multihash as a {@link MessageDigest}: the digest is the data itself.
+ * The data is held until the digest is taken, so it suits only the short inputs identity multihashes are meant for.
+ */
+final class IdentityDigest extends MessageDigest {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+    IdentityDigest() {
+        super("IDENTITY");
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        data.write(input);
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        data.write(input, offset, len);
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        byte[] digest = data.toByteArray();
+        data.reset();
+        return digest;
+    }
+
+    @Override
+    protected void engineReset() {
+        data.reset();
+    }
+}
@@ -0,0 +1,212 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * <p>A pure Java Keccak sponge as a {@link MessageDigest}, for the Keccak, SHA-3 and SHAKE hash functions.</p>
+ * <p>The JDK has no original Keccak (as used by Ethereum) or SHAKE message digests, and no SHA-3 before Java 9.
+ * The three families share the Keccak-f[1600] permutation and differ only in the rate, the length of the output and
+ * the domain padding byte.</p>
+ * <p>See: <a href="https://keccak.team/keccak_specs_summary.html">https://keccak.team/keccak_specs_summary.html</a>
+ * and FIPS 202.</p>
+ */
+public final class KeccakDigest extends MessageDigest {
+
+    private static final byte KECCAK_PADDING = 0x01;
+    private static final byte SHA3_PADDING = 0x06;
+    private static final byte SHAKE_PADDING = 0x1F;
+
+    private static final long[] ROUND_CONSTANTS = {
+            0x0000000000000001L, 0x0000000000008082L, 0x800000000000808AL, 0x8000000080008000L,
+            0x000000000000808BL, 0x0000000080000001L, 0x8000000080008081L, 0x8000000000008009L,
+            0x000000000000008AL, 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000AL,
+            0x000000008000808BL, 0x800000000000008BL, 0x8000000000008089L, 0x8000000000008003L,
+            0x8000000000008002L, 0x8000000000000080L, 0x000000000000800AL, 0x800000008000000AL,
+            0x8000000080008081L, 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L};
+
+    //The lane each lane moves to, and its rotation, in the combined rho and pi steps, walked from lane 1.
+    private static final int[] PI_LANES = {10, 7, 11, 17, 18, 3, 5, 16, 8, 21, 24, 4, 15, 23, 19, 13, 12, 2, 20, 14, 22, 9, 6, 1};
+    private static final int[] RHO_ROTATIONS = {1, 3, 6, 10, 15, 21, 28, 36, 45, 55, 2, 14, 27, 41, 56, 8, 25, 43, 62, 18, 39, 61, 20, 44};
+
+    private final long[] state = new long[25];
+    private final int rate;
+    private final int outputLength;
+    private final byte padding;
+    private final byte[] block;
+    private int blockLength;
+
+    private KeccakDigest(String algorithm, int capacityBits, int outputLength, byte padding) {
+        super(algorithm);
+        this.rate = (1600 - capacityBits) / 8;
+        this.outputLength = outputLength;
+        this.padding = padding;
+        this.block = new byte[rate];
+    }
+
+    /**
+     * Creates an original Keccak digest, as submitted to the SHA-3 competition and used by Ethereum.
+     * @param bits The digest length in bits: 224, 256, 384 or 512.
+     * @return The digest.
+     */
+    public static KeccakDigest keccak(int bits) {
+        return new KeccakDigest("KECCAK-" + checkBits(bits), 2 * bits, bits / 8, KECCAK_PADDING);
+    }
+
+    /**
+     * Creates a SHA-3 digest as per FIPS 202.
+     * @param bits The digest length in bits: 224, 256, 384 or 512.
+     * @return The digest.
+     */
+    public static KeccakDigest sha3(int bits) {
+        return new KeccakDigest("SHA3-" + checkBits(bits), 2 * bits, bits / 8, SHA3_PADDING);
+    }
+
+    /**
+     * Creates a SHAKE extendable output function as per FIPS 202, with a fixed output length.
+     * @param securityBits The security strength: 128 or 256.
+     * @param outputLength The output length in bytes.
+     * @return The digest.
+     */
+    public static KeccakDigest shake(int securityBits, int outputLength) {
+        if (securityBits != 128 && securityBits != 256) {
+            throw new IllegalArgumentException("SHAKE security strength must be 128 or 256: " + securityBits);
+        }
+        if (outputLength < 1) {
+            throw new IllegalArgumentException("Output length must be positive: " + outputLength);
+        }
+        return new KeccakDigest("SHAKE" + securityBits, 2 * securityBits, outputLength, SHAKE_PADDING);
+    }
+
+    private static int checkBits(int bits) {
+        if (bits != 224 && bits != 256 && bits != 384 && bits != 512) {
+            throw new IllegalArgumentException("Digest length must be 224, 256, 384 or 512 bits: " + bits);
+        }
+        return bits;
+    }
+
+    @Override
+    protected int engineGetDigestLength() {
+        return outputLength;
+    }
+
+    @Override
+    protected void engineUpdate(byte input) {
+        block[blockLength++] = input;
+        if (blockLength == rate) {
+            absorb(block, 0);
+            blockLength = 0;
+        }
+    }
+
+    @Override
+    protected void engineUpdate(byte[] input, int offset, int len) {
+        if (blockLength > 0) {
+            int fill = Math.min(len, rate - blockLength);
+            System.arraycopy(input, offset, block, blockLength, fill);
+            blockLength += fill;
+            offset += fill;
+            len -= fill;
+            if (blockLength < rate) {
+                return;
+            }
+            absorb(block, 0);
+            blockLength = 0;
+        }
+        //Absorb whole blocks straight from the input.
+        while (len >= rate) {
+            absorb(input, offset);
+            offset += rate;
+            len -= rate;
+        }
+        System.arraycopy(input, offset, block, 0, len);
+        blockLength = len;
+    }
+
+    @Override
+    protected byte[] engineDigest() {
+        Arrays.fill(block, blockLength, rate, (byte) 0);
+        block[blockLength] ^= padding;
+        block[rate - 1] ^= (byte) 0x80;
+        absorb(block, 0);
+
+        byte[] output = new byte[outputLength];
+        for (int pos = 0; ; ) {
+            for (int i = 0; i < rate && pos < outputLength; i++) {
+                output[pos++] = (byte) (state[i >>> 3] >>> ((i & 7) * 8));
+            }
+            if (pos == outputLength) {
+                break;
+            }
+            permute(state);
+        }
+        engineReset();
+        return output;
+    }
+
+    @Override
+    protected void engineReset() {
+        Arrays.fill(state, 0L);
+        blockLength = 0;
+    }
+
+    private void absorb(byte[] input, int offset) {
+        for (int lane = 0; lane < rate / 8; lane++) {
+            int i = offset + lane * 8;
+            state[lane] ^= (input[i] & 0xFFL)
+                    | (input[i + 1] & 0xFFL) << 8
+                    | (input[i + 2] & 0xFFL) << 16
+                    | (input[i + 3] & 0xFFL) << 24
+                    | (input[i + 4] & 0xFFL) << 32
+                    | (input[i + 5] & 0xFFL) << 40
+                    | (input[i + 6] & 0xFFL) << 48
+                    | (input[i + 7] & 0xFFL) << 56;
+        }
+        permute(state);
+    }
+
+    /**
+     * The Keccak-f[1600] permutation.
+     */
+    private static void permute(long[] a) {
+        for (int round = 0; round < 24; round++) {
+            //Theta, with the column parities in locals so a permutation does not allocate
+            long c0 = a[0] ^ a[5] ^ a[10] ^ a[15] ^ a[20];
+            long c1 = a[1] ^ a[6] ^ a[11] ^ a[16] ^ a[21];
+            long c2 = a[2] ^ a[7] ^ a[12] ^ a[17] ^ a[22];
+            long c3 = a[3] ^ a[8] ^ a[13] ^ a[18] ^ a[23];
+            long c4 = a[4] ^ a[9] ^ a[14] ^ a[19] ^ a[24];
+            long d0 = c4 ^ Long.rotateLeft(c1, 1);
+            long d1 = c0 ^ Long.rotateLeft(c2, 1);
+            long d2 = c1 ^ Long.rotateLeft(c3, 1);
+            long d3 = c2 ^ Long.rotateLeft(c4, 1);
+            long d4 = c3 ^ Long.rotateLeft(c0, 1);
+            for (int y = 0; y < 25; y += 5) {
+                a[y] ^= d0;
+                a[y + 1] ^= d1;
+                a[y + 2] ^= d2;
+                a[y + 3] ^= d3;
+                a[y + 4] ^= d4;
+            }
+            //Rho and pi
+            long current = a[1];
+            for (int i = 0; i < 24; i++) {
+                int lane = PI_LANES[i];
+                long next = a[lane];
+                a[lane] = Long.rotateLeft(current, RHO_ROTATIONS[i]);
+                current = next;
+            }
+            //Chi
+            for (int y = 0; y < 25; y += 5) {
+                long a0 = a[y], a1 = a[y + 1], a2 = a[y + 2], a3 = a[y + 3], a4 = a[y + 4];
+                a[y] = a0 ^ (~a1 & a2);
+                a[y + 1] = a1 ^ (~a2 & a3);
+                a[y + 2] = a2 ^ (~a3 & a4);
+                a[y + 3] = a3 ^ (~a4 & a0);
+                a[y + 4] = a4 ^ (~a0 & a1);
+            }
+            //Iota
+            a[0] ^= ROUND_CONSTANTS[round];
+        }
+    }
+}
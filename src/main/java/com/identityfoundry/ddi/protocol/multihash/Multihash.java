@@ -0,0 +1,269 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import com.identityfoundry.ddi.protocol.common.VarInt;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * <p>Computes and verifies multihashes: a digest prefixed with the code of its hash function and its length,
+ * as <code>&lt;code varint&gt;&lt;length varint&gt;&lt;digest&gt;</code>.</p>
+ * <p>Data may be hashed from a byte array, a {@link ByteBuffer}, an {@link InputStream} or a {@link FileChannel}.
+ * Digests are borrowed from per-thread pools rather than created per call, and the JDK's providers are used where
+ * they have the hash function. Keccak, SHAKE, and SHA-3 where the JDK lacks it, are computed by {@link KeccakDigest}.</p>
+ * <p>The supported hash functions are {@link Multicodec#IDENTITY}, SHA-1, the SHA-2 family, {@link Multicodec#DBL_SHA2_256},
+ * SHA-3, SHAKE, Keccak and MD5. Others, such as BLAKE3 and the Murmur3 hashes, are rejected with an
+ * {@link IllegalArgumentException}.</p>
+ * <p>See: <a href="https://github.com/multiformats/multihash">https://github.com/multiformats/multihash</a></p>
+ */
+public final class Multihash {
+
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+    private Multihash() {
+    }
+
+    /**
+     * Tests whether a codec is a hash function that can be computed.
+     * @param codec The codec.
+     * @return true if multihashes of the codec can be computed.
+     */
+    public static boolean isSupported(Multicodec codec) {
+        return HashFunction.of(codec) != null;
+    }
+
+    /**
+     * Gets the length of the digest of a hash function.
+     * @param codec The hash function.
+     * @return The length of the digest in bytes, or -1 for {@link Multicodec#IDENTITY} whose digest is the data.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     */
+    public static int getDigestLength(Multicodec codec) {
+        return function(codec).digestLength;
+    }
+
+    /**
+     * Computes the multihash of data.
+     * @param codec The hash function.
+     * @param data The data.
+     * @return The multihash.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     */
+    public static byte[] hash(Multicodec codec, byte[] data) {
+        return hash(codec, data, 0, data.length);
+    }
+
+    /**
+     * Computes the multihash of a range of an array.
+     * @param codec The hash function.
+     * @param data The array.
+     * @param off The offset of the data.
+     * @param len The length of the data.
+     * @return The multihash.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     */
+    public static byte[] hash(Multicodec codec, byte[] data, int off, int len) {
+        HashFunction function = function(codec);
+        if (off < 0 || len < 0 || off > data.length - len) {
+            throw new IndexOutOfBoundsException("Range [" + off + ", " + off + " + " + len + ") out of bounds for length " + data.length);
+        }
+        return wrap(function, digest(function, data, off, len));
+    }
+
+    /**
+     * Computes the multihash of the remaining bytes of a buffer. The buffer's position is advanced to its limit.
+     * @param codec The hash function.
+     * @param data The buffer.
+     * @return The multihash.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     */
+    public static byte[] hash(Multicodec codec, ByteBuffer data) {
+        HashFunction function = function(codec);
+        MessageDigest digest = DigestPool.borrow(function);
+        try {
+            digest.update(data);
+            return wrap(function, finish(function, digest));
+        } finally {
+            DigestPool.release(function, digest);
+        }
+    }
+
+    /**
+     * Computes the multihash of the rest of a stream, reading it to its end. The stream is not closed.
+     * @param codec The hash function.
+     * @param in The stream.
+     * @return The multihash.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     * @throws IOException if the stream throws {@link IOException}
+     */
+    public static byte[] hash(Multicodec codec, InputStream in) throws IOException {
+        HashFunction function = function(codec);
+        MessageDigest digest = DigestPool.borrow(function);
+        try {
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            for (int read; (read = in.read(buffer)) >= 0; ) {
+                digest.update(buffer, 0, read);
+            }
+            return wrap(function, finish(function, digest));
+        } finally {
+            DigestPool.release(function, digest);
+        }
+    }
+
+    /**
+     * Computes the multihash of the whole of a file. The file is read with positional reads, so the channel's
+     * position is unchanged and the channel may be shared.
+     * @param codec The hash function.
+     * @param channel The file.
+     * @return The multihash.
+     * @throws IllegalArgumentException if the hash function is not supported.
+     * @throws IOException if the channel throws {@link IOException}
+     */
+    public static byte[] hash(Multicodec codec, FileChannel channel) throws IOException {
+        HashFunction function = function(codec);
+        MessageDigest digest = DigestPool.borrow(function);
+        try {
+            //A direct buffer saves the channel copying through a temporary one on each read.
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+            long position = 0;
+            for (int read; (read = channel.read(buffer, position)) >= 0; ) {
+                position += read;
+                ((Buffer) buffer).flip();
+                digest.update(buffer);
+                ((Buffer) buffer).clear();
+            }
+            return wrap(function, finish(function, digest));
+        } finally {
+            DigestPool.release(function, digest);
+        }
+    }
+
+    /**
+     * Verifies data against a multihash. A multihash with a digest shorter than its hash function's, as the
+     * multihash specification allows, is verified against the start of the digest.
+     * @param multihash The multihash.
+     * @param data The data.
+     * @return true if the data has the multihash.
+     * @throws IllegalArgumentException if the multihash is malformed or its hash function is not supported.
+     */
+    public static boolean verify(byte[] multihash, byte[] data) {
+        Header header = Header.parse(multihash);
+        byte[] actual = digest(header.function, data, 0, data.length);
+        if (header.function == HashFunction.IDENTITY && header.digestLength != actual.length) {
+            return false;
+        }
+        for (int i = 0; i < header.digestLength; i++) {
+            if (multihash[header.digestOffset + i] != actual[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the hash function of a multihash.
+     * @param multihash The multihash.
+     * @return The hash function.
+     * @throws IllegalArgumentException if the multihash is malformed or its hash function is not supported.
+     */
+    public static Multicodec getCodec(byte[] multihash) {
+        return Header.parse(multihash).function.codec;
+    }
+
+    /**
+     * Gets a copy of the digest of a multihash.
+     * @param multihash The multihash.
+     * @return The digest.
+     * @throws IllegalArgumentException if the multihash is malformed or its hash function is not supported.
+     */
+    public static byte[] getDigest(byte[] multihash) {
+        Header header = Header.parse(multihash);
+        return Arrays.copyOfRange(multihash, header.digestOffset, header.digestOffset + header.digestLength);
+    }
+
+    private static HashFunction function(Multicodec codec) {
+        HashFunction function = HashFunction.of(codec);
+        if (function == null) {
+            throw new IllegalArgumentException("Unsupported multihash function: " + codec.name());
+        }
+        return function;
+    }
+
+    private static byte[] digest(HashFunction function, byte[] data, int off, int len) {
+        if (function == HashFunction.IDENTITY) {
+            return Arrays.copyOfRange(data, off, off + len);
+        }
+        MessageDigest digest = DigestPool.borrow(function);
+        try {
+            digest.update(data, off, len);
+            return finish(function, digest);
+        } finally {
+            DigestPool.release(function, digest);
+        }
+    }
+
+    static byte[] finish(HashFunction function, MessageDigest digest) {
+        byte[] result = digest.digest();
+        if (function == HashFunction.DBL_SHA2_256) {
+            result = digest.digest(result);
+        }
+        return result;
+    }
+
+    private static byte[] wrap(HashFunction function, byte[] digest) {
+        long code = function.codec.codeValue;
+        byte[] multihash = new byte[VarInt.varIntSize(code) + VarInt.varIntSize(digest.length) + digest.length];
+        int pos = VarInt.writeUnsignedVarLong(code, multihash, 0);
+        pos = VarInt.writeUnsignedVarInt(digest.length, multihash, pos);
+        System.arraycopy(digest, 0, multihash, pos, digest.length);
+        return multihash;
+    }
+
+    /**
+     * The parsed code and length of a multihash.
+     */
+    static final class Header {
+        final HashFunction function;
+        final int digestOffset;
+        final int digestLength;
+
+        private Header(HashFunction function, int digestOffset, int digestLength) {
+            this.function = function;
+            this.digestOffset = digestOffset;
+            this.digestLength = digestLength;
+        }
+
+        static Header parse(byte[] multihash) {
+            if (multihash.length == 0) {
+                throw new IllegalArgumentException("Multihash is empty");
+            }
+            long code = VarInt.readUnsignedVarLong(multihash, 0);
+            int pos = VarInt.varIntSize(code);
+            HashFunction function = HashFunction.of(code);
+            if (function == null) {
+                throw new IllegalArgumentException("Unsupported multihash function code: 0x" + Long.toHexString(code));
+            }
+            if (pos == multihash.length) {
+                throw new IllegalArgumentException("Multihash has no digest length");
+            }
+            int length = VarInt.readUnsignedVarInt(multihash, pos);
+            pos += VarInt.varIntSize(length);
+            if (length < 0 || length != multihash.length - pos) {
+                throw new IllegalArgumentException("Multihash digest length " + (length & 0xFFFFFFFFL)
+                        + " does not match the " + (multihash.length - pos) + " bytes that follow");
+            }
+            if (function.digestLength >= 0 && length > function.digestLength) {
+                throw new IllegalArgumentException("Multihash digest length " + length + " exceeds the "
+                        + function.digestLength + " bytes of " + function.codec.name());
+            }
+            return new Header(function, pos, length);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+/**
+ * <p>Passes through a stream while verifying it against an expected multihash.</p>
+ * <p>Each byte read is added to a running digest as it passes, so the data is never held in full. When the
+ * underlying stream ends the digest is compared with the expected multihash, and the read that would return the
+ * end of the stream throws a {@link MultihashMismatchException} instead if they differ. A caller should therefore
+ * read to the end before trusting the data. An identity multihash is compared byte by byte as the data passes.</p>
+ * <p>Skipped bytes are read and hashed. Mark and reset are not supported.</p>
+ */
+public class MultihashInputStream extends FilterInputStream {
+
+    private final byte[] expected;
+    private final Multihash.Header header;
+    private final byte[] single = new byte[1];
+    private MessageDigest digest;
+    private long position;
+    private boolean identityMismatch;
+    private boolean verified;
+    private boolean mismatched;
+
+    /**
+     * Creates a stream verifying an underlying stream.
+     * @param in The underlying stream.
+     * @param multihash The expected multihash of the whole of the underlying stream.
+     * @throws IllegalArgumentException if the multihash is malformed or its hash function is not supported.
+     */
+    public MultihashInputStream(InputStream in, byte[] multihash) {
+        super(in);
+        this.expected = multihash.clone();
+        this.header = Multihash.Header.parse(expected);
+        if (header.function != HashFunction.IDENTITY) {
+            this.digest = DigestPool.borrow(header.function);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return (read < 0) ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (verified) {
+            return -1;
+        }
+        if (mismatched) {
+            throw mismatch();
+        }
+        int read = in.read(b, off, len);
+        if (read < 0) {
+            verify();
+            return -1;
+        }
+        update(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Tests whether the whole stream has been read and matched the expected multihash.
+     * @return true if the stream has been verified.
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+
+    @Override
+    public void close() throws IOException {
+        releaseDigest();
+        super.close();
+    }
+
+    private void update(byte[] b, int off, int len) throws IOException {
+        if (header.function != HashFunction.IDENTITY) {
+            if (digest == null) {
+                throw new IOException("Stream closed");
+            }
+            digest.update(b, off, len);
+            return;
+        }
+        //An identity multihash holds the data itself, so compare it in place.
+        for (int i = 0; i < len && !identityMismatch; i++, position++) {
+            identityMismatch = position >= header.digestLength
+                    || b[off + i] != expected[header.digestOffset + (int) position];
+        }
+    }
+
+    private void verify() throws IOException {
+        boolean matches;
+        if (header.function == HashFunction.IDENTITY) {
+            matches = !identityMismatch && position == header.digestLength;
+        } else if (digest == null) {
+            throw new IOException("Stream closed");
+        } else {
+            byte[] actual = Multihash.finish(header.function, digest);
+            releaseDigest();
+            matches = true;
+            for (int i = 0; i < header.digestLength; i++) {
+                matches &= actual[i] == expected[header.digestOffset + i];
+            }
+        }
+        if (!matches) {
+            mismatched = true;
+            throw mismatch();
+        }
+        verified = true;
+    }
+
+    private MultihashMismatchException mismatch() {
+        return new MultihashMismatchException("Data does not match the expected " + header.function.codec.name() + " multihash");
+    }
+
+    private void releaseDigest() {
+        if (digest != null) {
+            DigestPool.release(header.function, digest);
+            digest = null;
+        }
+    }
+}
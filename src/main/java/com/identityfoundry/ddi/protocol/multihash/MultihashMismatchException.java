@@ -0,0 +1,13 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a {@link MultihashInputStream} when the data read does not match the expected multihash.
+ */
+public class MultihashMismatchException extends IOException {
+
+    MultihashMismatchException(String message) {
+        super(message);
+    }
+}
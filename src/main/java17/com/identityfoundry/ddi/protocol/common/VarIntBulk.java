@@ -0,0 +1,231 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Bulk steps of {@link VarIntArrays} decoding: scanning packed varints for runs of single byte values, and
+ * decoding blocks of one and two byte values at once.</p>
+ * <p>This is the Java 17 implementation in the multi-release jar. When the <code>jdk.incubator.vector</code> module
+ * is present (<code>--add-modules jdk.incubator.vector</code>) and the CPU has 512-bit vectors, blocks are decoded in
+ * the style of Masked-VByte: the continuation bits of 16 bytes are gathered into a mask, the mask of the first 12
+ * bytes selects a precomputed shuffle that moves up to eight one or two byte values into 16-bit lanes, and the 7-bit
+ * groups of all the lanes are joined at once. Sixteen single byte values are widened without a shuffle. Otherwise, or
+ * when the system property <code>multicodec.varint.vector</code> is <code>false</code>, decoding is scalar as on
+ * Java 8.</p>
+ */
+final class VarIntBulk {
+
+    private static final long CONTINUATION_BITS = 0x8080808080808080L;
+
+    private static final boolean VECTORIZED = vectorAvailable();
+
+    private VarIntBulk() {}
+
+    /**
+     * @return true, if blocks are decoded with the vector API.
+     */
+    static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Finds the length of the run of bytes without the continuation bit.
+     * @param src The packed varints.
+     * @param off The offset to scan from.
+     * @param max The most bytes to scan.
+     * @return The number of single byte values at off, up to max.
+     */
+    static int singleByteRun(byte[] src, int off, int max) {
+        int n = 0;
+        while (n <= max - 8 && (VarIntSwar.loadLittleEndian(src, off + n) & CONTINUATION_BITS) == 0) {
+            n += 8;
+        }
+        while (n < max && src[off + n] >= 0) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Decodes the one and two byte values at pos into dest from index i, without transforming them, stopping at a
+     * longer or malformed value or near the end of either range. Only decodes when {@link #isVectorized()}.
+     * @return the offset in src and the index in dest after the decoded values, as {@link #position(int, int)}.
+     */
+    static long decodeSmall(byte[] src, int pos, int limit, long[] dest, int i, int end) {
+        return VECTORIZED ? Vectorized.decodeSmall(src, pos, limit, dest, i, end) : position(pos, i);
+    }
+
+    /**
+     * @see #decodeSmall(byte[], int, int, long[], int, int)
+     */
+    static long decodeSmall(byte[] src, int pos, int limit, int[] dest, int i, int end) {
+        return VECTORIZED ? Vectorized.decodeSmall(src, pos, limit, dest, i, end) : position(pos, i);
+    }
+
+    /**
+     * Packs an offset in the source and an index in the destination into one value.
+     */
+    static long position(int pos, int i) {
+        return ((long) pos << 32) | (i & 0xFFFFFFFFL);
+    }
+
+    private static boolean vectorAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("multicodec.varint.vector", "true"))) {
+            return false;
+        }
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return false;
+        }
+        //Eight values are widened to longs at once, which would be emulated, and slow, on narrower vectors.
+        return Vectorized.preferredBits() >= 512;
+    }
+
+    /**
+     * Only loaded when the vector module is present, so the class is never linked against a missing module.
+     */
+    private static final class Vectorized {
+        private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+        private static final VectorSpecies<Byte> HALF_BYTES = ByteVector.SPECIES_64;
+        private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_128;
+        private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_512;
+        private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+
+        private static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        //The patterns are the continuation bits of the first 12 bytes of a block, as in Masked-VByte.
+        private static final int PATTERN_BYTES = 12;
+        private static final int MAX_VALUES = 8;
+
+        //For each pattern: the number of values decoded, the bytes they take, the shuffle moving the bytes of value k
+        //to lanes 2k and 2k + 1, the mask keeping the 7-bit groups of the lanes in use, and the least minimal value
+        //of each lane.
+        private static final byte[] COUNTS = new byte[1 << PATTERN_BYTES];
+        private static final byte[] LENGTHS = new byte[1 << PATTERN_BYTES];
+        private static final byte[] SHUFFLES = new byte[(1 << PATTERN_BYTES) * 16];
+        private static final byte[] GROUP_MASKS = new byte[(1 << PATTERN_BYTES) * 16];
+        private static final short[] MINIMUMS = new short[(1 << PATTERN_BYTES) * 8];
+
+        static {
+            for (int pattern = 0; pattern < 1 << PATTERN_BYTES; pattern++) {
+                int bit = 0;
+                int count = 0;
+                while (count < MAX_VALUES && bit < PATTERN_BYTES) {
+                    int bytes;
+                    if ((pattern >>> bit & 1) == 0) {
+                        bytes = 1;
+                    } else if (bit + 1 < PATTERN_BYTES && (pattern >>> (bit + 1) & 1) == 0) {
+                        bytes = 2;
+                        MINIMUMS[pattern * 8 + count] = 0x80;
+                    } else {
+                        //Longer than two bytes, or runs past the pattern.
+                        break;
+                    }
+                    for (int b = 0; b < bytes; b++) {
+                        SHUFFLES[pattern * 16 + 2 * count + b] = (byte) (bit + b);
+                        GROUP_MASKS[pattern * 16 + 2 * count + b] = 0x7F;
+                    }
+                    bit += bytes;
+                    count++;
+                }
+                COUNTS[pattern] = (byte) count;
+                LENGTHS[pattern] = (byte) bit;
+            }
+        }
+
+        static int preferredBits() {
+            return ByteVector.SPECIES_PREFERRED.vectorBitSize();
+        }
+
+        static long decodeSmall(byte[] src, int pos, int limit, long[] dest, int i, int end) {
+            while (limit - pos >= 16 && end - i >= 16) {
+                int continuation = continuationBits(src, pos);
+                if (continuation == 0) {
+                    //Sixteen single byte values.
+                    ((LongVector) ByteVector.fromArray(HALF_BYTES, src, pos)
+                            .convertShape(VectorOperators.B2L, LONGS, 0)).intoArray(dest, i);
+                    ((LongVector) ByteVector.fromArray(HALF_BYTES, src, pos + 8)
+                            .convertShape(VectorOperators.B2L, LONGS, 0)).intoArray(dest, i + 8);
+                    pos += 16;
+                    i += 16;
+                    continue;
+                }
+                int pattern = continuation & ((1 << PATTERN_BYTES) - 1);
+                int length = LENGTHS[pattern];
+                if (length == 0) {
+                    break;
+                }
+                ShortVector values = join(src, pos, pattern);
+                if (values == null) {
+                    break;
+                }
+                ((LongVector) values.convertShape(VectorOperators.S2L, LONGS, 0)).intoArray(dest, i);
+                pos += length;
+                i += COUNTS[pattern];
+            }
+            return position(pos, i);
+        }
+
+        static long decodeSmall(byte[] src, int pos, int limit, int[] dest, int i, int end) {
+            while (limit - pos >= 16 && end - i >= 16) {
+                int continuation = continuationBits(src, pos);
+                if (continuation == 0) {
+                    ((IntVector) ByteVector.fromArray(HALF_BYTES, src, pos)
+                            .convertShape(VectorOperators.B2I, INTS, 0)).intoArray(dest, i);
+                    ((IntVector) ByteVector.fromArray(HALF_BYTES, src, pos + 8)
+                            .convertShape(VectorOperators.B2I, INTS, 0)).intoArray(dest, i + 8);
+                    pos += 16;
+                    i += 16;
+                    continue;
+                }
+                int pattern = continuation & ((1 << PATTERN_BYTES) - 1);
+                int length = LENGTHS[pattern];
+                if (length == 0) {
+                    break;
+                }
+                ShortVector values = join(src, pos, pattern);
+                if (values == null) {
+                    break;
+                }
+                ((IntVector) values.convertShape(VectorOperators.S2I, INTS, 0)).intoArray(dest, i);
+                pos += length;
+                i += COUNTS[pattern];
+            }
+            return position(pos, i);
+        }
+
+        /**
+         * Gathers the continuation bits of 16 bytes, the first byte in the lowest bit.
+         */
+        private static int continuationBits(byte[] src, int pos) {
+            return gather((long) WORDS.get(src, pos)) | gather((long) WORDS.get(src, pos + 8)) << 8;
+        }
+
+        private static int gather(long word) {
+            return (int) ((((word & CONTINUATION_BITS) >>> 7) * 0x0102040810204080L) >>> 56);
+        }
+
+        /**
+         * Moves the values of a pattern into 16-bit lanes and joins their 7-bit groups.
+         * @return the values, or null if a two byte value ends in a zero byte, so has a shorter encoding and is left to
+         * {@link VarInt} to reject.
+         */
+        private static ShortVector join(byte[] src, int pos, int pattern) {
+            ByteVector block = ByteVector.fromArray(BYTES, src, pos);
+            ShortVector lanes = block.rearrange(ByteVector.fromArray(BYTES, SHUFFLES, pattern * 16).toShuffle())
+                    .and(ByteVector.fromArray(BYTES, GROUP_MASKS, pattern * 16))
+                    .reinterpretAsShorts();
+            //The lanes are never negative, so an arithmetic shift is the same as a logical one.
+            ShortVector values = lanes.and((short) 0x7F).or(lanes.lanewise(VectorOperators.ASHR, 1).and((short) 0x3F80));
+            return values.lt(ShortVector.fromArray(SHORTS, MINIMUMS, pattern * 8)).anyTrue() ? null : values;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.identityfoundry.ddi.protocol.cid;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.multibase.Multibase;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import com.identityfoundry.ddi.protocol.multihash.Multihash;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests parsing, writing and comparing CIDs.
+ */
+public class CidTest {
+
+    private static final String V0 = "QmdfTbBqBPQ7VNxZEYEj14VmRuZBkqFbiwReogJgS1zR1n";
+    private static final String V1 = "bafybeihdwdcefgh4dqkjv67uzcmw7ojee6xedzdetojuzjevtenxquvyku";
+
+    /**
+     * Tests the CIDv0 and CIDv1 of the CID specification example, and converting between them.
+     */
+    @Test
+    public void testSpecificationExample() {
+        Cid v0 = Cid.parse(V0);
+        assertEquals("Version", 0, v0.getVersion());
+        assertEquals("Codec", Multicodec.DAG_PB, v0.getCodec());
+        assertEquals("Hash", Multicodec.SHA2_256, v0.getHashFunction());
+        assertEquals("Round trip", V0, v0.toString());
+
+        Cid v1 = Cid.parse(V1);
+        assertEquals("Version", 1, v1.getVersion());
+        assertEquals("Codec", Multicodec.DAG_PB, v1.getCodec());
+        assertEquals("Round trip", V1, v1.toString());
+        assertEquals("To v1", v1, v0.toV1());
+        assertSame("Already v1", v1, v1.toV1());
+        assertArrayEquals("Same multihash", v0.getMultihash(), v1.getMultihash());
+        assertNotEquals("Versions differ", v0, v1);
+
+        assertEquals("Other bases", v1, Cid.parse(v1.toString(Multibase.BASE58_BTC)));
+        assertEquals("Binary", v1, Cid.fromBytes(v1.toBytes()));
+        assertThrows(IllegalArgumentException.class, () -> v0.toString(Multibase.BASE32));
+    }
+
+    /**
+     * Tests a CID built from content verifies the content.
+     */
+    @Test
+    public void testOf() {
+        byte[] content = "hello world".getBytes(StandardCharsets.US_ASCII);
+        Cid cid = Cid.of(Multicodec.RAW, Multihash.hash(Multicodec.SHA2_256, content));
+        assertEquals("Raw leaf", "bafkreifzjut3te2nhyekklss27nh3k72ysco7y32koao5eei66wof36n5e", cid.toString());
+        assertEquals("Length", 36, cid.getLength());
+        assertTrue("Verifies", cid.verify(content));
+        assertFalse("Other content", cid.verify(new byte[1]));
+
+        //A codec whose code is more than one byte.
+        Cid blake3 = Cid.of(Multicodec.DAG_JSON, HexUtils.hexToBytes("1E04DEADBEEF"));
+        assertEquals("Multi byte codec", Multicodec.DAG_JSON, Cid.parse(blake3.toString()).getCodec());
+        assertEquals("Unsupported hash still parses", Multicodec.BLAKE3, blake3.getHashFunction());
+    }
+
+    /**
+     * Tests equal CIDs hash alike, and the order is that of the unsigned binary forms.
+     */
+    @Test
+    public void testOrder() {
+        Random random = new Random(1);
+        List<Cid> cids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            byte[] content = new byte[random.nextInt(4)];
+            random.nextBytes(content);
+            Multicodec codec = (i % 2 == 0) ? Multicodec.RAW : Multicodec.DAG_CBOR;
+            cids.add(Cid.of(codec, Multihash.hash((i % 3 == 0) ? Multicodec.IDENTITY : Multicodec.SHA2_256, content)));
+        }
+        Set<Cid> set = new HashSet<>(cids);
+        for (Cid cid : cids) {
+            Cid copy = Cid.fromBytes(cid.toBytes());
+            assertEquals("Equal", cid, copy);
+            assertEquals("Hash", cid.hashCode(), copy.hashCode());
+            assertTrue("Found", set.contains(copy));
+            assertEquals("Compare equal", 0, cid.compareTo(copy));
+        }
+        Collections.sort(cids);
+        for (int i = 1; i < cids.size(); i++) {
+            String previous = HexUtils.bytesToHex(cids.get(i - 1).toBytes());
+            String current = HexUtils.bytesToHex(cids.get(i).toBytes());
+            assertTrue("Ordered " + previous + " " + current, previous.compareTo(current) <= 0);
+        }
+    }
+
+    /**
+     * Tests malformed CIDs are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows("Empty", IllegalArgumentException.class, () -> Cid.fromBytes(new byte[0]));
+        assertThrows("Version 2", IllegalArgumentException.class, () -> Cid.fromBytes(HexUtils.hexToBytes("02551200")));
+        assertThrows("No multihash", IllegalArgumentException.class, () -> Cid.fromBytes(HexUtils.hexToBytes("0155")));
+        assertThrows("Short digest", IllegalArgumentException.class, () -> Cid.fromBytes(HexUtils.hexToBytes("0155122001")));
+        assertThrows("Long digest", IllegalArgumentException.class, () -> Cid.fromBytes(HexUtils.hexToBytes("015512010101")));
+        assertThrows("Prefixed v0", IllegalArgumentException.class, () -> Cid.parse("z" + V0));
+        assertThrows("Bad base58", IllegalArgumentException.class, () -> Cid.parse("Qm" + V0.substring(2, 45) + "0"));
+        assertThrows("Range", IndexOutOfBoundsException.class, () -> Cid.fromBytes(new byte[4], 2, 3));
+    }
+}
@@ -0,0 +1,60 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the hex conversions.
+ */
+public class HexUtilsTest {
+
+    private static final byte[] BYTES = {0x00, 0x12, (byte) 0xAB, (byte) 0xFF, 0x7F};
+
+    /**
+     * Tests encoding in both cases, and into a range of an existing array.
+     */
+    @Test
+    public void testEncode() {
+        assertEquals("Upper case", "0012ABFF7F", HexUtils.bytesToHex(BYTES));
+        assertEquals("Lower case range", "12abff", HexUtils.encode(BYTES, 1, 3, false));
+
+        char[] dest = "[..........]".toCharArray();
+        assertEquals("End offset", 7, HexUtils.encode(BYTES, 2, 3, dest, 1, true));
+        assertEquals("Into array", "[ABFF7F....]", new String(dest));
+        assertThrows(IndexOutOfBoundsException.class, () -> HexUtils.encode(BYTES, 0, 5, new char[9], 0, true));
+    }
+
+    /**
+     * Tests strict decoding of both cases, a leading '0x' and ranges of a CharSequence.
+     */
+    @Test
+    public void testDecode() {
+        assertArrayEquals("Mixed case", BYTES, HexUtils.decode("0012aBfF7f"));
+        assertArrayEquals("Prefix", BYTES, HexUtils.decode("0x0012ABFF7F"));
+        assertArrayEquals("Empty", new byte[0], HexUtils.decode("0x"));
+
+        StringBuilder log = new StringBuilder("codec=ED01;");
+        byte[] dest = new byte[4];
+        assertEquals("End offset", 3, HexUtils.decode(log, 6, 10, dest, 1));
+        assertArrayEquals("Into array", new byte[]{0, (byte) 0xED, 0x01, 0}, dest);
+
+        assertTrue("Is hex", HexUtils.isHex("0XA1e9"));
+        assertFalse("Odd is not hex", HexUtils.isHex("A1E"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("A1E"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("A1G9"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("A10x"));
+        assertThrows(IllegalArgumentException.class, () -> HexUtils.decode("١٢"));
+        assertThrows(IndexOutOfBoundsException.class, () -> HexUtils.decode("A1E9", 0, 4, new byte[1], 0));
+    }
+
+    /**
+     * Tests the lenient conversion only skips a leading '0x', and still takes invalid characters as -1.
+     */
+    @Test
+    public void testLenientHexToBytes() {
+        assertArrayEquals("Prefix", BYTES, HexUtils.hexToBytes("0x0012abff7F"));
+        assertEquals("Invalid characters", "EFFF", HexUtils.bytesToHex(HexUtils.hexToBytes("OxFF")));
+        assertEquals("Embedded 0x is not removed", "A1FFE9", HexUtils.bytesToHex(HexUtils.hexToBytes("A10xE9")));
+    }
+}
@@ -0,0 +1,181 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the packed varint columns.
+ */
+public class VarIntArraysTest {
+
+    private static final long[] LONGS = {0, 1, 127, 128, 16383, 16384, -1, -64, Long.MAX_VALUE, Long.MIN_VALUE, 300, 299};
+
+    /**
+     * Tests the plain encoding is the same as writing each value with {@link VarInt}.
+     */
+    @Test
+    public void testMatchesVarInt() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        for (long value : LONGS) {
+            VarInt.writeUnsignedVarLong(value, out);
+        }
+        assertArrayEquals("Plain encoding", expected.toByteArray(), VarIntArrays.encode(LONGS, VarIntArrays.Transform.NONE));
+
+        expected.reset();
+        for (long value : LONGS) {
+            VarInt.writeSignedVarLong(value, out);
+        }
+        assertArrayEquals("Zig-zag encoding", expected.toByteArray(), VarIntArrays.encode(LONGS, VarIntArrays.Transform.ZIGZAG));
+    }
+
+    /**
+     * Tests every transform round trips long and int columns, and delta shrinks an ascending column.
+     */
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(42);
+        long[] offsets = new long[10000];
+        int[] sizes = new int[offsets.length];
+        for (int i = 1; i < offsets.length; i++) {
+            sizes[i] = (i % 100 == 0) ? random.nextInt() : random.nextInt(20000);
+            offsets[i] = offsets[i - 1] + (sizes[i] & 0xFFFF);
+        }
+        for (VarIntArrays.Transform transform : VarIntArrays.Transform.values()) {
+            assertArrayEquals("Longs " + transform, LONGS, VarIntArrays.decodeLongs(VarIntArrays.encode(LONGS, transform), transform));
+            assertArrayEquals("Offsets " + transform, offsets, VarIntArrays.decodeLongs(VarIntArrays.encode(offsets, transform), transform));
+            assertArrayEquals("Sizes " + transform, sizes, VarIntArrays.decodeInts(VarIntArrays.encode(sizes, transform), transform));
+        }
+        assertTrue("Delta is smaller", VarIntArrays.encode(offsets, VarIntArrays.Transform.DELTA).length
+                < VarIntArrays.encode(offsets, VarIntArrays.Transform.NONE).length);
+    }
+
+    /**
+     * Tests encoding into and decoding from ranges of existing arrays.
+     */
+    @Test
+    public void testRanges() {
+        int[] values = {5, 300, 70000, 6};
+        byte[] dest = new byte[2 + VarIntArrays.encodedLength(values, 1, 2, VarIntArrays.Transform.NONE)];
+        assertEquals("End offset", dest.length, VarIntArrays.encode(values, 1, 2, VarIntArrays.Transform.NONE, dest, 2));
+        assertEquals("Encoding", "0000AC02F0A204", HexUtils.bytesToHex(dest));
+
+        int[] decoded = new int[3];
+        assertEquals("Source end", dest.length, VarIntArrays.decode(dest, 2, dest.length - 2, decoded, 1, 2, VarIntArrays.Transform.NONE));
+        assertArrayEquals("Decoded", new int[]{0, 300, 70000}, decoded);
+        assertEquals("Count", 2, VarIntArrays.count(dest, 2, dest.length - 2));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> VarIntArrays.encode(values, 0, 4, VarIntArrays.Transform.NONE, new byte[6], 0));
+        assertThrows(IllegalArgumentException.class, () -> VarIntArrays.decode(dest, 2, 3, decoded, 0, 2, VarIntArrays.Transform.NONE));
+        assertThrows(IllegalArgumentException.class, () -> VarIntArrays.decodeLongs(HexUtils.hexToBytes("01AC"), VarIntArrays.Transform.NONE));
+        assertThrows(IllegalArgumentException.class, () -> VarIntArrays.decodeLongs(HexUtils.hexToBytes("8000"), VarIntArrays.Transform.NONE));
+    }
+
+    /**
+     * Tests runs of single byte values of every length up to several words, between multibyte values.
+     */
+    @Test
+    public void testSingleByteRuns() {
+        for (int run = 0; run < 70; run++) {
+            long[] values = new long[run + 2];
+            for (int i = 1; i <= run; i++) {
+                values[i] = i;
+            }
+            values[0] = 300;
+            values[run + 1] = 1L << 40;
+            for (VarIntArrays.Transform transform : VarIntArrays.Transform.values()) {
+                assertArrayEquals("Run " + run + " " + transform, values,
+                        VarIntArrays.decodeLongs(VarIntArrays.encode(values, transform), transform));
+            }
+            byte[] packed = VarIntArrays.encode(values, VarIntArrays.Transform.NONE);
+            long[] firstValues = new long[run + 1];
+            assertEquals("End of run " + run, packed.length - 6,
+                    VarIntArrays.decode(packed, 0, packed.length, firstValues, 0, run + 1, VarIntArrays.Transform.NONE));
+        }
+    }
+
+    /**
+     * Tests columns mixing one, two and three byte values at every mix, in every alignment of a block, decode the same
+     * as {@link VarInt} value by value.
+     */
+    @Test
+    public void testMixedLengths() {
+        Random random = new Random(7);
+        for (int percent : new int[]{0, 5, 25, 50, 90, 100}) {
+            long[] longs = new long[1000 + random.nextInt(64)];
+            int[] ints = new int[longs.length];
+            for (int i = 0; i < longs.length; i++) {
+                int roll = random.nextInt(100);
+                long value = roll < percent ? 128 + random.nextInt(16384 - 128) : random.nextInt(128);
+                if (roll == 0 && percent > 0) {
+                    value = 16384 + random.nextInt(1 << 20);
+                }
+                longs[i] = value;
+                ints[i] = (int) value;
+            }
+            for (VarIntArrays.Transform transform : VarIntArrays.Transform.values()) {
+                byte[] packed = VarIntArrays.encode(longs, transform);
+                for (int skip = 0; skip < 17; skip++) {
+                    int start = offsetOf(packed, skip);
+                    long[] decoded = new long[longs.length - skip];
+                    VarIntArrays.decode(packed, start, packed.length - start, decoded, 0, decoded.length, VarIntArrays.Transform.NONE);
+                    int pos = start;
+                    for (int i = 0; i < decoded.length; i++) {
+                        long expected = VarInt.readUnsignedVarLong(packed, pos, packed.length);
+                        assertEquals(percent + "% " + transform + " skip " + skip + " value " + i, expected, decoded[i]);
+                        pos += VarInt.varIntSize(expected);
+                    }
+                }
+                assertArrayEquals("Longs " + percent + "% " + transform, longs, VarIntArrays.decodeLongs(packed, transform));
+                assertArrayEquals("Ints " + percent + "% " + transform, ints,
+                        VarIntArrays.decodeInts(VarIntArrays.encode(ints, transform), transform));
+            }
+        }
+    }
+
+    /**
+     * Tests a two byte value with a zero second byte is rejected wherever it is in a column of small values.
+     */
+    @Test
+    public void testNonMinimal() {
+        for (int at = 0; at < 40; at++) {
+            byte[] packed = new byte[48];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = (byte) (i % 3 == 0 ? 0x81 : 0x05);
+            }
+            packed[at] = (byte) 0x85;
+            packed[at + 1] = 0;
+            assertThrows("Padded at " + at, IllegalArgumentException.class,
+                    () -> VarIntArrays.decodeLongs(packed, VarIntArrays.Transform.NONE));
+            assertThrows("Padded at " + at, IllegalArgumentException.class,
+                    () -> VarIntArrays.decodeInts(packed, VarIntArrays.Transform.NONE));
+        }
+    }
+
+    /**
+     * Tests the vector API decoder is used where the build runs these tests against the multi-release jar.
+     */
+    @Test
+    public void testVectorized() {
+        Assume.assumeTrue(Boolean.getBoolean("multicodec.test.vector"));
+        assertTrue("Vectorized", VarIntArrays.isVectorized());
+    }
+
+    /**
+     * @return the offset of the value at an index of a packed column.
+     */
+    private static int offsetOf(byte[] packed, int index) {
+        int pos = 0;
+        for (int i = 0; i < index; i++) {
+            pos += VarInt.varIntSize(VarInt.readUnsignedVarLong(packed, pos, packed.length));
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,65 @@
+package com.identityfoundry.ddi.protocol.common;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cross checks the word at a time varint decoder against the scalar {@link VarInt} methods.
+ */
+public class VarIntSwarTest {
+
+    /**
+     * Tests values of every length, at every distance from the end of the input, decode the same as {@link VarInt}.
+     */
+    @Test
+    public void testMatchesVarInt() {
+        Random random = new Random(7);
+        byte[] buf = new byte[64];
+        for (int round = 0; round < 20000; round++) {
+            //Bias towards short values while covering all 64 bits.
+            long value = random.nextLong() >>> random.nextInt(64);
+            random.nextBytes(buf);
+            int off = random.nextInt(buf.length - 10);
+            int end = VarInt.writeUnsignedVarLong(value, buf, off);
+            for (int limit = end; limit <= Math.min(buf.length, end + 9); limit++) {
+                assertEquals("Long " + value, value, VarIntSwar.readUnsignedVarLong(buf, off, limit));
+                if (value >>> 32 == 0) {
+                    assertEquals("Int " + value, (int) value, VarIntSwar.readUnsignedVarInt(buf, off, limit));
+                }
+            }
+
+            ByteBuffer heap = ByteBuffer.wrap(buf);
+            ByteBuffer direct = ByteBuffer.allocateDirect(buf.length).order(ByteOrder.LITTLE_ENDIAN);
+            direct.put(buf).clear();
+            assertEquals("Heap buffer " + value, value, VarIntSwar.readUnsignedVarLong(heap, off));
+            assertEquals("Direct buffer " + value, value, VarIntSwar.readUnsignedVarLong(direct, off));
+            assertEquals("Position", 0, direct.position());
+        }
+    }
+
+    /**
+     * Tests malformed input is rejected the same way as {@link VarInt}, with or without room for a whole word.
+     */
+    @Test
+    public void testMatchesVarIntErrors() {
+        String[] malformed = {"8000", "FF00", "808080808080808000", "FFFFFFFFFFFFFFFFFF02", "FFFFFFFFFFFFFFFFFFFF01", "8080"};
+        for (String hex : malformed) {
+            for (String padding : new String[]{"", "0000000000000000"}) {
+                byte[] buf = HexUtils.hexToBytes(hex + padding);
+                int limit = (hex.equals("8080")) ? 2 : buf.length;
+                Class<? extends Throwable> expected = assertThrows(RuntimeException.class,
+                        () -> VarInt.readUnsignedVarLong(buf, 0, limit)).getClass();
+                assertEquals("Error for " + hex + padding, expected,
+                        assertThrows(RuntimeException.class, () -> VarIntSwar.readUnsignedVarLong(buf, 0, limit)).getClass());
+            }
+        }
+        byte[] tooBig = HexUtils.hexToBytes("FFFFFFFF1F000000");
+        assertThrows(IllegalArgumentException.class, () -> VarIntSwar.readUnsignedVarInt(tooBig, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> VarIntSwar.readUnsignedVarLong(ByteBuffer.allocateDirect(4), 4));
+    }
+}
@@ -0,0 +1,128 @@
+package com.identityfoundry.ddi.protocol.didkey;
+
+import com.identityfoundry.ddi.protocol.multibase.Multibase;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the resolution and caching of did:key DIDs.
+ */
+public class DidKeyResolverTest {
+
+    private static String did(Multicodec codec, int keyLength, int seed) {
+        byte[] key = new byte[keyLength];
+        Arrays.fill(key, (byte) seed);
+        key[0] = 0x02;
+        return "did:key:" + Multibase.BASE58_BTC.encode(codec, key);
+    }
+
+    /**
+     * Tests a DID resolves to its codec and key, with or without a fragment.
+     */
+    @Test
+    public void testResolve() {
+        String did = did(Multicodec.ED25519_PUB, 32, 7);
+        assertTrue("did:key form", did.startsWith("did:key:z6Mk"));
+
+        DidKey resolved = DidKeyResolver.resolveUncached(did);
+        assertEquals("Codec", Multicodec.ED25519_PUB, resolved.getCodec());
+        assertEquals("Key length", 32, resolved.getKeyLength());
+        assertEquals("Key", "02" + String.join("", Collections.nCopies(31, "07")), resolved.getKeyAsHex());
+        assertEquals("DID", did, resolved.getDid());
+
+        DidKey fragment = DidKeyResolver.resolveUncached(did + "#" + did.substring(8));
+        assertEquals("Fragment ignored", resolved, fragment);
+        assertEquals("Fragment removed", did, fragment.getDid());
+
+        assertEquals("P-256", Multicodec.P256_PUB, DidKeyResolver.resolveUncached(did(Multicodec.P256_PUB, 33, 1)).getCodec());
+        assertEquals("RSA any length", 270, DidKeyResolver.resolveUncached(did(Multicodec.RSA_PUB, 270, 1)).getKeyLength());
+    }
+
+    /**
+     * Tests invalid DIDs are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows("Not did:key", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached("did:web:example.com"));
+        assertThrows("Empty", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached("did:key:"));
+        assertThrows("Not base58btc", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached("did:key:f" + "ed01" + "00"));
+        assertThrows("Not base58", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached("did:key:z6Mk0OIl"));
+        assertThrows("Wrong length", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached(did(Multicodec.ED25519_PUB, 31, 1)));
+        assertThrows("Not a key", IllegalArgumentException.class, () -> DidKeyResolver.resolveUncached(did(Multicodec.SHA2_256, 32, 1)));
+    }
+
+    /**
+     * Tests repeat resolutions are counted as hits, and the cache is bounded.
+     */
+    @Test
+    public void testCache() {
+        DidKeyResolver resolver = new DidKeyResolver(64);
+        String did = did(Multicodec.ED25519_PUB, 32, 1);
+        DidKey first = resolver.resolve(did);
+        assertSame("Cached", first, resolver.resolve(did));
+        assertSame("Cached with fragment", first, resolver.resolve(did + "#key-1"));
+        assertSame("Fragment cached as given", first, resolver.resolve(did + "#key-1"));
+        assertEquals("Hits", 3, resolver.getHitCount());
+        assertEquals("Misses", 1, resolver.getMissCount());
+        assertEquals("DID and DID with fragment", 2, resolver.size());
+
+        String other = did(Multicodec.P256_PUB, 33, 1);
+        DidKey fragmentFirst = resolver.resolve(other + "#key-1");
+        assertEquals("Fragment removed", other, fragmentFirst.getDid());
+        assertSame("Without fragment", fragmentFirst, resolver.resolve(other));
+        assertEquals("Hits after fragment first", 4, resolver.getHitCount());
+
+        for (int i = 0; i < 1000; i++) {
+            resolver.resolve(did(Multicodec.X25519_PUB, 32, i));
+        }
+        assertEquals("Bounded", 64, resolver.size());
+        assertThrows(IllegalArgumentException.class, () -> resolver.resolve("did:key:zzz"));
+        assertEquals("Failures are misses", 1003, resolver.getMissCount());
+
+        resolver.clear();
+        assertEquals("Cleared", 0, resolver.size());
+        assertEquals("Uncached", 32, new DidKeyResolver(0).resolve(did).getKeyLength());
+    }
+
+    /**
+     * Tests concurrent resolutions of a few hot DIDs agree and are mostly hits.
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        DidKeyResolver resolver = new DidKeyResolver();
+        List<String> dids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            dids.add(did(Multicodec.ED25519_PUB, 32, i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        String did = dids.get(i % dids.size());
+                        assertEquals(did, resolver.resolve(did).getDid());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("Resolutions", 80000, resolver.getHitCount() + resolver.getMissCount());
+        assertTrue("Mostly hits", resolver.getMissCount() <= 800);
+        assertEquals("Cached", 100, resolver.size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.identityfoundry.ddi.protocol.multiaddr;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the string and binary forms of multiaddrs.
+ */
+public class MultiaddrTest {
+
+    /**
+     * Tests multiaddrs against their known binary forms, and back again.
+     */
+    @Test
+    public void testKnownEncodings() {
+        String[][] vectors = {
+                {"/ip4/127.0.0.1/udp/1234", "047F000001910204D2"},
+                {"/ip4/127.0.0.1/tcp/4321", "047F0000010610E1"},
+                {"/ip6/::1/tcp/8080", "2900000000000000000000000000000001061F90"},
+                {"/dns4/example.com/tcp/443/wss", "360B6578616D706C652E636F6D0601BBDE03"},
+                {"/ip4/1.2.3.4/udp/4001/quic/p2p/QmcgpsyWgH8Y8ajJz1Cu72KnS5uo2Aa2LpzU7kinSupNKC",
+                        "040102030491020FA1CC03A503221220D52EBB89D85B02A284948203A62FF28389C57C9F42BEEC4EC20DB76A68911C0B"},
+                {"/unix/tmp/p2p.sock", "90030D2F746D702F7032702E736F636B"}};
+        for (String[] vector : vectors) {
+            Multiaddr parsed = Multiaddr.parse(vector[0]);
+            assertEquals("Binary of " + vector[0], vector[1], HexUtils.bytesToHex(parsed.toBytes()));
+            Multiaddr read = Multiaddr.fromBytes(HexUtils.hexToBytes(vector[1]));
+            assertEquals("String of " + vector[1], vector[0], read.toString());
+            assertEquals("Equal", parsed, read);
+            assertEquals("Hash", parsed.hashCode(), read.hashCode());
+        }
+        assertEquals("Old p2p name", "/p2p/QmcgpsyWgH8Y8ajJz1Cu72KnS5uo2Aa2LpzU7kinSupNKC",
+                Multiaddr.parse("/ipfs/QmcgpsyWgH8Y8ajJz1Cu72KnS5uo2Aa2LpzU7kinSupNKC").toString());
+        assertEquals("Trailing slash", "/ip4/1.2.3.4", Multiaddr.parse("/ip4/1.2.3.4/").toString());
+        assertEquals("Zone", "/ip6zone/eth0/ip6/fe80::1/udp/5/webrtc", Multiaddr.parse("/ip6zone/eth0/ip6/fe80::1/udp/5/webrtc").toString());
+    }
+
+    /**
+     * Tests the cursor steps through the components in place.
+     */
+    @Test
+    public void testCursor() {
+        byte[] bytes = Multiaddr.parse("/dns6/node.example/tcp/4001/tls/ws").toBytes();
+        byte[] framed = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, framed, 2, bytes.length);
+        MultiaddrCursor cursor = new MultiaddrCursor().reset(framed, 2, bytes.length);
+        assertTrue(cursor.next());
+        assertEquals("DNS6", Multicodec.DNS6, cursor.getProtocol());
+        assertEquals("Name length", 12, cursor.getValueLength());
+        assertEquals("Name", "node.example", new String(framed, cursor.getValueOffset(), cursor.getValueLength()));
+        assertTrue(cursor.next());
+        assertEquals("Port", 4001, cursor.getPort());
+        assertTrue(cursor.next());
+        assertEquals("TLS", "tls", cursor.getProtocolName());
+        assertEquals("No value", 0, cursor.getValueLength());
+        assertTrue(cursor.next());
+        assertEquals("WS", Multicodec.WS, cursor.getProtocol());
+        assertFalse("End", cursor.next());
+        assertThrows(IllegalStateException.class, cursor::getProtocol);
+    }
+
+    /**
+     * Tests numeric multiaddrs convert to socket addresses, once.
+     */
+    @Test
+    public void testInetSocketAddress() {
+        Multiaddr ip4 = Multiaddr.parse("/ip4/192.168.1.20/tcp/4001/p2p/QmcgpsyWgH8Y8ajJz1Cu72KnS5uo2Aa2LpzU7kinSupNKC");
+        InetSocketAddress address = ip4.toInetSocketAddress();
+        assertEquals("Host", "192.168.1.20", address.getAddress().getHostAddress());
+        assertEquals("Port", 4001, address.getPort());
+        assertSame("Cached", address, ip4.toInetSocketAddress());
+
+        InetSocketAddress ip6 = Multiaddr.parse("/ip6/2001:db8::7/udp/443/quic").toInetSocketAddress();
+        assertEquals("IPv6 port", 443, ip6.getPort());
+        assertEquals("IPv6 host", "2001:db8:0:0:0:0:0:7", ip6.getAddress().getHostAddress());
+
+        assertThrows("Name", IllegalArgumentException.class, () -> Multiaddr.parse("/dns4/example.com/tcp/80").toInetSocketAddress());
+        assertThrows("No port", IllegalArgumentException.class, () -> Multiaddr.parse("/ip4/1.2.3.4/quic").toInetSocketAddress());
+    }
+
+    /**
+     * Tests the IPv6 text form against the JDK over random addresses, with runs of zero groups.
+     */
+    @Test
+    public void testIp6() throws Exception {
+        assertEquals("Longest run", "/ip6/2001:db8::1:0:0:1", Multiaddr.parse("/ip6/2001:db8:0:0:1:0:0:1").toString());
+        assertEquals("No single group run", "/ip6/2001:db8:0:1:1:1:1:1", Multiaddr.parse("/ip6/2001:DB8:0:1:1:1:1:1").toString());
+        assertEquals("All zero", "/ip6/::", Multiaddr.parse("/ip6/0:0:0:0:0:0:0:0").toString());
+        assertEquals("Trailing zeros", "/ip6/1::", Multiaddr.parse("/ip6/1::").toString());
+        assertEquals("Embedded IPv4", "/ip6/::ffff:102:304", Multiaddr.parse("/ip6/::ffff:1.2.3.4").toString());
+
+        Random random = new Random(6);
+        byte[] address = new byte[16];
+        for (int round = 0; round < 2000; round++) {
+            random.nextBytes(address);
+            for (int group = 0; group < 8; group++) {
+                if (random.nextInt(3) == 0) {
+                    address[2 * group] = 0;
+                    address[2 * group + 1] = 0;
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            IpText.appendIp6(text, address, 0);
+            byte[] parsed = new byte[16];
+            IpText.parseIp6(text, 0, text.length(), parsed, 0);
+            assertArrayEquals("Round trip " + text, address, parsed);
+            assertEquals("JDK reads " + text, InetAddress.getByAddress(address), InetAddress.getByName(text.toString()));
+        }
+    }
+
+    /**
+     * Tests malformed multiaddrs are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        String[] invalid = {"", "/", "ip4/1.2.3.4", "/ip4", "/ip4/", "/ip4/1.2.3", "/ip4/1.2.3.256", "/ip4/01.2.3.4",
+                "/ip6/1:2:3:4:5:6:7", "/ip6/1::2::3", "/ip6/12345::", "/ip6/1:2:3:4:5:6:7:8:9", "/tcp/65536", "/tcp/-1",
+                "/udp", "/foo/1", "//ip4/1.2.3.4", "/unix", "/p2p/Qm0OIl"};
+        for (String text : invalid) {
+            assertThrows(text, IllegalArgumentException.class, () -> Multiaddr.parse(text));
+        }
+        assertThrows("Empty", IllegalArgumentException.class, () -> Multiaddr.fromBytes(new byte[0]));
+        assertThrows("Truncated", IllegalArgumentException.class, () -> Multiaddr.fromBytes(HexUtils.hexToBytes("047F0000")));
+        assertThrows("Unknown", IllegalArgumentException.class, () -> Multiaddr.fromBytes(HexUtils.hexToBytes("7F")));
+        assertThrows("No length", IllegalArgumentException.class, () -> Multiaddr.fromBytes(HexUtils.hexToBytes("36")));
+        assertThrows("Long length", IllegalArgumentException.class, () -> Multiaddr.fromBytes(HexUtils.hexToBytes("360561")));
+        assertThrows("Slash in name", IllegalArgumentException.class, () -> Multiaddr.fromBytes(HexUtils.hexToBytes("36022F61")));
+    }
+}
@@ -0,0 +1,128 @@
+package com.identityfoundry.ddi.protocol.multibase;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.multicodec.AmbiguousCodecEncodingException;
+import com.identityfoundry.ddi.protocol.multicodec.DecodedView;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import com.identityfoundry.ddi.protocol.multicodec.MulticodecEncoder;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the multibase encodings.
+ */
+public class MultibaseTest {
+
+    private static final byte[] SAMPLE = "yes mani !".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Tests the encodings of the multibase specification test vectors, and decoding them again.
+     */
+    @Test
+    public void testSpecificationVectors() {
+        String[][] vectors = {
+                {"BASE16", "f796573206d616e692021"},
+                {"BASE16_UPPER", "F796573206D616E692021"},
+                {"BASE32", "bpfsxgidnmfxgsibb"},
+                {"BASE32_UPPER", "BPFSXGIDNMFXGSIBB"},
+                {"BASE58_BTC", "z7paNL19xttacUY"},
+                {"BASE64", "meWVzIG1hbmkgIQ"},
+                {"BASE64_URL", "ueWVzIG1hbmkgIQ"},
+                {"BASE64_URL_PAD", "UeWVzIG1hbmkgIQ=="}};
+        for (String[] vector : vectors) {
+            Multibase base = Multibase.valueOf(vector[0]);
+            assertEquals("Encode " + base.baseName, vector[1], base.encode(SAMPLE));
+            assertArrayEquals("Decode " + base.baseName, SAMPLE, Multibase.decode(vector[1]));
+        }
+
+        byte[] leadingZeros = HexUtils.hexToBytes("0000" + HexUtils.bytesToHex(SAMPLE));
+        assertEquals("Leading zeros", "z117paNL19xttacUY", Multibase.BASE58_BTC.encode(leadingZeros));
+        assertArrayEquals("Leading zeros decoded", leadingZeros, Multibase.decode("z117paNL19xttacUY"));
+        assertEquals("Empty", "z", Multibase.BASE58_BTC.encode(new byte[0]));
+        assertArrayEquals("Empty decoded", new byte[0], Multibase.decode("z"));
+    }
+
+    /**
+     * Tests base58 against a BigInteger conversion, and base64 against the JDK, over random lengths.
+     */
+    @Test
+    public void testAgainstReferences() {
+        Random random = new Random(58);
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[random.nextInt(80)];
+            random.nextBytes(data);
+            for (int i = 0; i < data.length && random.nextBoolean(); i++) {
+                data[i] = 0;
+            }
+            String base58 = Multibase.BASE58_BTC.encode(data);
+            assertEquals("Base58 of " + HexUtils.bytesToHex(data), "z" + referenceBase58(data), base58);
+            assertArrayEquals("Base58 round trip", data, Multibase.decode(base58));
+
+            assertEquals("Base64", "m" + Base64.getEncoder().withoutPadding().encodeToString(data), Multibase.BASE64.encode(data));
+            assertEquals("Base64url padded", "U" + Base64.getUrlEncoder().encodeToString(data), Multibase.BASE64_URL_PAD.encode(data));
+            for (Multibase base : Multibase.values()) {
+                assertArrayEquals("Round trip " + base.baseName, data, Multibase.decode(base.encode(data)));
+            }
+        }
+    }
+
+    /**
+     * Tests encoding a multicodec value in one step gives the familiar did:key prefixes, matches
+     * {@link MulticodecEncoder#encode(Multicodec, byte[])} and decodes for every codec.
+     */
+    @Test
+    public void testMulticodec() throws AmbiguousCodecEncodingException {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) 0x5A);
+        assertTrue("Ed25519 did:key prefix", Multibase.BASE58_BTC.encode(Multicodec.ED25519_PUB, key).startsWith("z6Mk"));
+        byte[] compressed = new byte[33];
+        compressed[0] = 0x02;
+        assertTrue("P-256 did:key prefix", Multibase.BASE58_BTC.encode(Multicodec.P256_PUB, compressed).startsWith("zDn"));
+
+        for (Multicodec codec : Multicodec.values()) {
+            DecodedView view = Multibase.decodeMulticodec(Multibase.BASE58_BTC.encode(codec, key));
+            assertEquals("Codec", codec.codeValue, view.getCodec().codeValue);
+            assertArrayEquals("Payload for " + codec.name(), key, view.copyData());
+            assertEquals("Same as encode for " + codec.name(), Multibase.BASE58_BTC.encode(MulticodecEncoder.encode(codec, key)),
+                    Multibase.BASE58_BTC.encode(codec, key));
+        }
+    }
+
+    /**
+     * Tests invalid multibase strings are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("?abc"));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("z0OIl"));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("f7"));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("bpfsxgidn1"));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("meWVzIG1hbmkgIQ=="));
+        assertThrows(IllegalArgumentException.class, () -> Multibase.decode("UeWVzIG1hbmkgIQ="));
+        assertThrows(AmbiguousCodecEncodingException.class, () -> Multibase.decodeMulticodec("z1"));
+    }
+
+    private static String referenceBase58(byte[] data) {
+        String alphabet = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz";
+        StringBuilder digits = new StringBuilder();
+        BigInteger value = new BigInteger(1, data);
+        BigInteger base = BigInteger.valueOf(58);
+        while (value.signum() > 0) {
+            BigInteger[] divRem = value.divideAndRemainder(base);
+            digits.append(alphabet.charAt(divRem[1].intValue()));
+            value = divRem[0];
+        }
+        for (int i = 0; i < data.length && data[i] == 0; i++) {
+            digits.append('1');
+        }
+        return digits.reverse().toString();
+    }
+}
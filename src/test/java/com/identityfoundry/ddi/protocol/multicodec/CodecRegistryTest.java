@@ -0,0 +1,100 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the registration and lookup of custom codecs.
+ */
+public class CodecRegistryTest {
+
+    /**
+     * Tests built in codecs are resolved, and custom codecs are registered, resolved and decoded.
+     */
+    @Test
+    public void testRegister() throws AmbiguousCodecEncodingException {
+        CodecRegistry registry = new CodecRegistry();
+        assertSame("Built in", RegisteredCodec.of(Multicodec.ED25519_PUB), registry.lookup(0xED));
+        assertSame("Built in name", Multicodec.SHA2_256, registry.lookup("sha2-256").getMulticodec());
+        assertNull("Not yet", registry.lookup(0x300001));
+
+        RegisteredCodec custom = registry.register("acme-key", 0x300001);
+        assertTrue("Custom", custom.isCustom());
+        assertSame("By code", custom, registry.lookup(0x300001));
+        assertSame("By name", custom, registry.lookup("acme-key"));
+        assertEquals("Listed", 1, registry.getCustomCodecs().size());
+        assertNull("Other registries", new CodecRegistry().lookup(0x300001));
+
+        byte[] encoded = MulticodecEncoder.encode(custom, HexUtils.hexToBytes("CAFE"));
+        assertEquals("Spec varint", "8180C001CAFE", HexUtils.bytesToHex(encoded));
+        DecodedView view = MulticodecEncoder.decodeView(registry, encoded, 0, encoded.length);
+        assertSame("Decoded", custom, view.getRegisteredCodec());
+        assertNull("No constant", view.getCodec());
+        assertEquals("Payload", "CAFE", view.getDataAsHex());
+        assertThrows("Without the registry", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decodeView(encoded));
+
+        byte[] builtIn = MulticodecEncoder.encode(RegisteredCodec.of(Multicodec.SHA2_256), new byte[]{1});
+        assertSame("Built in view", Multicodec.SHA2_256, MulticodecEncoder.decodeView(registry, builtIn, 0, builtIn.length).getCodec());
+
+        assertThrows("Built in code", IllegalArgumentException.class, () -> registry.register("mine", 0x12));
+        assertThrows("Built in name", IllegalArgumentException.class, () -> registry.register("sha2-256", 0x300002));
+        assertThrows("Taken code", IllegalArgumentException.class, () -> registry.register("other", 0x300001));
+        assertThrows("Taken name", IllegalArgumentException.class, () -> registry.register("acme-key", 0x300002));
+        assertThrows("Negative", IllegalArgumentException.class, () -> registry.register("negative", -1));
+        assertEquals("Unchanged", 1, registry.getCustomCodecs().size());
+    }
+
+    /**
+     * Tests a built in codec encodes the same through its registered codec as through its constant.
+     */
+    @Test
+    public void testEncodeBuiltIn() {
+        byte[] raw = HexUtils.hexToBytes("A1E9D3D8EC");
+        for (Multicodec codec : Multicodec.values()) {
+            assertArrayEquals("Encoding of " + codec.name(), MulticodecEncoder.encode(codec, raw),
+                    MulticodecEncoder.encode(RegisteredCodec.of(codec), raw));
+            assertArrayEquals("Prefix of " + codec.name(), codec.prefix(), RegisteredCodec.of(codec).prefix());
+        }
+    }
+
+    /**
+     * Tests codecs registered while other threads look them up are seen whole, and stay visible.
+     */
+    @Test
+    public void testConcurrentRegister() throws InterruptedException {
+        CodecRegistry registry = new CodecRegistry();
+        int count = 2000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                while (!done.get()) {
+                    int seen = registry.getCustomCodecs().size();
+                    for (int i = 0; i < seen; i++) {
+                        RegisteredCodec codec = registry.lookup(0x300000L + i);
+                        if (codec == null || codec.getCode() != 0x300000L + i) {
+                            failure.compareAndSet(null, "Lost code " + i + " of " + seen);
+                        }
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int i = 0; i < count; i++) {
+            registry.register("private-" + i, 0x300000L + i);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get(), failure.get());
+        assertEquals("All", count, registry.getCustomCodecs().size());
+        assertEquals("Name", 0x300000L + 1234, registry.lookup("private-1234").getCode());
+    }
+}
@@ -0,0 +1,139 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the legacy prefix trie and the transcoding of legacy records to the specification encoding.
+ */
+public class LegacyTranscoderTest {
+
+    private static final String SAMPLE_DATA_HEX = "A1E9D3D8EC";
+
+    /**
+     * Tests the trie reports the longest match and the ambiguous shorter candidates.
+     */
+    @Test
+    public void testMatchAmbiguous() {
+        byte[] legacy = LegacyTranscoder.encodeLegacy(Multicodec.UDP, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+        LegacyPrefixTrie.Match match = LegacyPrefixTrie.match(legacy);
+
+        assertTrue("Match is ambiguous", match.isAmbiguous());
+        assertEquals("Longest match", Multicodec.UDP, match.longest());
+        assertEquals("Longest prefix length", 2, match.longestPrefixLength());
+        assertEquals("Candidates", Arrays.asList(Multicodec.CIDV1, Multicodec.UDP), match.candidates());
+    }
+
+    /**
+     * Tests the default decode rejects the legacy encoding of every multibyte code rather than reading it as another
+     * codec, while a set that accepts legacy prefixes still reads it.
+     */
+    @Test
+    public void testDecodeRejectsLegacy() throws Exception {
+        byte[] sample = HexUtils.hexToBytes(SAMPLE_DATA_HEX);
+        int changed = 0;
+        for (Multicodec codec : Multicodec.values()) {
+            if (Arrays.equals(codec.legacyPrefix, codec.prefix)) {
+                continue;
+            }
+            changed++;
+            byte[] legacy = LegacyTranscoder.encodeLegacy(codec, sample);
+            assertThrows("Legacy " + codec.name(), AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(legacy));
+            assertThrows("Legacy buffer " + codec.name(), AmbiguousCodecEncodingException.class,
+                    () -> MulticodecEncoder.decode(ByteBuffer.wrap(legacy)));
+            assertEquals("Legacy set " + codec.name(), codec,
+                    MulticodecEncoder.decode(legacy, CodecSet.of(codec).withLegacyPrefixes()).getCodec());
+        }
+        assertTrue("Multibyte codes", changed > 0);
+
+        byte[] p256 = HexUtils.hexToBytes("1200" + SAMPLE_DATA_HEX);
+        assertThrows("Not sha2-256", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(p256));
+        assertEquals("As written now", "00" + SAMPLE_DATA_HEX,
+                MulticodecEncoder.decode(p256, CodecSet.of(Multicodec.SHA2_256)).getDataAsHex());
+    }
+
+    /**
+     * Tests codecs sharing a code are all reported as candidates.
+     */
+    @Test
+    public void testMatchSharedCode() {
+        byte[] legacy = LegacyTranscoder.encodeLegacy(Multicodec.IPFS, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+        LegacyPrefixTrie.Match match = LegacyPrefixTrie.match(legacy);
+
+        assertEquals("Longest match", Multicodec.P2P, match.longest());
+        assertEquals("Shared code", Arrays.asList(Multicodec.P2P, Multicodec.IPFS), match.codecs(match.size() - 1));
+    }
+
+    /**
+     * Tests every legacy encoding is found as the longest match by the trie.
+     */
+    @Test
+    public void testMatchAllCodecs() {
+        for (Multicodec codec : Multicodec.values()) {
+            byte[] legacy = LegacyTranscoder.encodeLegacy(codec, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+            LegacyPrefixTrie.Match match = LegacyPrefixTrie.match(legacy);
+            assertEquals("Longest prefix for " + codec.name(), codec.code, match.longest().code);
+        }
+        assertTrue("No match", LegacyPrefixTrie.match(HexUtils.hexToBytes("FF")).isEmpty());
+    }
+
+    /**
+     * Tests legacy records transcode to records the spec decoder reads back.
+     */
+    @Test
+    public void testTranscode() throws Exception {
+        byte[] raw = HexUtils.hexToBytes(SAMPLE_DATA_HEX);
+        byte[] legacy = LegacyTranscoder.encodeLegacy(Multicodec.SKEIN1024_952, raw);
+
+        byte[] spec = LegacyTranscoder.transcode(legacy, LegacyTranscoder.AmbiguityPolicy.LONGEST_MATCH);
+        assertEquals("Spec encoding", "D7E702" + SAMPLE_DATA_HEX, HexUtils.bytesToHex(spec));
+
+        DecodedData decodedData = MulticodecEncoder.decode(spec);
+        assertEquals("Decoded codec", Multicodec.SKEIN1024_952, decodedData.getCodec());
+        assertArrayEquals("Decoded data", raw, decodedData.getDataAsBytes());
+
+        byte[] udp = LegacyTranscoder.encodeLegacy(Multicodec.UDP, raw);
+        assertEquals("Shortest match", Multicodec.CIDV1,
+                MulticodecEncoder.decode(LegacyTranscoder.transcode(udp, LegacyTranscoder.AmbiguityPolicy.SHORTEST_MATCH), CodecSet.all()).getCodec());
+        assertThrows(AmbiguousCodecEncodingException.class, () -> LegacyTranscoder.transcode(udp, LegacyTranscoder.AmbiguityPolicy.REJECT));
+    }
+
+    /**
+     * Tests the multi-threaded transcoder keeps the record order, on the common pool and on a given executor, and
+     * names the first record it cannot transcode.
+     */
+    @Test
+    public void testTranscodeAll() throws Exception {
+        Multicodec[] codecs = Multicodec.values();
+        byte[][] legacy = new byte[codecs.length][];
+        for (int i = 0; i < codecs.length; i++) {
+            legacy[i] = LegacyTranscoder.encodeLegacy(codecs[i], HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (byte[][] spec : new byte[][][]{LegacyTranscoder.transcodeAll(legacy, LegacyTranscoder.AmbiguityPolicy.LONGEST_MATCH),
+                    LegacyTranscoder.transcodeAll(legacy, LegacyTranscoder.AmbiguityPolicy.LONGEST_MATCH, executor)}) {
+                for (int i = 0; i < codecs.length; i++) {
+                    assertEquals("Transcoded codec for " + codecs[i].name(), codecs[i].code, MulticodecEncoder.decode(spec[i]).getCodec().code);
+                }
+            }
+
+            legacy[100] = HexUtils.hexToBytes("FF");
+            legacy[200] = HexUtils.hexToBytes("FF");
+            AmbiguousCodecEncodingException failure = assertThrows(AmbiguousCodecEncodingException.class,
+                    () -> LegacyTranscoder.transcodeAll(legacy, LegacyTranscoder.AmbiguityPolicy.LONGEST_MATCH, executor));
+            assertEquals("First failure", "Could not transcode record at index:100 FF", failure.getMessage());
+            assertFalse("Executor left running", executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
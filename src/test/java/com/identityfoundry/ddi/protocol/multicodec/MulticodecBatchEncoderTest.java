@@ -0,0 +1,104 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the batch encoding of many payloads into one buffer.
+ */
+public class MulticodecBatchEncoderTest {
+
+    private static final Multicodec[] CODECS = {Multicodec.SHA2_256, Multicodec.SHA2_256, Multicodec.SHA2_256,
+            Multicodec.ED25519_PUB, Multicodec.P256_PUB, Multicodec.P256_PUB};
+    private static final byte[][] PAYLOADS = {
+            HexUtils.hexToBytes("A1"), HexUtils.hexToBytes("A2A2"), HexUtils.hexToBytes("A3A3A3"),
+            HexUtils.hexToBytes("B1B1"), HexUtils.hexToBytes("C1"), HexUtils.hexToBytes("C2C2")};
+
+    /**
+     * Tests the plain layout holds the same records as encoding each payload on its own.
+     */
+    @Test
+    public void testPlainLayout() throws AmbiguousCodecEncodingException {
+        byte[] batch = new byte[3 + MulticodecBatchEncoder.encodedLength(CODECS, PAYLOADS, false)];
+        int[] offsets = MulticodecBatchEncoder.encode(CODECS, PAYLOADS, batch, 3, false);
+
+        assertEquals("Index length", PAYLOADS.length + 1, offsets.length);
+        assertEquals("Index start", 3, offsets[0]);
+        assertEquals("Index end", batch.length, offsets[PAYLOADS.length]);
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            assertArrayEquals("Record " + i, MulticodecEncoder.encode(CODECS[i], PAYLOADS[i]), Arrays.copyOfRange(batch, offsets[i], offsets[i + 1]));
+        }
+
+        DecodedView[] views = MulticodecBatchEncoder.decode(batch, offsets, false);
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            assertEquals("Codec " + i, CODECS[i], views[i].getCodec());
+            assertArrayEquals("Payload " + i, PAYLOADS[i], views[i].copyData());
+        }
+    }
+
+    /**
+     * Tests multibyte codes and empty payloads decode the same in the plain and packed layouts.
+     */
+    @Test
+    public void testEmptyAndMultibyte() throws AmbiguousCodecEncodingException {
+        Multicodec[] codecs = {Multicodec.P256_PUB, Multicodec.P256_PUB, Multicodec.UDP, Multicodec.BLAKE2B_256, Multicodec.RAW};
+        byte[][] payloads = {HexUtils.hexToBytes("C1C1C1"), new byte[0], HexUtils.hexToBytes("D1"), new byte[0], new byte[0]};
+        for (boolean packed : new boolean[]{false, true}) {
+            byte[] batch = new byte[MulticodecBatchEncoder.encodedLength(codecs, payloads, packed)];
+            int[] offsets = MulticodecBatchEncoder.encode(codecs, payloads, batch, 0, packed);
+
+            DecodedView[] views = MulticodecBatchEncoder.decode(batch, offsets, packed);
+            for (int i = 0; i < payloads.length; i++) {
+                assertEquals("Codec " + i + (packed ? " packed" : " plain"), codecs[i], views[i].getCodec());
+                assertArrayEquals("Payload " + i + (packed ? " packed" : " plain"), payloads[i], views[i].copyData());
+            }
+        }
+        assertThrows(AmbiguousCodecEncodingException.class, () -> MulticodecBatchEncoder.decode(HexUtils.hexToBytes("FF7F"), new int[]{0, 2}, false));
+    }
+
+    /**
+     * Tests the packed layout writes one header per run and decodes every codec, including multibyte codes.
+     */
+    @Test
+    public void testPackedLayout() throws AmbiguousCodecEncodingException {
+        int length = MulticodecBatchEncoder.encodedLength(CODECS, PAYLOADS, true);
+        assertTrue("Packed is smaller", length < MulticodecBatchEncoder.encodedLength(CODECS, PAYLOADS, false));
+
+        byte[] batch = new byte[length];
+        int[] offsets = MulticodecBatchEncoder.encode(CODECS, PAYLOADS, batch, 0, true);
+        assertEquals("Packed batch", "0312A1A2A2A3A3A3" + "01ED01B1B1" + "028024C1C2C2", HexUtils.bytesToHex(batch));
+
+        DecodedView[] views = MulticodecBatchEncoder.decode(batch, offsets, true);
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            assertEquals("Codec " + i, CODECS[i], views[i].getCodec());
+            assertArrayEquals("Payload " + i, PAYLOADS[i], views[i].copyData());
+        }
+    }
+
+    /**
+     * Tests encoding into heap and direct buffers gives the same batch.
+     */
+    @Test
+    public void testBuffers() {
+        byte[] expected = new byte[MulticodecBatchEncoder.encodedLength(CODECS, PAYLOADS, true)];
+        MulticodecBatchEncoder.encode(CODECS, PAYLOADS, expected, 0, true);
+
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            buffer.position(5);
+            int[] offsets = MulticodecBatchEncoder.encode(CODECS, PAYLOADS, buffer, true);
+            assertEquals("Index start", 5, offsets[0]);
+            assertEquals("Position", 5 + expected.length, buffer.position());
+
+            byte[] actual = new byte[expected.length];
+            buffer.position(5);
+            buffer.get(actual);
+            assertArrayEquals("Buffer batch", expected, actual);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> MulticodecBatchEncoder.encode(CODECS, PAYLOADS, new byte[4], 0, false));
+    }
+}
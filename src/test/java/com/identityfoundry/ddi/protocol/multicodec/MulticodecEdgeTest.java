@@ -5,10 +5,22 @@ import com.identityfoundry.ddi.protocol.common.VarInt;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests on specific edge cases.
@@ -52,4 +64,395 @@ public class MulticodecEdgeTest {
         assertEquals("UnsignedVarInt expected", "EF01FF01", outHex);
 
     }
+
+    /**
+     * Tests multibyte codec codes decode when the code is written as a single unsigned varint, as per the spec.
+     */
+    @Test
+    public void testDecodeSpecVarIntCodes() throws AmbiguousCodecEncodingException {
+        byte[] raw = HexUtils.hexToBytes("A1E9D3D8EC");
+        for (Multicodec codec : new Multicodec[]{Multicodec.P256_PUB, Multicodec.UDP, Multicodec.SKEIN1024_952, Multicodec.PLAINTEXTV2, Multicodec.KUMANDRA_NS}) {
+            int code = Integer.parseInt(codec.code.substring(2), 16);
+            byte[] encoded = HexUtils.hexToBytes(HexUtils.bytesToHex(VarInt.writeUnsignedVarInt(code)) + "A1E9D3D8EC");
+
+            DecodedData decodedData = MulticodecEncoder.decode(encoded);
+            assertEquals("Decoded codec", codec, decodedData.getCodec());
+            assertArrayEquals("Decoded data", raw, decodedData.getDataAsBytes());
+        }
+        assertEquals("P256_PUB spec varint", "8024", HexUtils.bytesToHex(VarInt.writeUnsignedVarInt(0x1200)));
+    }
+
+    /**
+     * Tests every codec decodes back from its encoding, the code written as a single unsigned varint.
+     */
+    @Test
+    public void testEncodeDecodeRoundTrip() throws AmbiguousCodecEncodingException {
+        byte[] raw = HexUtils.hexToBytes("A1E9D3D8EC");
+        for (Multicodec codec : Multicodec.values()) {
+            byte[] encoded = MulticodecEncoder.encode(codec, raw);
+            assertEquals("Prefix of " + codec.name(), HexUtils.bytesToHex(VarInt.writeUnsignedVarInt(codec.codeValue)) + "A1E9D3D8EC",
+                    HexUtils.bytesToHex(encoded));
+            assertEquals("uvarintcode of " + codec.name(), codec.uvarintcode + "A1E9D3D8EC", HexUtils.bytesToHex(encoded));
+
+            //Codecs sharing a code (e.g. P2P and IPFS) decode as the first declared.
+            Multicodec expected = Multicodec.lookupByCode(codec.codeValue);
+            DecodedData decodedData = MulticodecEncoder.decode(encoded);
+            assertSame("Decoded codec of " + codec.name(), expected, decodedData.getCodec());
+            assertArrayEquals("Decoded data of " + codec.name(), raw, decodedData.getDataAsBytes());
+            assertSame("Decoded view of " + codec.name(), expected, MulticodecEncoder.decodeView(encoded).getCodec());
+            assertSame("Decoded buffer of " + codec.name(), expected, MulticodecEncoder.decode(ByteBuffer.wrap(encoded)).getCodec());
+        }
+    }
+
+    /**
+     * Tests unknown codes, truncated and overlong varints and empty payloads are rejected, from arrays and buffers.
+     */
+    @Test
+    public void testDecodeInvalid() {
+        String[] invalid = {"FFFFFF7FA1", "8080", "ED01", "", "8000AA", "808000AA"};
+        for (String hex : invalid) {
+            byte[] encoded = HexUtils.hexToBytes(hex);
+            assertThrows("Array " + hex, AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(encoded));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length + 1);
+            direct.put((byte) 0x00).put(encoded).flip().position(1);
+            for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(encoded), direct}) {
+                int position = buffer.position();
+                assertThrows("Buffer " + hex, AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decodeCodec(buffer));
+                assertEquals("Position unchanged for " + hex, position, buffer.position());
+            }
+        }
+    }
+
+    /**
+     * Tests the decoded view refers to the payload in place in the source array.
+     */
+    @Test
+    public void testDecodeView() throws AmbiguousCodecEncodingException {
+        byte[] encoded = HexUtils.hexToBytes("FFFF" + "ED01" + "A1E9D3D8EC" + "FF");
+
+        DecodedView view = MulticodecEncoder.decodeView(encoded, 2, 7);
+        assertEquals("Decoded codec", Multicodec.ED25519_PUB, view.getCodec());
+        assertSame("Source array is shared", encoded, view.getSource());
+        assertEquals("Payload offset", 4, view.getOffset());
+        assertEquals("Payload length", 5, view.getLength());
+        assertEquals("Payload hex", "A1E9D3D8EC", view.getDataAsHex());
+        assertEquals("Read-only buffer", 5, view.asReadOnlyBuffer().remaining());
+
+        encoded[4] = 0x00;
+        assertEquals("Changes to the source are visible", 0x00, view.byteAt(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> MulticodecEncoder.decodeView(encoded, 4, 7));
+    }
+
+    /**
+     * Tests encoding and decoding through direct buffers matches the byte array encoding.
+     */
+    @Test
+    public void testDirectBufferEncodeDecode() throws AmbiguousCodecEncodingException {
+        byte[] raw = HexUtils.hexToBytes("A1E9D3D8EC");
+        ByteBuffer src = ByteBuffer.allocateDirect(raw.length);
+        src.put(raw).flip();
+        ByteBuffer dst = ByteBuffer.allocateDirect(16);
+
+        MulticodecEncoder.encode(Multicodec.ED25519_PUB, src, dst);
+        assertEquals("Source consumed", 0, src.remaining());
+        dst.flip();
+        byte[] encoded = new byte[dst.remaining()];
+        dst.duplicate().get(encoded);
+        assertArrayEquals("Buffer encoding", MulticodecEncoder.encode(Multicodec.ED25519_PUB, raw), encoded);
+
+        assertEquals("Decoded codec", Multicodec.ED25519_PUB, MulticodecEncoder.decodeCodec(dst));
+        assertEquals("Position at payload", 2, dst.position());
+        dst.position(0);
+        DecodedData decodedData = MulticodecEncoder.decode(dst);
+        assertArrayEquals("Decoded data", raw, decodedData.getDataAsBytes());
+        assertEquals("Buffer consumed", 0, dst.remaining());
+
+        ByteBuffer tooSmall = ByteBuffer.allocate(3);
+        assertThrows(BufferOverflowException.class, () -> MulticodecEncoder.encode(Multicodec.ED25519_PUB, ByteBuffer.wrap(raw), tooSmall));
+        assertEquals("Nothing written on overflow", 0, tooSmall.position());
+    }
+
+    /**
+     * Tests the buffer varint methods round trip with the DataOutput methods.
+     */
+    @Test
+    public void testBufferVarInt() throws IOException {
+        long[] values = {0, 1, 127, 128, 300, 0x1200, Integer.MAX_VALUE, -1L, Long.MIN_VALUE, Long.MAX_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        for (long value : values) {
+            VarInt.writeUnsignedVarLong(value, buffer);
+            VarInt.writeSignedVarLong(value, buffer);
+            VarInt.writeUnsignedVarLong(value, out);
+            VarInt.writeSignedVarLong(value, out);
+        }
+        buffer.flip();
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.duplicate().get(actual);
+        assertArrayEquals("Buffer encoding", expected.toByteArray(), actual);
+
+        for (long value : values) {
+            assertEquals("Unsigned value", value, VarInt.readUnsignedVarLong(buffer));
+            assertEquals("Signed value", value, VarInt.readSignedVarLong(buffer));
+        }
+        buffer.clear();
+        VarInt.writeUnsignedVarInt(-1, buffer);
+        VarInt.writeSignedVarInt(Integer.MIN_VALUE, buffer);
+        buffer.flip();
+        assertEquals("Unsigned int value", -1, VarInt.readUnsignedVarInt(buffer));
+        assertEquals("Signed int value", Integer.MIN_VALUE, VarInt.readSignedVarInt(buffer));
+    }
+
+    /**
+     * Tests the buffer varint methods reject padded encodings as the array methods do, so decoding a padded prefix
+     * from a buffer and from an array agree.
+     */
+    @Test
+    public void testBufferVarIntNotMinimal() {
+        for (String hex : new String[]{"8000", "9200", "ED8100", "808080808000"}) {
+            byte[] padded = HexUtils.hexToBytes(hex + "A1");
+            assertThrows("Array " + hex, IllegalArgumentException.class, () -> VarInt.readUnsignedVarLong(padded, 0));
+            assertThrows("Buffer " + hex, IllegalArgumentException.class, () -> VarInt.readUnsignedVarLong(ByteBuffer.wrap(padded)));
+            assertThrows("Array int " + hex, IllegalArgumentException.class, () -> VarInt.readUnsignedVarInt(padded, 0));
+            assertThrows("Buffer int " + hex, IllegalArgumentException.class, () -> VarInt.readUnsignedVarInt(ByteBuffer.wrap(padded)));
+
+            assertThrows("Decode array " + hex, AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(padded));
+            assertThrows("Decode buffer " + hex, AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(ByteBuffer.wrap(padded)));
+        }
+        assertEquals("Single zero byte", 0, VarInt.readUnsignedVarLong(ByteBuffer.wrap(new byte[1])));
+    }
+
+    /**
+     * Tests encoding into an existing array matches the allocating encode, and the precomputed code values.
+     */
+    @Test
+    public void testEncodeInto() {
+        byte[] raw = HexUtils.hexToBytes("00A1E9D3D8EC00");
+        for (Multicodec codec : Multicodec.values()) {
+            byte[] dest = new byte[2 + MulticodecEncoder.encodedLength(codec, 5)];
+            int end = MulticodecEncoder.encodeInto(codec, raw, 1, 5, dest, 2);
+            assertEquals("End offset", dest.length, end);
+            assertEquals("Encoding for " + codec.name(), codec.uvarintcode + "A1E9D3D8EC", HexUtils.bytesToHex(dest).substring(4));
+            assertEquals("Code value for " + codec.name(), Integer.parseInt(codec.code.substring(2), 16), codec.codeValue);
+            assertEquals("Prefix for " + codec.name(), codec.uvarintcode, HexUtils.bytesToHex(codec.prefix()));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> MulticodecEncoder.encodeInto(Multicodec.ED25519_PUB, raw, 0, 7, new byte[8], 0));
+    }
+
+    /**
+     * Tests the offset based array varint methods match the stream encoding, and reject malformed encodings.
+     */
+    @Test
+    public void testArrayVarInt() throws IOException {
+        long[] values = {0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, 1L << 56, Long.MAX_VALUE, -1};
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        byte[] buf = new byte[3 + 10 * values.length];
+        int pos = 3;
+        for (long value : values) {
+            VarInt.writeUnsignedVarLong(value, out);
+            int end = VarInt.writeUnsignedVarLong(value, buf, pos);
+            assertEquals("Size of " + value, VarInt.varIntSize(value), end - pos);
+            assertEquals("Value " + value, value, VarInt.readUnsignedVarLong(buf, pos));
+            pos = end;
+        }
+        assertArrayEquals("Array encoding", expected.toByteArray(), Arrays.copyOfRange(buf, 3, pos));
+
+        byte[] intBuf = new byte[5];
+        assertEquals("Int end", 5, VarInt.writeUnsignedVarInt(-1, intBuf, 0));
+        assertEquals("Unsigned int value", -1, VarInt.readUnsignedVarInt(intBuf, 0));
+        assertEquals("Int size", 2, VarInt.varIntSize(300));
+
+        assertThrows("Truncated", IllegalArgumentException.class, () -> VarInt.readUnsignedVarLong(HexUtils.hexToBytes("8080"), 0));
+        assertThrows("Overlong", IllegalArgumentException.class, () -> VarInt.readUnsignedVarLong(HexUtils.hexToBytes("8000"), 0));
+        assertThrows("Overflow", IllegalArgumentException.class, () -> VarInt.readUnsignedVarLong(HexUtils.hexToBytes("FFFFFFFFFFFFFFFFFF02"), 0));
+        assertThrows("Int overflow", IllegalArgumentException.class, () -> VarInt.readUnsignedVarInt(HexUtils.hexToBytes("FFFFFFFF1F"), 0));
+        assertThrows("Int range", IllegalArgumentException.class, () -> VarInt.readUnsignedVarInt(HexUtils.hexToBytes("AC02"), 0, 1));
+        assertThrows("Offset", IndexOutOfBoundsException.class, () -> VarInt.readUnsignedVarLong(new byte[2], 2));
+        assertThrows("No room", IndexOutOfBoundsException.class, () -> VarInt.writeUnsignedVarLong(300, new byte[2], 1));
+    }
+
+    /**
+     * Tests the generated table: the columns carried by each codec, and that every code resolves through the
+     * perfect hash to its first declared codec.
+     */
+    @Test
+    public void testGeneratedTable() {
+        assertEquals("Name", "ed25519-pub", Multicodec.ED25519_PUB.codecName);
+        assertSame("Tag", Multicodec.Tag.KEY, Multicodec.ED25519_PUB.tag);
+        assertSame("Status", Multicodec.Status.PERMANENT, Multicodec.SHA2_256.status);
+        assertEquals("Description", "CIDv1", Multicodec.CIDV1.description);
+        for (Multicodec codec : Multicodec.values()) {
+            Multicodec resolved = CodecTable.lookup(codec.codeValue);
+            assertEquals("Code of " + codec, codec.codeValue, resolved.codeValue);
+            assertSame("First declared for " + codec, resolved, Multicodec.lookupByCode(codec.code));
+            assertArrayEquals("Prefix of " + codec, HexUtils.hexToBytes(codec.uvarintcode), codec.prefix);
+            assertEquals("Tag name of " + codec, codec.tag, Multicodec.Tag.valueOf(codec.tag.tagName.toUpperCase()));
+        }
+        assertSame("Shared code", Multicodec.P2P, Multicodec.lookupByCode("0x01A5"));
+        assertSame("Unknown sparse code", null, CodecTable.lookup(0x7FFFFF));
+        assertThrows("Lower case", IllegalArgumentException.class, () -> Multicodec.lookupByCode("0xed"));
+    }
+
+    /**
+     * Tests the lookups by numeric code, by varint prefix and by leniently parsed text, and that they do not throw.
+     */
+    @Test
+    public void testPrimitiveLookups() {
+        assertSame("Long", Multicodec.KECCAK_224, Multicodec.lookupByCode(0x1A));
+        assertSame("Sparse", Multicodec.ED25519_PUB, Multicodec.lookupByCode(0xED));
+        assertSame("Hashed", Multicodec.lookupByCode("0xB220"), Multicodec.lookupByCode(0xB220L));
+        assertThrows("Unknown", IllegalArgumentException.class, () -> Multicodec.lookupByCode(0x7FFFFFL));
+        assertThrows("Negative", IllegalArgumentException.class, () -> Multicodec.lookupByCode(-1L));
+        assertEquals("Missing", Optional.empty(), Multicodec.findByCode(Long.MAX_VALUE));
+        assertEquals("Found", Optional.of(Multicodec.SHA2_256), Multicodec.findByCode(0x12));
+
+        for (String text : new String[]{"0x1A", "0x1a", "0X1A", "1a", "1A", "26", " 26\t", "0x001a"}) {
+            assertEquals(text, 26, Multicodec.parseCode(text));
+            assertEquals(text, Optional.of(Multicodec.KECCAK_224), Multicodec.findByCode(text));
+        }
+        for (String text : new String[]{"", " ", "0x", "1g", "-1", "0x-1", "1 2", "0x100000000", "+5", "\uFF11"}) {
+            assertEquals(text, -1, Multicodec.parseCode(text));
+            assertEquals(text, Optional.empty(), Multicodec.findByCode(text));
+        }
+        assertEquals("Max", 0xFFFFFFFFL, Multicodec.parseCode("0xffffffff"));
+
+        for (Multicodec codec : Multicodec.values()) {
+            byte[] framed = new byte[VarInt.varIntSize(codec.codeValue) + 3];
+            VarInt.writeUnsignedVarLong(codec.codeValue, framed, 2);
+            assertEquals("Prefix of " + codec, codec.codeValue, Multicodec.byVarintPrefix(framed, 2).codeValue);
+        }
+        assertSame("Not minimal", null, Multicodec.byVarintPrefix(HexUtils.hexToBytes("9200"), 0));
+        assertSame("Truncated", null, Multicodec.byVarintPrefix(HexUtils.hexToBytes("80E4"), 0));
+        assertSame("Too long", null, Multicodec.byVarintPrefix(HexUtils.hexToBytes("8080808080"), 0));
+        assertSame("Unknown", null, Multicodec.byVarintPrefix(HexUtils.hexToBytes("FFFFFF03"), 0));
+        assertSame("At end", null, Multicodec.byVarintPrefix(new byte[1], 1));
+        assertSame("Before start", null, Multicodec.byVarintPrefix(HexUtils.hexToBytes("1220"), -1));
+        assertSame("Past end", null, Multicodec.byVarintPrefix(new byte[1], Integer.MAX_VALUE));
+    }
+
+    /**
+     * Tests decoding restricted to expected codecs reads the spec prefix, and resolves the cidv1/udp ambiguity of the
+     * legacy prefixes only when they are accepted.
+     */
+    @Test
+    public void testDecodeAllowed() throws AmbiguousCodecEncodingException {
+        byte[] ambiguous = HexUtils.hexToBytes("0111A1E9D3D8EC");
+        CodecSet legacyUdp = CodecSet.of(Multicodec.UDP).withLegacyPrefixes();
+        assertTrue("Legacy prefixes", legacyUdp.isLegacyPrefixes());
+        assertSame("Already legacy", legacyUdp, legacyUdp.withLegacyPrefixes());
+        DecodedData udp = MulticodecEncoder.decode(ambiguous, legacyUdp);
+        assertSame("UDP", Multicodec.UDP, udp.getCodec());
+        assertEquals("UDP payload", "A1E9D3D8EC", udp.getDataAsHex());
+        DecodedData cidv1 = MulticodecEncoder.decode(ambiguous, EnumSet.of(Multicodec.CIDV1));
+        assertSame("CIDV1", Multicodec.CIDV1, cidv1.getCodec());
+        assertEquals("CIDV1 payload", "11A1E9D3D8EC", cidv1.getDataAsHex());
+        assertSame("Both, spec first", Multicodec.CIDV1,
+                MulticodecEncoder.decode(ambiguous, CodecSet.of(Multicodec.CIDV1, Multicodec.UDP).withLegacyPrefixes()).getCodec());
+        assertThrows("Legacy not accepted", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(ambiguous, EnumSet.of(Multicodec.UDP)));
+        assertFalse("Spec only", CodecSet.cached(EnumSet.of(Multicodec.UDP)).isLegacyPrefixes());
+
+        CodecSet keys = CodecSet.of(Multicodec.ED25519_PUB, Multicodec.X25519_PUB, Multicodec.SECP256K1_PUB);
+        byte[] payload = HexUtils.hexToBytes("0102030405");
+        for (Multicodec key : keys.getCodecs()) {
+            assertSame("Legacy " + key, key, MulticodecEncoder.decode(LegacyTranscoder.encodeLegacy(key, payload), keys.withLegacyPrefixes()).getCodec());
+            DecodedData spec = MulticodecEncoder.decode(MulticodecEncoder.encode(RegisteredCodec.of(key), payload), keys);
+            assertSame("Spec " + key, key, spec.getCodec());
+            assertArrayEquals("Spec payload " + key, payload, spec.getDataAsBytes());
+        }
+        assertSame("Shared code", Multicodec.IPFS, MulticodecEncoder.decode(HexUtils.hexToBytes("A50301"), EnumSet.of(Multicodec.IPFS)).getCodec());
+        assertSame("Cached", CodecSet.cached(EnumSet.of(Multicodec.RAW, Multicodec.DAG_PB)), CodecSet.cached(EnumSet.of(Multicodec.DAG_PB, Multicodec.RAW)));
+
+        assertThrows("Not expected", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(HexUtils.hexToBytes("1201"), keys));
+        assertThrows("No payload", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(HexUtils.hexToBytes("ED01"), keys));
+        assertThrows("Empty", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(new byte[0], keys));
+        assertThrows("Truncated", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(HexUtils.hexToBytes("ED"), keys));
+        assertThrows("Overlong", AmbiguousCodecEncodingException.class,
+                () -> MulticodecEncoder.decode(HexUtils.hexToBytes("ED8100AA"), keys.withLegacyPrefixes()));
+        assertThrows("No codecs", IllegalArgumentException.class, () -> CodecSet.of(EnumSet.noneOf(Multicodec.class)));
+    }
+
+    /**
+     * Tests a codec set resolves every code, small and large, to its first declared codec with the code, and no other.
+     */
+    @Test
+    public void testCodecSetByCode() {
+        EnumSet<Multicodec> odd = EnumSet.noneOf(Multicodec.class);
+        for (Multicodec codec : Multicodec.values()) {
+            if (codec.ordinal() % 2 == 1) {
+                odd.add(codec);
+            }
+        }
+        for (CodecSet set : new CodecSet[]{CodecSet.all(), CodecSet.of(odd), CodecSet.of(Multicodec.IDENTITY, Multicodec.UDP)}) {
+            for (Multicodec codec : Multicodec.values()) {
+                Multicodec expected = null;
+                for (Multicodec candidate : set.getCodecs()) {
+                    if (candidate.codeValue == codec.codeValue) {
+                        expected = candidate;
+                        break;
+                    }
+                }
+                assertSame("Code of " + codec + " in " + set.getCodecs().size(), expected, set.byCode(codec.codeValue));
+                if (set.byCode(codec.codeValue + 1) != null) {
+                    assertEquals("Next code of " + codec, codec.codeValue + 1, set.byCode(codec.codeValue + 1).codeValue);
+                }
+            }
+            assertSame("Negative", null, set.byCode(-1));
+            assertSame("Too large", null, set.byCode(1L << 40));
+        }
+    }
+
+    /**
+     * Tests decoding into a reused DecodedData refers to the payload in place, copies it lazily and keeps its hex, and
+     * that decode copies the payload straight away.
+     */
+    @Test
+    public void testDecodeInto() throws AmbiguousCodecEncodingException {
+        byte[] records = HexUtils.hexToBytes("1220AABBCC" + "ED0102DDEE");
+        DecodedData target = new DecodedData();
+        assertSame("Returned", target, MulticodecEncoder.decodeInto(records, 0, 5, target));
+        assertSame("Codec", Multicodec.SHA2_256, target.getCodec());
+        assertSame("In place", records, target.getSource());
+        assertEquals("Offset", 1, target.getOffset());
+        assertEquals("Length", 4, target.getLength());
+        String hex = target.getDataAsHex();
+        assertEquals("Hex", "20AABBCC", hex);
+        assertSame("Hex kept", hex, target.getDataAsHex());
+        DecodedView kept = target.toView();
+
+        MulticodecEncoder.decodeInto(records, 5, 5, target);
+        assertSame("Reused", Multicodec.ED25519_PUB, target.getCodec());
+        assertTrue("Set", target.isSet());
+        assertEquals("New hex", "02DDEE", target.getDataAsHex());
+        byte[] copy = target.getDataAsBytes();
+        assertEquals("Copied", "02DDEE", HexUtils.bytesToHex(copy));
+        assertSame("Copied once", copy, target.getDataAsBytes());
+        records[7] = 0;
+        assertEquals("Independent of source", "02DDEE", HexUtils.bytesToHex(target.getDataAsBytes()));
+
+        assertThrows("Unchanged on failure", AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decodeInto(records, 0, 1, target));
+        assertSame("Still", Multicodec.ED25519_PUB, target.getCodec());
+        assertThrows("Fresh bean", IllegalStateException.class, () -> new DecodedData().toView());
+        DecodedData noData = new DecodedData();
+        noData.setCodec(Multicodec.RAW);
+        assertEquals("No data", 0, noData.toView().getLength());
+
+        byte[] encoded = HexUtils.hexToBytes("1220AABBCC");
+        DecodedData detached = MulticodecEncoder.decode(encoded);
+        assertNotSame("Detached from the input", encoded, detached.getSource());
+        encoded[2] = 0;
+        assertEquals("Independent of input", "20AABBCC", HexUtils.bytesToHex(detached.getDataAsBytes()));
+
+        records[1] = 0x21;
+        assertEquals("Kept view", "20AABBCC", kept.getDataAsHex());
+        assertEquals("Value based", kept, MulticodecEncoder.decodeView(HexUtils.hexToBytes("FF1220AABBCC"), 1, 5));
+        assertEquals("Value hash", kept.hashCode(), MulticodecEncoder.decodeView(HexUtils.hexToBytes("1220AABBCC")).hashCode());
+        assertNotEquals("Other codec", kept, MulticodecEncoder.decodeView(HexUtils.hexToBytes("1303AABBCC")));
+        DecodedView shared = MulticodecEncoder.decodeView(records, 0, 5);
+        DecodedView copied = shared.copy();
+        records[2] = 1;
+        assertNotEquals("Copy is independent", shared, copied);
+    }
 }
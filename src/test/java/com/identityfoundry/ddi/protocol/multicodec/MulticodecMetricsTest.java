@@ -0,0 +1,93 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests the metrics recorded on the encode and decode paths. The build runs this test in its own JVM with the metrics
+ * enabled, and the other tests with them off.
+ */
+public class MulticodecMetricsTest {
+
+    /**
+     * Tests encodes, decodes and failures are counted by codec and reason, with their bytes and latencies.
+     */
+    @Test
+    public void testCounts() {
+        assumeTrue("Run with -Dmulticodec.metrics=true", MulticodecMetrics.ENABLED);
+        MulticodecMetrics.Snapshot before = MulticodecMetrics.snapshot();
+
+        MulticodecEncoder.encode(Multicodec.SHA2_256, new byte[32]);
+        MulticodecEncoder.encode(Multicodec.SHA2_256, ByteBuffer.allocate(8), ByteBuffer.allocate(9));
+        MulticodecEncoder.encode(Multicodec.ED25519_PUB, new byte[4]);
+        assertDecodes("1220", "1221", "ED0101", "A0E40201");
+        assertFails("", "80", "7F01", "12", "1200AA");
+        ByteBuffer buffer = ByteBuffer.wrap(HexUtils.hexToBytes("ED01"));
+        assertThrows(AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decodeCodec(buffer));
+
+        MulticodecMetrics.Snapshot after = MulticodecMetrics.snapshot();
+        assertEquals("sha2-256 encodes", 2, delta(before.getEncodeCounts().get(Multicodec.SHA2_256), after.getEncodeCounts().get(Multicodec.SHA2_256)));
+        assertEquals("ed25519-pub encodes", 1, delta(before.getEncodeCounts().get(Multicodec.ED25519_PUB), after.getEncodeCounts().get(Multicodec.ED25519_PUB)));
+        assertEquals("Bytes encoded", 44, after.getBytesEncoded() - before.getBytesEncoded());
+        assertEquals("sha2-256 decodes", 2, delta(before.getDecodeCounts().get(Multicodec.SHA2_256), after.getDecodeCounts().get(Multicodec.SHA2_256)));
+        assertEquals("Bytes decoded", 11, after.getBytesDecoded() - before.getBytesDecoded());
+        for (MulticodecMetrics.Failure reason : MulticodecMetrics.Failure.values()) {
+            long expected = (reason == MulticodecMetrics.Failure.NO_PAYLOAD) ? 2 : 1;
+            assertEquals(reason.name(), expected, after.getFailureCounts().get(reason) - before.getFailureCounts().get(reason));
+        }
+        assertEquals("Encode latencies", 3, sum(after.getEncodeLatencyCounts()) - sum(before.getEncodeLatencyCounts()));
+        assertEquals("Decode latencies", 10, sum(after.getDecodeLatencyCounts()) - sum(before.getDecodeLatencyCounts()));
+        assertTrue("Median", after.getDecodeLatencyPercentile(50) > 0);
+        assertTrue("Ordered", after.getDecodeLatencyPercentile(50) <= after.getDecodeLatencyPercentile(99.9));
+        assertThrows(UnsupportedOperationException.class, () -> after.getEncodeCounts().clear());
+    }
+
+    /**
+     * Tests latencies fall in buckets whose bounds hold them, within 12.5% of their value.
+     */
+    @Test
+    public void testHistogramBuckets() {
+        assertEquals("Negative", 0, MulticodecMetrics.LatencyHistogram.index(-5));
+        assertEquals("Huge", MulticodecMetrics.LatencyHistogram.BUCKETS - 1, MulticodecMetrics.LatencyHistogram.index(Long.MAX_VALUE));
+        for (long nanos = 0; nanos < (1L << 36); nanos = nanos * 9 / 8 + 1) {
+            int bucket = MulticodecMetrics.LatencyHistogram.index(nanos);
+            long lower = MulticodecMetrics.Snapshot.getLatencyBucketLowerBound(bucket);
+            long next = MulticodecMetrics.Snapshot.getLatencyBucketLowerBound(bucket + 1);
+            assertTrue("Bounds of " + nanos, lower <= nanos && nanos < next);
+            assertTrue("Width of " + nanos, next - lower <= Math.max(1, lower / 8));
+        }
+    }
+
+    private static void assertDecodes(String... hex) {
+        for (String encoded : hex) {
+            try {
+                MulticodecEncoder.decode(HexUtils.hexToBytes(encoded));
+            } catch (AmbiguousCodecEncodingException exAmbiguous) {
+                fail(encoded + ": " + exAmbiguous.getMessage());
+            }
+        }
+    }
+
+    private static void assertFails(String... hex) {
+        for (String encoded : hex) {
+            assertThrows(encoded, AmbiguousCodecEncodingException.class, () -> MulticodecEncoder.decode(HexUtils.hexToBytes(encoded)));
+        }
+    }
+
+    private static long delta(Long before, Long after) {
+        return ((after == null) ? 0 : after) - ((before == null) ? 0 : before);
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,208 @@
+package com.identityfoundry.ddi.protocol.multicodec;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the length framed record streams.
+ */
+public class MulticodecStreamTest {
+
+    private static final String SAMPLE_DATA_HEX = "A1E9D3D8EC";
+
+    /**
+     * Tests the framing of a record is the varint length followed by the multicodec encoding.
+     */
+    @Test
+    public void testFraming() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            out.writeRecord(Multicodec.ED25519_PUB, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+        }
+        assertEquals("Framed record", "07" + "ED01" + SAMPLE_DATA_HEX, HexUtils.bytesToHex(bytes.toByteArray()));
+
+        bytes.reset();
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            out.writeRecord(Multicodec.UDP, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+        }
+        assertEquals("Multibyte code as one varint", "07" + "9102" + SAMPLE_DATA_HEX, HexUtils.bytesToHex(bytes.toByteArray()));
+    }
+
+    /**
+     * Tests records of multibyte codes read back as the codec written, not a codec sharing their first byte.
+     */
+    @Test
+    public void testRoundTripMultibyte() throws Exception {
+        Multicodec[] codecs = {Multicodec.UDP, Multicodec.P256_PUB, Multicodec.BLAKE2B_256, Multicodec.SKEIN1024_952,
+                Multicodec.CIDV1, Multicodec.SHA2_256};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            for (Multicodec codec : codecs) {
+                out.writeRecord(codec, HexUtils.hexToBytes(SAMPLE_DATA_HEX));
+            }
+        }
+
+        try (MulticodecInputStream in = new MulticodecInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (Multicodec codec : codecs) {
+                DecodedView view = in.readRecordView();
+                assertEquals("Codec", codec, view.getCodec());
+                assertEquals("Payload of " + codec.name(), SAMPLE_DATA_HEX, view.getDataAsHex());
+            }
+            assertNull("End of stream", in.readRecordView());
+        }
+    }
+
+    /**
+     * Tests many records of varying sizes round trip, one at a time and in bulk.
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        Multicodec[] codecs = {Multicodec.SHA2_256, Multicodec.ED25519_PUB, Multicodec.RAW};
+        List<byte[]> payloads = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes, 16)) {
+            for (int i = 0; i < 300; i++) {
+                byte[] payload = new byte[1 + i * 7];
+                Arrays.fill(payload, (byte) i);
+                payloads.add(payload);
+                out.writeRecord(codecs[i % codecs.length], payload);
+            }
+        }
+
+        try (MulticodecInputStream in = new MulticodecInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            DecodedData first = in.readRecord();
+            assertEquals("First codec", Multicodec.SHA2_256, first.getCodec());
+            assertArrayEquals("First payload", payloads.get(0), first.getDataAsBytes());
+
+            List<DecodedData> records = new ArrayList<>();
+            assertEquals("Bulk read", 200, in.readRecords(records, 200));
+            assertEquals("Bulk read at end", 99, in.readRecords(records, 200));
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals("Codec " + (i + 1), codecs[(i + 1) % codecs.length], records.get(i).getCodec());
+                assertArrayEquals("Payload " + (i + 1), payloads.get(i + 1), records.get(i).getDataAsBytes());
+            }
+            assertNull("End of stream", in.readRecord());
+        }
+    }
+
+    /**
+     * Tests records with an empty payload round trip through the record streams and the record buffers alike.
+     */
+    @Test
+    public void testEmptyRecords() throws Exception {
+        Multicodec[] codecs = {Multicodec.SHA2_256, Multicodec.UDP, Multicodec.ED25519_PUB};
+        byte[][] payloads = {new byte[0], new byte[0], HexUtils.hexToBytes(SAMPLE_DATA_HEX)};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            for (int i = 0; i < codecs.length; i++) {
+                out.writeRecord(codecs[i], payloads[i]);
+            }
+        }
+        byte[] buffer = bytes.toByteArray();
+        assertEquals("Framed records", "01" + "12" + "02" + "9102" + "07" + "ED01" + SAMPLE_DATA_HEX, HexUtils.bytesToHex(buffer));
+
+        try (MulticodecInputStream in = new MulticodecInputStream(new ByteArrayInputStream(buffer))) {
+            for (int i = 0; i < codecs.length; i++) {
+                DecodedData data = in.readRecord();
+                assertEquals("Codec", codecs[i], data.getCodec());
+                assertArrayEquals("Payload of " + codecs[i].name(), payloads[i], data.getDataAsBytes());
+            }
+            assertNull("End of stream", in.readRecordView());
+        }
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(buffer.length);
+        direct.put(buffer).flip();
+        List<DecodedView> views = new ArrayList<>();
+        MulticodecRecords.views(buffer, false).forEach(views::add);
+        List<DecodedData> copies = new ArrayList<>();
+        MulticodecRecords.stream(direct, false).forEach(copies::add);
+        for (int i = 0; i < codecs.length; i++) {
+            assertEquals("View codec", codecs[i], views.get(i).getCodec());
+            assertEquals("View payload", HexUtils.bytesToHex(payloads[i]), views.get(i).getDataAsHex());
+            assertEquals("Buffer codec", codecs[i], copies.get(i).getCodec());
+            assertArrayEquals("Buffer payload", payloads[i], copies.get(i).getDataAsBytes());
+        }
+    }
+
+    /**
+     * Tests truncated records and records over the length limit are rejected.
+     */
+    @Test
+    public void testInvalidRecords() {
+        byte[] truncated = HexUtils.hexToBytes("07" + "ED01" + "A1E9");
+        assertThrows(EOFException.class, () -> new MulticodecInputStream(new ByteArrayInputStream(truncated)).readRecord());
+
+        byte[] oversized = HexUtils.hexToBytes("8008" + "ED01");
+        assertThrows(IOException.class, () -> new MulticodecInputStream(new ByteArrayInputStream(oversized), 16, 1000).readRecord());
+
+        byte[] unknownCodec = HexUtils.hexToBytes("02" + "FF7F");
+        assertThrows(AmbiguousCodecEncodingException.class, () -> new MulticodecInputStream(new ByteArrayInputStream(unknownCodec)).readRecord());
+    }
+
+    /**
+     * Tests a parallel stream over a buffer of framed records splits at record boundaries and keeps every record.
+     */
+    @Test
+    public void testParallelRecordStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long expectedSum = 0;
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            for (int i = 0; i < 20000; i++) {
+                byte[] payload = new byte[1 + i % 200];
+                payload[0] = (byte) i;
+                expectedSum += payload[0] + payload.length;
+                out.writeRecord((i % 2 == 0) ? Multicodec.SHA2_256 : Multicodec.ED25519_PUB, payload);
+            }
+        }
+        byte[] buffer = bytes.toByteArray();
+
+        assertTrue("Spliterator splits", MulticodecRecords.spliterator(buffer, 0, buffer.length).trySplit() != null);
+        assertEquals("Parallel view count", 20000, MulticodecRecords.views(buffer, true).count());
+        assertEquals("Parallel payload sum", expectedSum,
+                MulticodecRecords.stream(buffer, true).mapToLong(d -> d.getDataAsBytes()[0] + d.getDataAsBytes().length).sum());
+        assertEquals("Ordered codecs", Multicodec.ED25519_PUB, MulticodecRecords.views(buffer, true).skip(19999).findFirst().get().getCodec());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(buffer.length);
+        direct.put(buffer).flip();
+        assertEquals("Direct buffer payload sum", expectedSum,
+                MulticodecRecords.stream(direct, true).mapToLong(d -> d.getDataAsBytes()[0] + d.getDataAsBytes().length).sum());
+        assertEquals("Position unchanged", 0, direct.position());
+
+        byte[] corrupt = Arrays.copyOf(buffer, buffer.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> MulticodecRecords.views(corrupt, false).count());
+    }
+
+    /**
+     * Tests malformed framing is not split around, and fails the stream when it is reached rather than on a split.
+     */
+    @Test
+    public void testMalformedFraming() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(HexUtils.hexToBytes("FFFFFFFF07"));
+        try (MulticodecOutputStream out = new MulticodecOutputStream(bytes)) {
+            for (int i = 0; i < 5000; i++) {
+                out.writeRecord(Multicodec.SHA2_256, new byte[32]);
+            }
+        }
+        byte[] overrun = bytes.toByteArray();
+        assertNull("No split", MulticodecRecords.spliterator(overrun, 0, overrun.length).trySplit());
+        assertThrows("Overrun", IllegalArgumentException.class, () -> MulticodecRecords.views(overrun, true).count());
+
+        byte[] malformed = Arrays.copyOfRange(overrun, 3, overrun.length);
+        malformed[0] = (byte) 0x80;
+        malformed[1] = 0x00;
+        assertNull("No split", MulticodecRecords.spliterator(malformed, 0, malformed.length).trySplit());
+        assertThrows("Malformed length", IllegalArgumentException.class, () -> MulticodecRecords.views(malformed, true).count());
+    }
+}
@@ -0,0 +1,176 @@
+package com.identityfoundry.ddi.protocol.multihash;
+
+import com.identityfoundry.ddi.protocol.common.HexUtils;
+import com.identityfoundry.ddi.protocol.multicodec.Multicodec;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Security;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests computing and verifying multihashes.
+ */
+public class MultihashTest {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] HELLO = "hello world".getBytes(StandardCharsets.US_ASCII);
+
+    private static String hex(Multicodec codec, byte[] data) {
+        return HexUtils.bytesToHex(Multihash.hash(codec, data));
+    }
+
+    /**
+     * Tests multihashes against published digests.
+     */
+    @Test
+    public void testKnownVectors() {
+        assertEquals("sha2-256", "1220B94D27B9934D3E08A52E52D7DA7DABFAC484EFE37A5380EE9088F7ACE2EFCDE9", hex(Multicodec.SHA2_256, HELLO));
+        assertEquals("sha3-256", "1620A7FFC6F8BF1ED76651C14756A061D662F580FF4DE43B49FA82D80A4B80F8434A", hex(Multicodec.SHA3_256, EMPTY));
+        assertEquals("keccak-256", "1B20C5D2460186F7233C927E7DB2DCC703C0E500B653CA82273B7BFAD8045D85A470", hex(Multicodec.KECCAK_256, EMPTY));
+        assertEquals("shake-128", "18207F9C2BA4E88F827D616045507605853ED73B8093F6EFBC88EB1A6EACFA66EF26", hex(Multicodec.SHAKE_128, EMPTY));
+        assertEquals("shake-256", "194046B9DD2B0BA88D13233B3FEB743EEB243FCD52EA62B81B82B50C27646ED5762F"
+                + "D75DC4DDD8C0F200CB05019D67B592F6FC821C49479AB48640292EACB3B7C4BE", hex(Multicodec.SHAKE_256, EMPTY));
+        assertEquals("md5", "D50110D41D8CD98F00B204E9800998ECF8427E", hex(Multicodec.MD5, EMPTY));
+        assertEquals("identity", "000B" + HexUtils.bytesToHex(HELLO), hex(Multicodec.IDENTITY, HELLO));
+        assertEquals("Two byte code", "9420", hex(Multicodec.SHA2_512_224, EMPTY).substring(0, 4));
+        assertEquals("Digest length", 28, Multihash.getDigestLength(Multicodec.SHA2_512_224));
+    }
+
+    /**
+     * Tests double SHA-256 is SHA-256 twice, and the pure Java Keccak sponge matches the JDK's SHA-3, where the JDK
+     * has it (Java 9 and later), over lengths either side of the block sizes.
+     */
+    @Test
+    public void testKeccakAgainstJdk() throws NoSuchAlgorithmException {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        assertArrayEquals("Double SHA-256", sha256.digest(sha256.digest(HELLO)), Multihash.getDigest(Multihash.hash(Multicodec.DBL_SHA2_256, HELLO)));
+
+        assumeTrue("The JDK has no SHA-3", Security.getAlgorithms("MessageDigest").contains("SHA3-256"));
+        Random random = new Random(1600);
+        for (int bits : new int[]{224, 256, 384, 512}) {
+            MessageDigest jdk = MessageDigest.getInstance("SHA3-" + bits);
+            KeccakDigest keccak = KeccakDigest.sha3(bits);
+            for (int length = 0; length < 300; length++) {
+                byte[] data = new byte[length];
+                random.nextBytes(data);
+                //Split the update to exercise the partial block paths.
+                int split = random.nextInt(length + 1);
+                keccak.update(data, 0, split);
+                keccak.update(data, split, length - split);
+                assertArrayEquals("SHA3-" + bits + " of " + length + " bytes", jdk.digest(data), keccak.digest());
+            }
+        }
+    }
+
+    /**
+     * Tests arrays, buffers, streams and files of the same data hash alike, for every supported function.
+     */
+    @Test
+    public void testSources() throws IOException {
+        byte[] data = new byte[200_000];
+        new Random(42).nextBytes(data);
+        File file = File.createTempFile("multihash", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (Multicodec codec : Multicodec.values()) {
+                if (!Multihash.isSupported(codec)) {
+                    continue;
+                }
+                byte[] expected = Multihash.hash(codec, data);
+                assertEquals("Codec", codec, Multihash.getCodec(expected));
+                assertArrayEquals("Direct buffer " + codec.name(), expected, Multihash.hash(codec, copyDirect(data)));
+                assertArrayEquals("Stream " + codec.name(), expected, Multihash.hash(codec, new ByteArrayInputStream(data)));
+                assertArrayEquals("File " + codec.name(), expected, Multihash.hash(codec, channel));
+                assertEquals("Channel position unchanged", 0, channel.position());
+                assertTrue("Verify " + codec.name(), Multihash.verify(expected, data));
+            }
+        }
+        assertFalse("BLAKE3", Multihash.isSupported(Multicodec.BLAKE3));
+        assertThrows(IllegalArgumentException.class, () -> Multihash.hash(Multicodec.MURMUR3_X64_64, HELLO));
+    }
+
+    /**
+     * Tests the verifying stream passes matching data through and fails at the end on a mismatch, including truncated
+     * and identity multihashes.
+     */
+    @Test
+    public void testVerifyingStream() throws IOException {
+        byte[] data = new byte[100_000];
+        new Random(7).nextBytes(data);
+        for (Multicodec codec : new Multicodec[]{Multicodec.SHA2_256, Multicodec.KECCAK_512, Multicodec.IDENTITY}) {
+            byte[] multihash = Multihash.hash(codec, data);
+            try (MultihashInputStream in = new MultihashInputStream(new ByteArrayInputStream(data), multihash)) {
+                assertArrayEquals("Passed through", data, readAll(in));
+                assertTrue("Verified " + codec.name(), in.isVerified());
+            }
+
+            byte[] corrupt = data.clone();
+            corrupt[corrupt.length / 2] ^= 1;
+            MultihashInputStream in = new MultihashInputStream(new ByteArrayInputStream(corrupt), multihash);
+            assertThrows("Mismatch " + codec.name(), MultihashMismatchException.class, () -> readAll(in));
+            assertThrows("Still a mismatch", MultihashMismatchException.class, in::read);
+            assertFalse("Not verified", in.isVerified());
+        }
+
+        //A multihash may carry only the start of the digest.
+        byte[] full = Multihash.hash(Multicodec.SHA2_256, HELLO);
+        byte[] truncated = new byte[2 + 20];
+        System.arraycopy(full, 0, truncated, 0, truncated.length);
+        truncated[1] = 20;
+        assertTrue("Truncated", Multihash.verify(truncated, HELLO));
+        MultihashInputStream in = new MultihashInputStream(new ByteArrayInputStream(HELLO), truncated);
+        assertEquals("Skipped", HELLO.length, in.skip(100));
+        assertEquals("End", -1, in.read());
+        assertTrue("Truncated stream", in.isVerified());
+
+        assertFalse("Identity too short", Multihash.verify(Multihash.hash(Multicodec.IDENTITY, HELLO), new byte[3]));
+    }
+
+    /**
+     * Tests malformed multihashes are rejected.
+     */
+    @Test
+    public void testMalformed() {
+        assertThrows("Empty", IllegalArgumentException.class, () -> Multihash.getCodec(EMPTY));
+        assertThrows("No length", IllegalArgumentException.class, () -> Multihash.getCodec(new byte[]{0x12}));
+        assertThrows("Length mismatch", IllegalArgumentException.class, () -> Multihash.getDigest(new byte[]{0x12, 0x02, 0x01}));
+        byte[] tooLong = new byte[2 + 21];
+        tooLong[0] = 0x11;
+        tooLong[1] = 21;
+        assertThrows("Longer than SHA-1", IllegalArgumentException.class, () -> Multihash.getDigest(tooLong));
+        assertThrows("Unsupported", IllegalArgumentException.class, () -> Multihash.getCodec(new byte[]{0x1E, 0x00}));
+        assertThrows("Stream", IllegalArgumentException.class, () -> new MultihashInputStream(new ByteArrayInputStream(HELLO), new byte[]{0x12}));
+    }
+
+    private static ByteBuffer copyDirect(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3000];
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}